@@ -0,0 +1,50 @@
+package com.devonfw.shipkafka;
+
+import com.devonfw.shipkafka.common.messaging.KafkaSendPipeline;
+import org.mockito.Mockito;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Starts the application for benchmarks: with the H2 database of the "testing" profile, without web server, and with a
+ * stub {@link KafkaTemplate} and {@link KafkaSendPipeline}, so no broker is needed. The Kafka listeners are stopped right after the start.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String... properties) {
+        KafkaTemplate<?, ?> template = Mockito.mock(KafkaTemplate.class, Mockito.withSettings().stubOnly());
+        KafkaSendPipeline sendPipeline = Mockito.mock(KafkaSendPipeline.class, Mockito.withSettings().stubOnly());
+
+        // passed as command line arguments, which take precedence over application.yml
+        String[] args = Stream.concat(Stream.of(
+                                "logging.level.root=WARN",
+                                "logging.level.org.apache.kafka=ERROR",
+                                "spring.kafka.admin.properties.default.api.timeout.ms=1000",
+                                "spring.kafka.admin.properties.request.timeout.ms=1000",
+                                "shipkafka.outbox.poll-interval-ms=3600000"),
+                        Arrays.stream(properties))
+                .map(property -> "--" + property)
+                .toArray(String[]::new);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("testing")
+                .initializers(applicationContext -> {
+                    applicationContext.getBeanFactory().registerSingleton("kafkaTemplate", template);
+                    applicationContext.getBeanFactory().registerSingleton("kafkaSendPipeline", sendPipeline);
+                })
+                .run(args);
+
+        context.getBean(KafkaListenerEndpointRegistry.class).stop();
+        return context;
+    }
+}
@@ -0,0 +1,95 @@
+package com.devonfw.shipkafka;
+
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.BookingRepository;
+import com.devonfw.shipkafka.bookingcomponent.gateway.BookingComponentMessagingGateway;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import com.devonfw.shipkafka.common.events.BookingDecidedEvent;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import com.devonfw.shipkafka.shipcomponent.logic.ShipCapacityLedger;
+import com.devonfw.shipkafka.shipcomponent.logic.ShipComponentLogic;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processes one booking the way it travels through both components, without a broker: the "bookings" record is
+ * deserialized and decided by the ship component, the decision is serialized to "ship-bookings" and applied to the
+ * database by the booking listener.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookingPipelineBenchmark {
+
+    private ConfigurableApplicationContext context;
+
+    private ShipComponentLogic shipComponentLogic;
+
+    private BookingComponentMessagingGateway bookingListener;
+
+    private BookingRepository bookingRepository;
+
+    private ShipCapacityLedger capacityLedger;
+
+    private JsonSerializer<Object> serializer;
+
+    private JsonDeserializer<Object> deserializer;
+
+    private Long shipId;
+
+    private RecordHeaders headers;
+
+    private byte[] record;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start();
+        shipComponentLogic = context.getBean(ShipComponentLogic.class);
+        bookingListener = context.getBean(BookingComponentMessagingGateway.class);
+        bookingRepository = context.getBean(BookingRepository.class);
+        capacityLedger = context.getBean(ShipCapacityLedger.class);
+
+        serializer = new JsonSerializer<>();
+        deserializer = new JsonDeserializer<>();
+        deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+
+        shipId = context.getBean(ShipRepository.class).save(new Ship("Mein Schiff 1", Integer.MAX_VALUE)).getId();
+    }
+
+    /**
+     * Every booking can only be decided once, so each invocation gets a new requested booking in the database.
+     */
+    @Setup(Level.Invocation)
+    public void requestBooking() throws Exception {
+        Booking booking = bookingRepository.save(new Booking(shipId, 1));
+        headers = new RecordHeaders();
+        record = serializer.serialize("bookings", headers,
+                new BookingRequestedEvent(booking.getId(), booking.getCustomerId(), booking.getShipId(), booking.getContainerCount()));
+        capacityLedger.setAvailableContainers(shipId, Integer.MAX_VALUE);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookingDecidedEvent processBooking() throws Exception {
+        BookingRequestedEvent requested = (BookingRequestedEvent) deserializer.deserialize("bookings", headers, record);
+        BookingDecidedEvent decision = shipComponentLogic.confirmBooking(requested);
+
+        RecordHeaders decisionHeaders = new RecordHeaders();
+        byte[] decisionRecord = serializer.serialize("ship-bookings", decisionHeaders, decision);
+
+        BookingDecidedEvent decided = (BookingDecidedEvent) deserializer.deserialize("ship-bookings", decisionHeaders, decisionRecord);
+        bookingListener.listenBooking(decided);
+        return decided;
+    }
+}
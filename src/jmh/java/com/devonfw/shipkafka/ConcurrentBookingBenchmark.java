@@ -0,0 +1,101 @@
+package com.devonfw.shipkafka;
+
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.Customer;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.CustomerRepository;
+import com.devonfw.shipkafka.bookingcomponent.dtos.BookingCreateDTO;
+import com.devonfw.shipkafka.bookingcomponent.logic.BookingComponentBusinessLogic;
+import com.devonfw.shipkafka.common.concurrent.ExecutionMode;
+import com.devonfw.shipkafka.common.concurrent.ExecutionThreads;
+import com.devonfw.shipkafka.common.concurrent.TaskScope;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import com.devonfw.shipkafka.common.events.BookingDecidedEvent;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import com.devonfw.shipkafka.shipcomponent.logic.ShipComponentLogic;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the blocking JPA paths at high concurrency: {@link #BOOKINGS} bookings are added, decided and applied
+ * by {@code concurrency} concurrent tasks, on pooled platform threads or on a virtual thread each. The virtual mode
+ * needs Java 21, so the jmh task only passes it as {@code executionMode} on such runtimes. All tasks share the connection pool of
+ * {@code spring.datasource.hikari.maximum-pool-size}, which is varied by {@code poolSize}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ConcurrentBookingBenchmark {
+
+    private static final int BOOKINGS = 2048;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    private ExecutionMode executionMode;
+
+    @Param({"16", "256", "1024"})
+    private int concurrency;
+
+    @Param({"10", "50"})
+    private int poolSize;
+
+    private ConfigurableApplicationContext context;
+
+    private BookingComponentBusinessLogic bookingLogic;
+
+    private ShipComponentLogic shipLogic;
+
+    private ExecutorService executor;
+
+    private Long customerId;
+
+    private Long shipId;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        if (executionMode == ExecutionMode.VIRTUAL && !ExecutionThreads.isVirtualSupported()) {
+            throw new IllegalStateException("Virtual threads need Java 21, running on " + Runtime.version());
+        }
+        context = BenchmarkContext.start("spring.datasource.hikari.maximum-pool-size=" + poolSize);
+        bookingLogic = context.getBean(BookingComponentBusinessLogic.class);
+        shipLogic = context.getBean(ShipComponentLogic.class);
+        executor = new ExecutionThreads(executionMode).newExecutor("load-", concurrency);
+
+        customerId = context.getBean(CustomerRepository.class).save(new Customer("Max", "Muster")).getId();
+        shipId = context.getBean(ShipRepository.class).save(new Ship("Mein Schiff 1", Integer.MAX_VALUE)).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        executor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOOKINGS)
+    public List<Integer> processBookings() throws Exception {
+        try (TaskScope<Integer> scope = new TaskScope<>(executor)) {
+            for (int task = 0; task < concurrency; task++) {
+                int bookings = BOOKINGS / concurrency;
+                scope.fork(() -> {
+                    for (int i = 0; i < bookings; i++) {
+                        processBooking();
+                    }
+                    return bookings;
+                });
+            }
+            return scope.join(Duration.ofMinutes(1));
+        }
+    }
+
+    private void processBooking() throws Exception {
+        Booking booking = bookingLogic.addBooking(customerId, new BookingCreateDTO(shipId, 1));
+        BookingDecidedEvent decision = shipLogic.confirmBooking(
+                new BookingRequestedEvent(booking.getId(), customerId, shipId, booking.getContainerCount()));
+        bookingLogic.processBooking(decision.getBookingId(), decision.getBookingStatus(), decision.eventId());
+    }
+}
@@ -0,0 +1,162 @@
+package com.devonfw.shipkafka;
+
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.Customer;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.BookingRepository;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.CustomerRepository;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.OutboxMessageRepository;
+import com.devonfw.shipkafka.bookingcomponent.logic.BookingComponentBusinessLogic;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Writes entities in bulk with and without JDBC batching and pooled id allocation: a test data load like the
+ * {@code PopulateTestDataRunner}, scaled to {@code customers} customers with {@code bookingsPerCustomer} bookings each,
+ * and the cancellation of all bookings of a damaged ship. The prepared statements per operation are printed after each
+ * iteration; a batch counts as one statement. The in-memory H2 database has no round trip per statement, so the times
+ * hardly differ here, while the statement count is what a database server would see.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PersistenceBatchingBenchmark {
+
+    @Param({"true", "false"})
+    private boolean batched;
+
+    @Param({"100"})
+    private int customers;
+
+    @Param({"10"})
+    private int bookingsPerCustomer;
+
+    private ConfigurableApplicationContext context;
+
+    private CustomerRepository customerRepository;
+
+    private BookingRepository bookingRepository;
+
+    private ShipRepository shipRepository;
+
+    private OutboxMessageRepository outboxMessageRepository;
+
+    private BookingComponentBusinessLogic bookingComponentBusinessLogic;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    private long statements;
+
+    private long operations;
+
+    /**
+     * The bookings of the damaged ship are stored before each cancellation, outside of the measurement.
+     */
+    @State(Scope.Thread)
+    public static class DamagedShip {
+
+        private Long shipId;
+
+        @Setup(Level.Invocation)
+        public void book(PersistenceBatchingBenchmark benchmark) {
+            shipId = benchmark.shipRepository.save(new Ship("Mein Schiff 1", Integer.MAX_VALUE)).getId();
+            benchmark.populateBookings(shipId);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = batched
+                ? BenchmarkContext.start("spring.jpa.properties.hibernate.generate_statistics=true")
+                : BenchmarkContext.start("spring.jpa.properties.hibernate.generate_statistics=true",
+                "spring.jpa.properties.hibernate.jdbc.batch_size=0",
+                "spring.jpa.properties.hibernate.order_inserts=false",
+                "spring.jpa.properties.hibernate.order_updates=false",
+                "shipkafka.ids.allocation-size.booking_seq=1",
+                "shipkafka.ids.allocation-size.customer_seq=1",
+                "shipkafka.ids.allocation-size.ship_seq=1",
+                "shipkafka.ids.allocation-size.outbox_message_seq=1");
+        customerRepository = context.getBean(CustomerRepository.class);
+        bookingRepository = context.getBean(BookingRepository.class);
+        shipRepository = context.getBean(ShipRepository.class);
+        outboxMessageRepository = context.getBean(OutboxMessageRepository.class);
+        bookingComponentBusinessLogic = context.getBean(BookingComponentBusinessLogic.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteAll() {
+        System.out.printf("%nStatements per operation: %d%n", statements / Math.max(operations, 1));
+        statements = 0;
+        operations = 0;
+
+        bookingRepository.deleteAllInBatch();
+        customerRepository.deleteAllInBatch();
+        shipRepository.deleteAllInBatch();
+        outboxMessageRepository.deleteAllInBatch();
+    }
+
+    @Benchmark
+    public List<Booking> populate() {
+        return countStatements(() -> transactionTemplate.execute(status -> {
+            List<Ship> ships = shipRepository.saveAll(List.of(
+                    new Ship("Ship Aachen", 2, false),
+                    new Ship("Ship Berlin", 5, false),
+                    new Ship("Ship Hamburg", 8, true),
+                    new Ship("Ship Frankfurt", 20, false)));
+            return populateBookings(ships.get(1).getId());
+        }));
+    }
+
+    @Benchmark
+    public int cancelBookings(DamagedShip damagedShip) {
+        return countStatements(() -> bookingComponentBusinessLogic.cancelBookings(damagedShip.shipId));
+    }
+
+    private <T> T countStatements(Supplier<T> operation) {
+        long before = statistics.getPrepareStatementCount();
+        T result = operation.get();
+        statements += statistics.getPrepareStatementCount() - before;
+        operations++;
+        return result;
+    }
+
+    private List<Booking> populateBookings(Long shipId) {
+        return transactionTemplate.execute(status -> {
+            List<Customer> saved = new ArrayList<>(customers);
+            for (int i = 0; i < customers; i++) {
+                saved.add(new Customer("Jane", "Doe " + i));
+            }
+            saved = customerRepository.saveAll(saved);
+
+            List<Booking> bookings = new ArrayList<>(customers * bookingsPerCustomer);
+            for (Customer customer : saved) {
+                for (int i = 0; i < bookingsPerCustomer; i++) {
+                    Booking booking = new Booking(shipId, 1);
+                    booking.setCustomerId(customer.getId());
+                    bookings.add(booking);
+                }
+            }
+            return bookingRepository.saveAll(bookings);
+        });
+    }
+}
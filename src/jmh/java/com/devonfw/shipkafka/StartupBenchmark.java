@@ -0,0 +1,98 @@
+package com.devonfw.shipkafka;
+
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import com.devonfw.shipkafka.shipcomponent.logic.ShipComponentLogic;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the start of a new JVM until the first booking request was decided, and until the p99 of the decision time
+ * is steady, in the default and in the "fast-boot" boot mode. Every invocation runs {@link #main(String[])} in a new
+ * JVM, so class loading and JIT compilation start from scratch regardless of the forks configured for JMH. The p99 is
+ * steady once it stays within {@value #STEADY_TOLERANCE} of the previous window for {@value #STEADY_WINDOWS} windows
+ * of {@value #WINDOW_SIZE} decisions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StartupBenchmark {
+
+    private static final int WINDOW_SIZE = 1_000;
+
+    private static final int STEADY_WINDOWS = 3;
+
+    private static final double STEADY_TOLERANCE = 0.1;
+
+    private static final int MAX_WINDOWS = 500;
+
+    @Param({"default", "fast-boot"})
+    private String bootMode;
+
+    @Benchmark
+    public int timeToFirstRequest() throws Exception {
+        return run("first-request");
+    }
+
+    @Benchmark
+    public int timeToSteadyP99() throws Exception {
+        return run("steady-p99");
+    }
+
+    private int run(String target) throws Exception {
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), StartupBenchmark.class.getName(), target, bootMode)
+                .inheritIO()
+                .start();
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("Benchmark JVM exited with " + exitCode);
+        }
+        return exitCode;
+    }
+
+    public static void main(String[] args) {
+        String target = args[0];
+        ConfigurableApplicationContext context = "fast-boot".equals(args[1])
+                ? BenchmarkContext.start("spring.profiles.include=fast-boot")
+                : BenchmarkContext.start();
+        ShipComponentLogic shipComponentLogic = context.getBean(ShipComponentLogic.class);
+        Long shipId = context.getBean(ShipRepository.class).save(new Ship("Mein Schiff 1", Integer.MAX_VALUE)).getId();
+
+        long bookingId = 1;
+        decide(shipComponentLogic, bookingId++, shipId);
+        if ("first-request".equals(target)) {
+            Runtime.getRuntime().halt(0);
+        }
+
+        long[] window = new long[WINDOW_SIZE];
+        long previousP99 = Long.MAX_VALUE;
+        int steadyWindows = 0;
+        for (int windows = 0; windows < MAX_WINDOWS && steadyWindows < STEADY_WINDOWS; windows++) {
+            for (int i = 0; i < WINDOW_SIZE; i++) {
+                long start = System.nanoTime();
+                decide(shipComponentLogic, bookingId++, shipId);
+                window[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(window);
+            long p99 = window[WINDOW_SIZE * 99 / 100];
+            steadyWindows = Math.abs(p99 - previousP99) <= previousP99 * STEADY_TOLERANCE ? steadyWindows + 1 : 0;
+            previousP99 = p99;
+        }
+        System.out.printf("Steady p99 of %d us after %d decisions%n", previousP99 / 1_000, bookingId - 1);
+        Runtime.getRuntime().halt(steadyWindows < STEADY_WINDOWS ? 1 : 0);
+    }
+
+    private static void decide(ShipComponentLogic shipComponentLogic, long bookingId, Long shipId) {
+        try {
+            shipComponentLogic.confirmBooking(new BookingRequestedEvent(bookingId, 7L, shipId, 1));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.devonfw.shipkafka.bookingcomponent.api;
+
+import com.devonfw.shipkafka.BenchmarkContext;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.BookingRepository;
+import com.devonfw.shipkafka.common.api.NdjsonStreamer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes all bookings as JSON, once loaded as a whole list like GET /bookings and once streamed like GET
+ * /bookings/stream. Run it with {@code -prof gc}; the peak heap of each trial is printed on tear down.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class BookingStreamingBenchmark {
+
+    @Param({"1000000"})
+    private int bookingCount;
+
+    private ConfigurableApplicationContext context;
+
+    private BookingRepository bookingRepository;
+
+    private NdjsonStreamer ndjsonStreamer;
+
+    private ObjectMapper objectMapper;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start();
+        bookingRepository = context.getBean(BookingRepository.class);
+        ndjsonStreamer = context.getBean(NdjsonStreamer.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= bookingCount; id++) {
+            rows.add(new Object[]{id, id % 16, now, now});
+            if (rows.size() == 10_000) {
+                insert(rows);
+                rows.clear();
+            }
+        }
+        insert(rows);
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.printf("%nPeak heap: %d MB%n", peak / (1024 * 1024));
+        context.close();
+    }
+
+    @Benchmark
+    public void findAll() {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try {
+                objectMapper.writeValue(OutputStream.nullOutputStream(), bookingRepository.findAll());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Benchmark
+    public void stream() throws Exception {
+        ndjsonStreamer.stream(bookingRepository::streamAll).getBody().writeTo(OutputStream.nullOutputStream());
+    }
+
+    private void insert(List<Object[]> rows) {
+        context.getBean(JdbcTemplate.class).batchUpdate("INSERT INTO booking (id, ship_id, container_count, booking_status, " +
+                "created_on, last_updated_on, version) VALUES (?, ?, 1, 0, ?, ?, 0)", rows);
+    }
+}
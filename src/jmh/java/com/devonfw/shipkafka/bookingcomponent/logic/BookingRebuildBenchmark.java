@@ -0,0 +1,96 @@
+package com.devonfw.shipkafka.bookingcomponent.logic;
+
+import com.devonfw.shipkafka.BenchmarkContext;
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.BookingEvent;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.BookingEventRepository;
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds the bookings of a log of {@code eventCount} events by {@link BookingEventStore#rebuild()}, including the
+ * database reads that {@link BookingReplayBenchmark} leaves out: from the whole log, or from a snapshot of the first
+ * nine tenths written by {@link BookingEventStore#snapshot()} and the remaining tail. The events are stored in the
+ * in-memory H2 database of the "testing" profile, so the reads have no network round trips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class BookingRebuildBenchmark {
+
+    private static final int INSERT_CHUNK_SIZE = 10_000;
+
+    @Param({"10000000"})
+    private int eventCount;
+
+    @Param({"true", "false"})
+    private boolean snapshot;
+
+    private ConfigurableApplicationContext context;
+
+    private BookingEventStore bookingEventStore;
+
+    @Setup(Level.Trial)
+    public void createLog() throws InterruptedException {
+        context = BenchmarkContext.start("shipkafka.booking-events.snapshot-settle-ms=0");
+        bookingEventStore = context.getBean(BookingEventStore.class);
+        BookingEventRepository bookingEventRepository = context.getBean(BookingEventRepository.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        int covered = eventCount / 10 * 9;
+        long id = 1;
+        int appended = 0;
+        while (appended < eventCount) {
+            List<BookingEvent> events = new ArrayList<>(INSERT_CHUNK_SIZE + 2);
+            for (; events.size() < INSERT_CHUNK_SIZE && appended + events.size() < eventCount; id++) {
+                addEvents(events, id);
+            }
+            transactionTemplate.executeWithoutResult(status -> bookingEventRepository.saveAll(events));
+            appended += events.size();
+
+            if (snapshot && appended >= covered && appended - events.size() < covered) {
+                // the snapshot covers the events that occurred before now
+                Thread.sleep(2);
+                bookingEventStore.snapshot();
+                Thread.sleep(2);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<Long, Booking> rebuild() {
+        return bookingEventStore.rebuild();
+    }
+
+    /**
+     * Most bookings get three events: requested, confirmed and canceled.
+     */
+    private static void addEvents(List<BookingEvent> events, long id) {
+        Booking booking = new Booking(id % 64, 1);
+        booking.setId(id);
+        booking.setCustomerId(id % 1024);
+        events.add(new BookingEvent(booking));
+        booking.updateBookingStatus(id % 4 == 0 ? BookingStatus.CANCELED : BookingStatus.CONFIRMED);
+        events.add(new BookingEvent(booking));
+        if (id % 4 != 0) {
+            booking.updateBookingStatus(BookingStatus.CANCELED);
+            events.add(new BookingEvent(booking));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.devonfw.shipkafka.bookingcomponent.logic;
+
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.BookingEvent;
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds the bookings of a log of {@code eventCount} events, once from the whole log and once from a snapshot of
+ * the first nine tenths and the remaining tail, like {@link BookingEventStore#rebuild()} without the database reads,
+ * which {@link BookingRebuildBenchmark} includes. Most bookings get three events: requested, confirmed and canceled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class BookingReplayBenchmark {
+
+    private static final int CHUNK_SIZE = 10_000;
+
+    @Param({"10000000"})
+    private int eventCount;
+
+    private List<BookingEvent> events;
+
+    private List<BookingEvent> tail;
+
+    private List<byte[]> snapshot;
+
+    private BookingReplay fullReplay;
+
+    private BookingReplay replay;
+
+    @Setup(Level.Trial)
+    public void createLog() {
+        events = new ArrayList<>(eventCount);
+        for (long id = 1; events.size() < eventCount; id++) {
+            Booking booking = new Booking(id % 64, 1);
+            booking.setId(id);
+            booking.setCustomerId(id % 1024);
+            events.add(new BookingEvent(booking));
+            booking.updateBookingStatus(id % 4 == 0 ? BookingStatus.CANCELED : BookingStatus.CONFIRMED);
+            events.add(new BookingEvent(booking));
+            if (id % 4 != 0) {
+                booking.updateBookingStatus(BookingStatus.CANCELED);
+                events.add(new BookingEvent(booking));
+            }
+        }
+
+        int covered = eventCount / 10 * 9;
+        BookingReplay snapshotReplay = new BookingReplay();
+        events.subList(0, covered).forEach(snapshotReplay::apply);
+        snapshot = snapshotReplay.encode(CHUNK_SIZE);
+        tail = events.subList(covered, events.size());
+
+        fullReplay = new BookingReplay();
+        events.forEach(fullReplay::apply);
+    }
+
+    @Setup(Level.Iteration)
+    public void createReplay() {
+        replay = new BookingReplay();
+    }
+
+    @Benchmark
+    public Map<Long, Booking> replayLog() {
+        events.forEach(replay::apply);
+        return replay.toBookings();
+    }
+
+    @Benchmark
+    public Map<Long, Booking> replaySnapshotAndTail() {
+        snapshot.forEach(replay::decode);
+        tail.forEach(replay::apply);
+        return replay.toBookings();
+    }
+
+    @Benchmark
+    public List<byte[]> encodeSnapshot() {
+        return fullReplay.encode(CHUNK_SIZE);
+    }
+}
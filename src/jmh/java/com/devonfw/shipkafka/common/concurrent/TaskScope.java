@@ -0,0 +1,72 @@
+package com.devonfw.shipkafka.common.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runs subtasks on an executor and joins them as one unit, in the manner of the structured concurrency of later Java
+ * versions: {@link #join(Duration)} waits for all subtasks and fails with the first failure, cancelling the others.
+ * Closing the scope cancels the subtasks that are still running, so none outlives the block that forked it.
+ * <pre>
+ * try (TaskScope&lt;Booking&gt; scope = new TaskScope&lt;&gt;(executor)) {
+ *     bookings.forEach(booking -&gt; scope.fork(() -&gt; process(booking)));
+ *     List&lt;Booking&gt; processed = scope.join(Duration.ofSeconds(10));
+ * }
+ * </pre>
+ */
+public class TaskScope<T> implements AutoCloseable {
+
+    private final CompletionService<T> completionService;
+
+    private final List<Future<T>> futures = new ArrayList<>();
+
+    public TaskScope(Executor executor) {
+        this.completionService = new ExecutorCompletionService<>(executor);
+    }
+
+    public Future<T> fork(Callable<T> task) {
+        Future<T> future = completionService.submit(task);
+        futures.add(future);
+        return future;
+    }
+
+    /**
+     * Waits for all subtasks forked so far.
+     *
+     * @return their results in the order they were forked
+     * @throws ExecutionException with the first failure of a subtask, after cancelling the others
+     * @throws TimeoutException   if they did not complete in time, after cancelling them
+     */
+    public List<T> join(Duration timeout) throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            for (int completed = 0; completed < futures.size(); completed++) {
+                Future<T> future = completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (future == null) {
+                    throw new TimeoutException(String.format("%d of %d tasks did not complete within %s", futures.size() - completed, futures.size(), timeout));
+                }
+                future.get();
+            }
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            cancel();
+            throw e;
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private void cancel() {
+        futures.forEach(future -> future.cancel(true));
+    }
+
+    @Override
+    public void close() {
+        cancel();
+    }
+}
@@ -0,0 +1,39 @@
+package com.devonfw.shipkafka.common.domain.datatypes;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookingStatusBenchmark {
+
+    private BookingStatus requested = BookingStatus.REQUESTED;
+
+    private BookingStatus confirmed = BookingStatus.CONFIRMED;
+
+    private BookingStatus canceled = BookingStatus.CANCELED;
+
+    @Benchmark
+    public BookingStatus legalTransition() {
+        return confirmed.transition(canceled);
+    }
+
+    @Benchmark
+    public BookingStatus legalTransitionFromFirstState() {
+        return requested.transition(canceled);
+    }
+
+    /**
+     * Illegal transitions throw, which the booking view and the ship decisions rely on for ordering.
+     */
+    @Benchmark
+    public Object illegalTransition() {
+        try {
+            return canceled.transition(requested);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+}
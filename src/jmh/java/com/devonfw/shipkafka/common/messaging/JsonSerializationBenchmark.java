@@ -0,0 +1,73 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.common.events.ShipDamagedEvent;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * (De)serializes the messages with the {@link JsonSerializer} and {@link JsonDeserializer} configured in
+ * application.yml, including the type headers. The deserializer removes the type headers it read, so every record gets
+ * a copy of them, like a consumer creates new headers for every record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JsonSerializationBenchmark {
+
+    private JsonSerializer<Object> serializer;
+
+    private JsonDeserializer<Object> deserializer;
+
+    private BookingRequestedEvent booking;
+
+    private ShipDamagedEvent shipDamagedEvent;
+
+    private RecordHeaders bookingHeaders;
+
+    private byte[] bookingBytes;
+
+    private RecordHeaders shipDamagedHeaders;
+
+    private byte[] shipDamagedBytes;
+
+    @Setup
+    public void setUp() {
+        serializer = new JsonSerializer<>();
+        deserializer = new JsonDeserializer<>();
+        deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+
+        booking = new BookingRequestedEvent(4711L, 7L, 42L, 3);
+        shipDamagedEvent = new ShipDamagedEvent(42L);
+
+        bookingHeaders = new RecordHeaders();
+        bookingBytes = serializer.serialize("bookings", bookingHeaders, booking);
+        shipDamagedHeaders = new RecordHeaders();
+        shipDamagedBytes = serializer.serialize("ship-damaged", shipDamagedHeaders, shipDamagedEvent);
+    }
+
+    @Benchmark
+    public byte[] serializeBooking() {
+        return serializer.serialize("bookings", new RecordHeaders(), booking);
+    }
+
+    @Benchmark
+    public Object deserializeBooking() {
+        return deserializer.deserialize("bookings", new RecordHeaders(bookingHeaders.toArray()), bookingBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeShipDamagedEvent() {
+        return serializer.serialize("ship-damaged", new RecordHeaders(), shipDamagedEvent);
+    }
+
+    @Benchmark
+    public Object deserializeShipDamagedEvent() {
+        return deserializer.deserialize("ship-damaged", new RecordHeaders(shipDamagedHeaders.toArray()), shipDamagedBytes);
+    }
+}
@@ -0,0 +1,61 @@
+package com.devonfw.shipkafka.common.messaging.codec;
+
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.events.BookingDecidedEvent;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON and the compact format of a booking decision through {@link EventSerializer} and {@link EventDeserializer}.
+ * The record size of the selected format is printed on setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventSerializationBenchmark {
+
+    @Param({"json", "compact"})
+    private String format;
+
+    private EventSerializer<Object> serializer;
+
+    private EventDeserializer<Object> deserializer;
+
+    private BookingDecidedEvent booking;
+
+    private RecordHeaders headers;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        serializer = new EventSerializer<>();
+        serializer.configure(Map.of(EventSerializer.COMPACT_TOPICS, "compact".equals(format) ? "ship-bookings" : ""), false);
+        deserializer = new EventDeserializer<>();
+        deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+
+        booking = new BookingDecidedEvent(4711L, 7L, 42L, 3, BookingStatus.CONFIRMED);
+
+        headers = new RecordHeaders();
+        bytes = serializer.serialize("ship-bookings", headers, booking);
+        int headerBytes = 0;
+        for (var header : headers) {
+            headerBytes += header.key().length() + header.value().length;
+        }
+        System.out.printf("%n%s: %d bytes value, %d bytes headers%n", format, bytes.length, headerBytes);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize("ship-bookings", new RecordHeaders(), booking);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return deserializer.deserialize("ship-bookings", new RecordHeaders(headers.toArray()), bytes);
+    }
+}
@@ -0,0 +1,141 @@
+package com.devonfw.shipkafka.shipcomponent.api;
+
+import com.devonfw.shipkafka.Application;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.LongDeserializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Decides {@link #RECORD_COUNT} booking requests with the exactly-once listener
+ * {@link ShipRestController#onBookingEventsTransactional} against an embedded broker, with one Kafka and one JPA
+ * transaction per {@code batchSize} records. The requests are produced while the listener is paused, so each invocation
+ * measures the time until all decisions are committed to "ship-bookings"; the reported time per operation is the
+ * inverse of the throughput in records per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@OperationsPerInvocation(TransactionalBookingsBenchmark.RECORD_COUNT)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class TransactionalBookingsBenchmark {
+
+    static final int RECORD_COUNT = 10_000;
+
+    private static final String LISTENER_ID = "bookings-transactional";
+
+    @Param({"1", "10", "100"})
+    private int batchSize;
+
+    private EmbeddedKafkaBroker broker;
+
+    private ConfigurableApplicationContext context;
+
+    private MessageListenerContainer listener;
+
+    private KafkaTemplate<Object, Object> template;
+
+    private KafkaConsumer<Long, byte[]> decisions;
+
+    private List<Long> shipIds;
+
+    private long nextBookingId = 1;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void startContext() {
+        broker = new EmbeddedKafkaBroker(1, false, 3, "bookings", "ship-bookings")
+                .brokerProperties(Map.of(
+                        "transaction.state.log.replication.factor", "1",
+                        "transaction.state.log.min.isr", "1",
+                        "group.initial.rebalance.delay.ms", "0"));
+        broker.afterPropertiesSet();
+
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("testing")
+                .run("--logging.level.root=WARN",
+                        "--logging.level.org.apache.kafka=ERROR",
+                        "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                        "--shipkafka.outbox.poll-interval-ms=3600000",
+                        "--shipkafka.bookings.transactional.enabled=true",
+                        "--shipkafka.bookings.transactional.batch-size=" + batchSize);
+
+        KafkaListenerEndpointRegistry registry = context.getBean(KafkaListenerEndpointRegistry.class);
+        registry.getListenerContainers().stream()
+                .filter(container -> !LISTENER_ID.equals(container.getListenerId()))
+                .forEach(MessageListenerContainer::stop);
+        listener = registry.getListenerContainer(LISTENER_ID);
+        template = context.getBean("kafkaTemplate", KafkaTemplate.class);
+
+        ShipRepository shipRepository = context.getBean(ShipRepository.class);
+        shipIds = IntStream.range(0, 3)
+                .mapToObj(i -> shipRepository.save(new Ship("Mein Schiff " + i, Integer.MAX_VALUE)).getId())
+                .collect(Collectors.toList());
+
+        decisions = new KafkaConsumer<>(Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed"),
+                new LongDeserializer(), new ByteArrayDeserializer());
+        List<TopicPartition> partitions = new ArrayList<>();
+        for (int partition = 0; partition < 3; partition++) {
+            partitions.add(new TopicPartition("ship-bookings", partition));
+        }
+        decisions.assign(partitions);
+        decisions.seekToEnd(partitions);
+    }
+
+    /**
+     * Every request can only be decided once, so each invocation produces new ones.
+     */
+    @Setup(Level.Invocation)
+    public void produceRequests() throws InterruptedException {
+        listener.pause();
+        while (listener.isRunning() && !listener.isContainerPaused()) {
+            Thread.sleep(10);
+        }
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            long bookingId = nextBookingId++;
+            template.send("bookings", bookingId, new BookingRequestedEvent(bookingId, 7L, shipIds.get(i % shipIds.size()), 1));
+        }
+        template.flush();
+    }
+
+    @Benchmark
+    public int confirmTransactional() {
+        listener.resume();
+        int decided = 0;
+        while (decided < RECORD_COUNT) {
+            decided += decisions.poll(Duration.ofMillis(100)).count();
+        }
+        return decided;
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        decisions.close();
+        context.close();
+        broker.destroy();
+    }
+}
@@ -0,0 +1,86 @@
+package com.devonfw.shipkafka.shipcomponent.logic;
+
+import com.devonfw.shipkafka.BenchmarkContext;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides a poll of bookings with {@link ShipComponentLogic#confirmBooking(BookingRequestedEvent)} per record and with
+ * {@link ShipComponentLogic#confirmBookings(List)} as one batch, each in transactions against H2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ConfirmBookingBenchmark {
+
+    private static final int POLL_SIZE = 500;
+
+    @Param({"1", "16"})
+    private int shipCount;
+
+    private ConfigurableApplicationContext context;
+
+    private ShipComponentLogic shipComponentLogic;
+
+    private ShipCapacityLedger capacityLedger;
+
+    private List<Long> shipIds;
+
+    private List<BookingRequestedEvent> poll;
+
+    private long nextBookingId;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start();
+        shipComponentLogic = context.getBean(ShipComponentLogic.class);
+        capacityLedger = context.getBean(ShipCapacityLedger.class);
+
+        ShipRepository shipRepository = context.getBean(ShipRepository.class);
+        shipIds = new ArrayList<>();
+        for (int i = 0; i < shipCount; i++) {
+            shipIds.add(shipRepository.save(new Ship("Mein Schiff " + i, Integer.MAX_VALUE)).getId());
+        }
+    }
+
+    /**
+     * Requests are only decided once and decisions reserve capacity, so every invocation gets new requests and full
+     * ships. A poll takes well over a millisecond, which keeps the overhead of the per-invocation setup negligible.
+     */
+    @Setup(Level.Invocation)
+    public void createPoll() throws Exception {
+        poll = new ArrayList<>(POLL_SIZE);
+        for (int i = 0; i < POLL_SIZE; i++) {
+            poll.add(new BookingRequestedEvent(nextBookingId++, 7L, shipIds.get(i % shipIds.size()), 1));
+        }
+        for (Long shipId : shipIds) {
+            capacityLedger.setAvailableContainers(shipId, Integer.MAX_VALUE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POLL_SIZE)
+    public void perRecord() throws Exception {
+        for (BookingRequestedEvent booking : poll) {
+            shipComponentLogic.confirmBooking(booking);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POLL_SIZE)
+    public Object batch() {
+        return shipComponentLogic.confirmBookings(poll);
+    }
+}
@@ -9,25 +9,23 @@ import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
-import org.springframework.boot.actuate.health.Health;
-import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 @SpringBootApplication
-public class Application implements HealthIndicator {
+@EnableScheduling
+public class Application {
 
 	public static void main(String[] args) {
 		SpringApplication.run(Application.class, args);
 	}
-
-	@Override
-	public Health health() {
-		return Health.up().build();
-	}
 }
 
 
@@ -46,30 +44,39 @@ class PopulateTestDataRunner implements CommandLineRunner {
 		this.shipRepository = shipRepository;
 	}
 
+	/**
+	 * Writes the sample data in one transaction, so the inserts are sent in JDBC batches.
+	 */
 	@Override
+	@Transactional
 	public void run(String... args) {
 
-		shipRepository.save(new Ship("Ship Aachen", 2, false));
 		Ship shipBerlin = new Ship("Ship Berlin", 5, false);
-		shipRepository.save(shipBerlin);
 		Ship shipHamburg = new Ship("Ship Hamburg", 8, true);
-		shipRepository.save(shipHamburg);
-		Ship shipFrankfurt = new Ship("Ship Frankfurt", 20, false);
-		shipRepository.save(shipFrankfurt);
+		shipRepository.saveAll(List.of(
+				new Ship("Ship Aachen", 2, false),
+				shipBerlin,
+				shipHamburg,
+				new Ship("Ship Frankfurt", 20, false)));
 
+		List<Customer> customers = new ArrayList<>();
 		Arrays.asList(
 						"Miller,Doe,Smith".split(","))
 				.forEach(
-						name -> customerRepository.save(new Customer("Jane", name))
+						name -> customers.add(new Customer("Jane", name))
 				);
 
 		Customer customer = new Customer("Max", "Muster");
+		customers.add(customer);
+		// the customer needs its id before bookings are added, which take it as their customer id
+		customerRepository.saveAll(customers);
+
 		Booking booking = new Booking(shipBerlin.getId(), 3);
 		booking.updateBookingStatus(BookingStatus.CANCELED);
-		customer.getBookings().add(booking);
+		customer.addBooking(booking);
 		booking = new Booking(shipHamburg.getId(), 5);
 		booking.updateBookingStatus(BookingStatus.CONFIRMED);
-		customer.getBookings().add(booking);
+		customer.addBooking(booking);
 
 		customerRepository.save(customer);
 	}
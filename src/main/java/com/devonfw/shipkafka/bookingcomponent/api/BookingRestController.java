@@ -1,14 +1,30 @@
 package com.devonfw.shipkafka.bookingcomponent.api;
 
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.BookingEvent;
 import com.devonfw.shipkafka.common.domain.entities.Booking;
 import com.devonfw.shipkafka.bookingcomponent.domain.repositories.BookingRepository;
 import com.devonfw.shipkafka.common.exceptions.BookingAlreadyConfirmedException;
 import com.devonfw.shipkafka.bookingcomponent.exceptions.BookingNotFoundException;
 import com.devonfw.shipkafka.bookingcomponent.logic.BookingComponentBusinessLogic;
+import com.devonfw.shipkafka.bookingcomponent.logic.BookingEventStore;
+import com.devonfw.shipkafka.bookingcomponent.logic.BookingStatusNotifier;
+import com.devonfw.shipkafka.bookingcomponent.view.BookingView;
+import com.devonfw.shipkafka.common.api.KeysetPageRequest;
+import com.devonfw.shipkafka.common.api.NdjsonStreamer;
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping(path = "/bookings")
@@ -18,23 +34,150 @@ public class BookingRestController {
 
     private final BookingRepository bookingRepository;
 
+    private final ObjectProvider<BookingView> bookingView;
+
+    private final NdjsonStreamer ndjsonStreamer;
+
+    private final BookingStatusNotifier bookingStatusNotifier;
+
+    private final BookingEventStore bookingEventStore;
+
+    private final long maxWaitMillis;
+
     @Autowired
     public BookingRestController(BookingComponentBusinessLogic bookingComponentBusinessLogic,
-                                 BookingRepository bookingRepository) {
+                                 BookingRepository bookingRepository,
+                                 ObjectProvider<BookingView> bookingView,
+                                 NdjsonStreamer ndjsonStreamer,
+                                 BookingStatusNotifier bookingStatusNotifier,
+                                 BookingEventStore bookingEventStore,
+                                 @Value("${shipkafka.bookings.status.max-wait-ms:30000}") long maxWaitMillis) {
         this.bookingComponentBusinessLogic = bookingComponentBusinessLogic;
         this.bookingRepository = bookingRepository;
+        this.bookingView = bookingView;
+        this.ndjsonStreamer = ndjsonStreamer;
+        this.bookingStatusNotifier = bookingStatusNotifier;
+        this.bookingEventStore = bookingEventStore;
+        this.maxWaitMillis = maxWaitMillis;
     }
 
     @GetMapping(value = "/{id:\\d+}")
     public Booking getBooking(@PathVariable("id") Long bookingId) throws BookingNotFoundException {
+        BookingView view = bookingView.getIfAvailable();
+        if (view != null && view.isQueryable()) {
+            Optional<Booking> booking = view.getBooking(bookingId);
+            if (booking.isPresent()) {
+                return booking.get();
+            }
+        }
         return bookingRepository
                 .findById(bookingId)
                 .orElseThrow(() -> new BookingNotFoundException(bookingId));
     }
 
+    /**
+     * Returns the status transitions of the booking from the booking event log, oldest first. Bookings created before
+     * the log was introduced have no history.
+     */
+    @GetMapping(value = "/{id:\\d+}/history")
+    public List<BookingEvent> getBookingHistory(@PathVariable("id") Long bookingId) throws BookingNotFoundException {
+        List<BookingEvent> history = bookingEventStore.getHistory(bookingId);
+        if (history.isEmpty() && !bookingRepository.existsById(bookingId)) {
+            throw new BookingNotFoundException(bookingId);
+        }
+        return history;
+    }
+
     @GetMapping
     public List<Booking> getBookings() {
+        BookingView view = bookingView.getIfAvailable();
+        if (view != null && view.isQueryable()) {
+            Optional<List<Booking>> bookings = view.getBookings();
+            if (bookings.isPresent()) {
+                return bookings.get();
+            }
+        }
         return bookingRepository.findAll();
     }
 
+    /**
+     * Returns up to {@code size} bookings with an id greater than {@code after}, ordered by id.
+     */
+    @GetMapping(params = "size")
+    public List<Booking> getBookings(@RequestParam(value = "after", defaultValue = "0") Long after, @RequestParam("size") int size) {
+        return bookingRepository.findByIdGreaterThanOrderByIdAsc(after, KeysetPageRequest.of(size));
+    }
+
+    /**
+     * Streams all bookings as newline delimited JSON without loading them into memory at once.
+     */
+    @GetMapping(value = "/stream")
+    public ResponseEntity<StreamingResponseBody> streamBookings() {
+        return ndjsonStreamer.stream(bookingRepository::streamAll);
+    }
+
+    /**
+     * Long poll for the status of a booking: responds as soon as the status differs from {@code after}, or with the
+     * unchanged booking after {@code timeout} milliseconds, capped by {@code shipkafka.bookings.status.max-wait-ms}.
+     */
+    @GetMapping(value = "/{id:\\d+}/status")
+    public DeferredResult<Booking> awaitBookingStatus(@PathVariable("id") Long bookingId,
+                                                      @RequestParam(value = "after", defaultValue = "REQUESTED") BookingStatus after,
+                                                      @RequestParam(value = "timeout", required = false) Long timeout) throws BookingNotFoundException {
+        DeferredResult<Booking> result = new DeferredResult<>(waitMillis(timeout));
+        Runnable unwatch = bookingStatusNotifier.watch(bookingId, booking -> {
+            if (booking.getBookingStatus() != after) {
+                result.setResult(booking);
+            }
+        });
+        result.onCompletion(unwatch);
+        result.onTimeout(() -> result.setResult(bookingRepository.findById(bookingId).orElse(null)));
+
+        Booking booking = findBooking(bookingId, unwatch);
+        if (booking.getBookingStatus() != after) {
+            result.setResult(booking);
+        }
+        return result;
+    }
+
+    /**
+     * Streams the booking as server-sent event "booking" now and on every status change, until it is canceled or the
+     * stream has been open for {@code timeout} milliseconds, capped by {@code shipkafka.bookings.status.max-wait-ms}.
+     */
+    @GetMapping(value = "/{id:\\d+}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBookingStatus(@PathVariable("id") Long bookingId,
+                                          @RequestParam(value = "timeout", required = false) Long timeout) throws BookingNotFoundException {
+        SseEmitter emitter = new SseEmitter(waitMillis(timeout));
+        Runnable unwatch = bookingStatusNotifier.watch(bookingId, booking -> sendBooking(emitter, booking));
+        emitter.onCompletion(unwatch);
+        emitter.onTimeout(emitter::complete);
+
+        sendBooking(emitter, findBooking(bookingId, unwatch));
+        return emitter;
+    }
+
+    private long waitMillis(Long timeout) {
+        return timeout == null ? maxWaitMillis : Math.min(Math.max(timeout, 1), maxWaitMillis);
+    }
+
+    private Booking findBooking(Long bookingId, Runnable unwatch) throws BookingNotFoundException {
+        Optional<Booking> booking = bookingRepository.findById(bookingId);
+        if (booking.isEmpty()) {
+            unwatch.run();
+            throw new BookingNotFoundException(bookingId);
+        }
+        return booking.get();
+    }
+
+    private static void sendBooking(SseEmitter emitter, Booking booking) {
+        try {
+            emitter.send(SseEmitter.event().name("booking").data(booking, MediaType.APPLICATION_JSON));
+            if (booking.getBookingStatus() == BookingStatus.CANCELED) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client is gone or the stream already completed
+            emitter.completeWithError(e);
+        }
+    }
 }
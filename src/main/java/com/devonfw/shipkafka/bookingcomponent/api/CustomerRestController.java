@@ -4,18 +4,39 @@ import com.devonfw.shipkafka.common.domain.entities.Booking;
 import com.devonfw.shipkafka.bookingcomponent.domain.entities.Customer;
 import com.devonfw.shipkafka.bookingcomponent.domain.repositories.CustomerRepository;
 import com.devonfw.shipkafka.bookingcomponent.dtos.BookingCreateDTO;
+import com.devonfw.shipkafka.bookingcomponent.dtos.BookingResultDTO;
 import com.devonfw.shipkafka.bookingcomponent.dtos.CustomerCreateDTO;
+import com.devonfw.shipkafka.bookingcomponent.dtos.CustomerSummaryDTO;
 import com.devonfw.shipkafka.bookingcomponent.dtos.CustomerUpdateDTO;
 import com.devonfw.shipkafka.bookingcomponent.dtos.IdDTO;
 import com.devonfw.shipkafka.bookingcomponent.exceptions.CustomerNotFoundException;
 import com.devonfw.shipkafka.bookingcomponent.logic.BookingComponentBusinessLogic;
+import com.devonfw.shipkafka.bookingcomponent.view.BookingView;
+import com.devonfw.shipkafka.common.api.KeysetPageRequest;
+import com.devonfw.shipkafka.common.api.NdjsonStreamer;
+import com.devonfw.shipkafka.common.config.CacheConfiguration;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping(path = "/customers")
@@ -25,28 +46,71 @@ public class CustomerRestController {
 
     private final CustomerRepository customerRepository;
 
+    private final ObjectProvider<BookingView> bookingView;
+
+    private final NdjsonStreamer ndjsonStreamer;
+
+    private final Validator validator;
+
+    private final int bulkMaxSize;
+
+    private final Cache customerCache;
+
     @Autowired
-    public CustomerRestController(BookingComponentBusinessLogic bookingComponentBusinessLogic, CustomerRepository customerRepository) {
+    public CustomerRestController(BookingComponentBusinessLogic bookingComponentBusinessLogic, CustomerRepository customerRepository,
+                                  ObjectProvider<BookingView> bookingView, NdjsonStreamer ndjsonStreamer, Validator validator,
+                                  @Value("${shipkafka.bookings.bulk.max-size:1000}") int bulkMaxSize, CacheManager cacheManager) {
         this.bookingComponentBusinessLogic = bookingComponentBusinessLogic;
         this.customerRepository = customerRepository;
+        this.bookingView = bookingView;
+        this.ndjsonStreamer = ndjsonStreamer;
+        this.validator = validator;
+        this.bulkMaxSize = bulkMaxSize;
+        this.customerCache = cacheManager.getCache(CacheConfiguration.CUSTOMERS);
     }
 
     @GetMapping
     public List<Customer> getCustomers() {
 
-        return customerRepository.findAll();
+        return customerRepository.findAllWithBookings();
+    }
+
+    @GetMapping(value = "/summaries")
+    public List<CustomerSummaryDTO> getCustomerSummaries() {
+
+        return customerRepository.findAllSummaries();
+    }
+
+    @GetMapping(params = "size")
+    public List<Customer> getCustomers(@RequestParam(value = "after", defaultValue = "0") Long after, @RequestParam("size") int size) {
+
+        List<Long> customerIds = customerRepository.findIdsByIdGreaterThan(after, KeysetPageRequest.of(size));
+        return customerIds.isEmpty() ? List.of() : customerRepository.findWithBookingsByIdIn(customerIds);
+    }
+
+    @GetMapping(value = "/stream")
+    public ResponseEntity<StreamingResponseBody> streamCustomers() {
+
+        return ndjsonStreamer.stream(customerRepository::streamAllWithBookings);
     }
 
     @GetMapping(value = "/{id:\\d+}")
     public Customer getCustomer(@PathVariable("id") Long customerId) throws CustomerNotFoundException {
 
         return customerRepository
-                .findById(customerId)
+                .findWithBookingsById(customerId)
                 .orElseThrow(() -> new CustomerNotFoundException(customerId));
     }
 
     @GetMapping(value = "/{id:\\d+}/bookings")
     public List<Booking> getBookingsOfCustomer(@PathVariable("id") Long customerId, @RequestParam(value = "onlyConfirmed", required = false, defaultValue = "false") Boolean onlyConfirmed) throws CustomerNotFoundException {
+        BookingView view = bookingView.getIfAvailable();
+        if (view != null && view.isQueryable()) {
+            Optional<List<Booking>> bookings = view.getBookingsOfCustomer(customerId, onlyConfirmed);
+            if (bookings.isPresent()) {
+                return bookings.get();
+            }
+        }
         return bookingComponentBusinessLogic.getBookings(customerId, onlyConfirmed);
     }
 
@@ -59,6 +123,7 @@ public class CustomerRestController {
                 .orElseThrow(() -> new CustomerNotFoundException(customerId));
 
         customerRepository.delete(customer);
+        customerCache.evict(customerId);
     }
 
     @PostMapping
@@ -91,4 +156,87 @@ public class CustomerRestController {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
+
+    /**
+     * Asynchronous alternative to {@link #addBooking(Long, BookingCreateDTO)}, for requests with a {@code Prefer} header
+     * that contains the preference {@code respond-async}, possibly among others, see {@link #prefersRespondAsync(List)}.
+     * The booking is stored on the task executor of Spring MVC instead of the servlet thread and answered with 202
+     * Accepted, as the ship component has not decided it yet. The {@code Location} header points to the long poll for
+     * its status, see {@link BookingRestController#awaitBookingStatus}; its server-sent events are at
+     * {@code /bookings/{id}/events}. Requests with other preferences only are answered like without the header.
+     */
+    @PostMapping(value = "/{id:\\d+}/bookings", headers = "Prefer")
+    public Callable<ResponseEntity<?>> addBookingAsync(@PathVariable("id") Long customerId, @Valid @RequestBody BookingCreateDTO bookingCreateDTO,
+                                                       @RequestHeader("Prefer") List<String> preferences) {
+        if (!prefersRespondAsync(preferences)) {
+            return () -> addBooking(customerId, bookingCreateDTO);
+        }
+        ServletUriComponentsBuilder baseUri = ServletUriComponentsBuilder.fromCurrentContextPath();
+        return () -> {
+            try {
+                Booking booking = bookingComponentBusinessLogic.addBooking(customerId, bookingCreateDTO);
+                URI statusUri = baseUri.path("/bookings/{id}/status").buildAndExpand(booking.getId()).toUri();
+                return ResponseEntity.accepted()
+                        .location(statusUri)
+                        .header("Preference-Applied", "respond-async")
+                        .body(new IdDTO(booking.getId()));
+            } catch (CustomerNotFoundException ex) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+        };
+    }
+
+    /**
+     * Whether one of the preferences is {@code respond-async}. Spring splits comma-separated header values into single
+     * preferences; their names are case-insensitive and may be followed by a value and parameters (RFC 7240).
+     */
+    static boolean prefersRespondAsync(List<String> preferences) {
+        return preferences.stream()
+                .map(preference -> preference.split("[;=]", 2)[0].trim())
+                .anyMatch("respond-async"::equalsIgnoreCase);
+    }
+
+    /**
+     * Adds a list of bookings to the customer, e.g. of a manifest, with one request and one transaction. Each booking is
+     * validated on its own: the valid ones are stored, and the response lists the id or the validation error of every
+     * booking in the order of the request.
+     */
+    @PostMapping(value = "/{id:\\d+}/bookings/bulk")
+    public ResponseEntity<?> addBookings(@PathVariable("id") Long customerId, @RequestBody List<BookingCreateDTO> bookingCreateDTOs) {
+        if (bookingCreateDTOs.size() > bulkMaxSize) {
+            return ResponseEntity.badRequest().body(String.format("At most %d bookings per request", bulkMaxSize));
+        }
+
+        List<BookingResultDTO> results = new ArrayList<>(bookingCreateDTOs.size());
+        List<BookingCreateDTO> valid = new ArrayList<>(bookingCreateDTOs.size());
+        for (BookingCreateDTO bookingCreateDTO : bookingCreateDTOs) {
+            String error = validate(bookingCreateDTO);
+            if (error == null) {
+                valid.add(bookingCreateDTO);
+            }
+            results.add(error == null ? null : BookingResultDTO.rejected(error));
+        }
+
+        try {
+            Iterator<Booking> bookings = bookingComponentBusinessLogic.addBookings(customerId, valid).iterator();
+            results.replaceAll(result -> result == null ? BookingResultDTO.created(bookings.next().getId()) : result);
+            return new ResponseEntity<>(results, valid.isEmpty() ? HttpStatus.OK : HttpStatus.CREATED);
+        } catch (CustomerNotFoundException ex) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    private String validate(BookingCreateDTO bookingCreateDTO) {
+        if (bookingCreateDTO == null) {
+            return "booking must not be null";
+        }
+        Set<ConstraintViolation<BookingCreateDTO>> violations = validator.validate(bookingCreateDTO);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
 }
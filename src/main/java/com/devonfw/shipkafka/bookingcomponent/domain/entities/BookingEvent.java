@@ -0,0 +1,58 @@
+package com.devonfw.shipkafka.bookingcomponent.domain.entities;
+
+import com.devonfw.shipkafka.common.domain.PooledLoSequenceGenerator;
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * State of a booking after one of its status transitions, appended to the booking event log in the transaction that
+ * changed the booking, see {@link com.devonfw.shipkafka.bookingcomponent.logic.BookingEventStore}. Events are never
+ * updated or deleted.
+ */
+@Entity
+@Immutable
+@Getter
+@ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = {@Index(name = "idx_booking_event_booking_id", columnList = "bookingId"),
+        @Index(name = "idx_booking_event_occurred_on", columnList = "occurredOn")})
+public class BookingEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_event_seq")
+    @GenericGenerator(name = "booking_event_seq", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "booking_event_seq"))
+    private Long id;
+
+    private Long bookingId;
+
+    private Long customerId;
+
+    private Long shipId;
+
+    private int containerCount;
+
+    private BookingStatus bookingStatus;
+
+    private Date occurredOn;
+
+    public BookingEvent(Booking booking) {
+        this.bookingId = booking.getId();
+        this.customerId = booking.getCustomerId();
+        this.shipId = booking.getShipId();
+        this.containerCount = booking.getContainerCount();
+        this.bookingStatus = booking.getBookingStatus();
+        this.occurredOn = new Date();
+    }
+}
@@ -0,0 +1,49 @@
+package com.devonfw.shipkafka.bookingcomponent.domain.entities;
+
+import com.devonfw.shipkafka.common.domain.PooledLoSequenceGenerator;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * One chunk of a snapshot of all bookings, folded from the booking events that occurred before
+ * {@link #getCoveredUntil()}. All chunks of a snapshot share that date and are written in one transaction, see
+ * {@link com.devonfw.shipkafka.bookingcomponent.logic.BookingEventStore}.
+ */
+@Entity
+@Immutable
+@Getter
+@ToString(exclude = "payload")
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = @Index(name = "idx_booking_snapshot_covered_until", columnList = "coveredUntil"))
+public class BookingSnapshot {
+
+    private final Date createdOn = new Date();
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_snapshot_seq")
+    @GenericGenerator(name = "booking_snapshot_seq", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "booking_snapshot_seq"))
+    private Long id;
+
+    private Date coveredUntil;
+
+    private int bookingCount;
+
+    @Lob
+    private byte[] payload;
+
+    public BookingSnapshot(Date coveredUntil, int bookingCount, byte[] payload) {
+        this.coveredUntil = coveredUntil;
+        this.bookingCount = bookingCount;
+        this.payload = payload;
+    }
+}
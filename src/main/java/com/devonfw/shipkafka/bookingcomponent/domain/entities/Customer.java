@@ -1,7 +1,12 @@
 package com.devonfw.shipkafka.bookingcomponent.domain.entities;
 import com.devonfw.shipkafka.bookingcomponent.dtos.CustomerCreateDTO;
+import com.devonfw.shipkafka.common.domain.PooledLoSequenceGenerator;
 import com.devonfw.shipkafka.common.domain.entities.Booking;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -10,19 +15,27 @@ import java.util.List;
 @Entity
 @Getter
 @Setter
-@ToString
+@ToString(exclude = "bookings")
 @NoArgsConstructor
 public class Customer {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
+    @GenericGenerator(name = "customer_seq", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "customer_seq"))
     private Long id;
 
     private String firstName;
 
     private String lastName;
 
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    /**
+     * Owned by {@link Booking#getCustomerId()}, so new bookings are written without loading this collection. Fetch it
+     * with an entity graph where the bookings are needed.
+     */
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id", insertable = false, updatable = false)
+    @BatchSize(size = 100)
     @Setter(AccessLevel.NONE)
     private List<Booking> bookings = new ArrayList<>();
 
@@ -39,6 +52,7 @@ public class Customer {
     }
 
     public void addBooking(Booking booking) {
+        booking.setCustomerId(this.id);
         this.bookings.add(booking);
     }
 }
@@ -0,0 +1,54 @@
+package com.devonfw.shipkafka.bookingcomponent.domain.entities;
+
+import com.devonfw.shipkafka.common.domain.PooledLoSequenceGenerator;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Message written in the same transaction as the state change it announces, and published to Kafka afterwards by the
+ * {@link com.devonfw.shipkafka.bookingcomponent.gateway.OutboxRelay}.
+ */
+@Entity
+@Getter
+@ToString(exclude = "payload")
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OutboxMessage {
+
+    private final Date createdOn = new Date();
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_message_seq")
+    @GenericGenerator(name = "outbox_message_seq", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "outbox_message_seq"))
+    private Long id;
+
+    private String topic;
+
+    private Long messageKey;
+
+    /**
+     * Ship id of {@link com.devonfw.shipkafka.common.messaging.ShipRoutable} messages, which are partitioned by it.
+     */
+    private Long shipId;
+
+    private String payloadType;
+
+    @Lob
+    private byte[] payload;
+
+    public OutboxMessage(String topic, Long messageKey, Long shipId, String payloadType, byte[] payload) {
+        this.topic = topic;
+        this.messageKey = messageKey;
+        this.shipId = shipId;
+        this.payloadType = payloadType;
+        this.payload = payload;
+    }
+}
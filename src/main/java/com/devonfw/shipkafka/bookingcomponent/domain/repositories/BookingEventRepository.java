@@ -0,0 +1,29 @@
+package com.devonfw.shipkafka.bookingcomponent.domain.repositories;
+
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.BookingEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface BookingEventRepository extends JpaRepository<BookingEvent, Long> {
+
+    List<BookingEvent> findByBookingIdOrderByIdAsc(Long bookingId);
+
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    @Query("SELECT e FROM BookingEvent e WHERE e.occurredOn >= :from AND e.occurredOn < :until ORDER BY e.id")
+    Stream<BookingEvent> streamOccurredBetween(@Param("from") Date from, @Param("until") Date until);
+
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    @Query("SELECT e FROM BookingEvent e WHERE e.occurredOn >= :from ORDER BY e.id")
+    Stream<BookingEvent> streamOccurredFrom(@Param("from") Date from);
+}
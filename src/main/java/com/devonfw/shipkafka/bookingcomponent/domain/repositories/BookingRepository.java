@@ -1,17 +1,61 @@
 package com.devonfw.shipkafka.bookingcomponent.domain.repositories;
 
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
 import com.devonfw.shipkafka.common.domain.entities.Booking;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    @Query("SELECT b FROM Booking b, Customer c WHERE c.id = :customerId AND b member of c.bookings " +
+    @Query("SELECT b FROM Booking b WHERE b.customerId = :customerId " +
             "AND b.bookingStatus = com.devonfw.shipkafka.common.domain.datatypes.BookingStatus.CONFIRMED")
-    List<Booking> findConfirmedBookings(Long customerId);
+    List<Booking> findConfirmedBookings(@Param("customerId") Long customerId);
 
     List<Booking> findBookingsByShipId(Long shipId);
+
+    List<Booking> findByCustomerIdOrderByIdAsc(Long customerId);
+
+    @Query("SELECT b.id FROM Booking b WHERE b.shipId = :shipId AND b.bookingStatus IN :statuses AND b.id > :afterId ORDER BY b.id")
+    List<Long> findIdsByShipIdAndBookingStatusIn(@Param("shipId") Long shipId, @Param("statuses") Collection<BookingStatus> statuses,
+                                                 @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Reads those of the given bookings that are in one of the given states and locks them until the end of the
+     * transaction, so no other transaction changes their state before this one does.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id IN :ids AND b.bookingStatus IN :statuses")
+    List<Booking> lockByIdInAndBookingStatusIn(@Param("ids") Collection<Long> ids, @Param("statuses") Collection<BookingStatus> statuses);
+
+    /**
+     * Moves the given bookings to {@code status} with a single statement, skipping all bookings whose current state
+     * does not allow that transition, and increments their version like an entity update would.
+     *
+     * @return the number of updated bookings
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.bookingStatus = :status, b.version = b.version + 1, b.lastUpdatedOn = :lastUpdatedOn " +
+            "WHERE b.id IN :ids AND b.bookingStatus IN :previousStatuses")
+    int updateBookingStatus(@Param("ids") Collection<Long> ids, @Param("status") BookingStatus status,
+                            @Param("previousStatuses") Collection<BookingStatus> previousStatuses, @Param("lastUpdatedOn") Date lastUpdatedOn);
+
+    List<Booking> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    @Query("SELECT b FROM Booking b ORDER BY b.id")
+    Stream<Booking> streamAll();
 }
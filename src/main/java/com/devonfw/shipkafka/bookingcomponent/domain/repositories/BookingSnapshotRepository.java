@@ -0,0 +1,35 @@
+package com.devonfw.shipkafka.bookingcomponent.domain.repositories;
+
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.BookingSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BookingSnapshotRepository extends JpaRepository<BookingSnapshot, Long> {
+
+    @Query("SELECT MAX(s.coveredUntil) FROM BookingSnapshot s")
+    Optional<Date> findLatestCoveredUntil();
+
+    List<BookingSnapshot> findByCoveredUntilOrderByIdAsc(Date coveredUntil);
+
+    /**
+     * Reads the chunks of the snapshot and locks them until the end of the transaction, so only one node at a time
+     * folds a new snapshot from them.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM BookingSnapshot s WHERE s.coveredUntil = :coveredUntil ORDER BY s.id")
+    List<BookingSnapshot> lockByCoveredUntil(@Param("coveredUntil") Date coveredUntil);
+
+    @Modifying
+    @Query("DELETE FROM BookingSnapshot s WHERE s.coveredUntil < :coveredUntil")
+    int deleteCoveredBefore(@Param("coveredUntil") Date coveredUntil);
+}
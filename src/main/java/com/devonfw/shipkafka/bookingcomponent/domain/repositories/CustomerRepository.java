@@ -1,9 +1,60 @@
 package com.devonfw.shipkafka.bookingcomponent.domain.repositories;
 
 import com.devonfw.shipkafka.bookingcomponent.domain.entities.Customer;
+import com.devonfw.shipkafka.bookingcomponent.dtos.CustomerSummaryDTO;
+import com.devonfw.shipkafka.common.config.CacheConfiguration;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+    /**
+     * Cached variant of {@link #existsById(Object)}. Only existing customers are cached, as ids are not reused.
+     */
+    @Cacheable(cacheNames = CacheConfiguration.CUSTOMERS, unless = "!#result")
+    boolean existsCachedById(Long id);
+
+    @EntityGraph(attributePaths = "bookings")
+    @Query("SELECT DISTINCT c FROM Customer c")
+    List<Customer> findAllWithBookings();
+
+    @EntityGraph(attributePaths = "bookings")
+    Optional<Customer> findWithBookingsById(Long id);
+
+    @Query("SELECT new com.devonfw.shipkafka.bookingcomponent.dtos.CustomerSummaryDTO(c.id, c.firstName, c.lastName, COUNT(b)) " +
+            "FROM Customer c LEFT JOIN c.bookings b GROUP BY c.id, c.firstName, c.lastName ORDER BY c.id")
+    List<CustomerSummaryDTO> findAllSummaries();
+
+    /**
+     * Keyset page of customer ids, whose customers are read by {@link #findWithBookingsByIdIn(Collection)}. A page of
+     * customers read with their bookings in one query would be cut from the joined rows in memory.
+     */
+    @Query("SELECT c.id FROM Customer c WHERE c.id > :id ORDER BY c.id")
+    List<Long> findIdsByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = "bookings")
+    @Query("SELECT DISTINCT c FROM Customer c WHERE c.id IN :ids ORDER BY c.id")
+    List<Customer> findWithBookingsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Streams the customers with their bookings. The rows of a customer are adjacent, as they are ordered by customer,
+     * so Hibernate assembles one customer at a time from the scrolled rows.
+     */
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    @Query("SELECT c FROM Customer c LEFT JOIN FETCH c.bookings ORDER BY c.id")
+    Stream<Customer> streamAllWithBookings();
 }
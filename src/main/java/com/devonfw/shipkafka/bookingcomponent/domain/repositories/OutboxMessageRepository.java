@@ -0,0 +1,33 @@
+package com.devonfw.shipkafka.bookingcomponent.domain.repositories;
+
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Reads the oldest messages and locks them until the end of the transaction, skipping the messages another relay has
+     * locked (a lock timeout of -2 is {@code SKIP LOCKED} in Hibernate), so no message is sent by two relays at once.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = org.hibernate.cfg.AvailableSettings.JPA_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT m FROM OutboxMessage m ORDER BY m.id")
+    List<OutboxMessage> lockOldest(Pageable pageable);
+
+    @Query("SELECT MIN(m.id) FROM OutboxMessage m")
+    Long findOldestId();
+
+    @Query("SELECT MIN(m.createdOn) FROM OutboxMessage m")
+    Date findOldestCreatedOn();
+}
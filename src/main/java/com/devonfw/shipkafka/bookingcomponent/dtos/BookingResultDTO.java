@@ -0,0 +1,29 @@
+package com.devonfw.shipkafka.bookingcomponent.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one booking of a bulk request: the id of the created booking, or the reason it was rejected.
+ */
+@Data
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingResultDTO {
+
+    private Long id;
+
+    private String error;
+
+    public static BookingResultDTO created(Long id) {
+        return new BookingResultDTO(id, null);
+    }
+
+    public static BookingResultDTO rejected(String error) {
+        return new BookingResultDTO(null, error);
+    }
+}
@@ -0,0 +1,20 @@
+package com.devonfw.shipkafka.bookingcomponent.dtos;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@AllArgsConstructor
+public class CustomerSummaryDTO {
+
+    private Long id;
+
+    private String firstName;
+
+    private String lastName;
+
+    private long bookingCount;
+}
@@ -1,28 +1,48 @@
 package com.devonfw.shipkafka.bookingcomponent.gateway;
 
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.OutboxMessage;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.OutboxMessageRepository;
 import com.devonfw.shipkafka.bookingcomponent.exceptions.BookingNotFoundException;
 import com.devonfw.shipkafka.common.domain.entities.Booking;
+import com.devonfw.shipkafka.common.events.BookingDecidedEvent;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
 import com.devonfw.shipkafka.common.events.ShipDamagedEvent;
+import com.devonfw.shipkafka.common.messaging.BookingLatencyRecorder;
+import com.devonfw.shipkafka.common.messaging.IdempotentConsumer;
+import com.devonfw.shipkafka.common.messaging.KafkaSendPipeline;
+import com.devonfw.shipkafka.common.messaging.ShipRoutable;
+import com.devonfw.shipkafka.common.messaging.codec.EventSerializer;
 import com.devonfw.shipkafka.shipcomponent.exceptions.ShipNotFoundException;
 import com.devonfw.shipkafka.bookingcomponent.logic.BookingComponentBusinessLogic;
 
 
 import org.apache.kafka.clients.admin.NewTopic;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.annotation.RetryableTopic;
 import org.springframework.kafka.config.TopicBuilder;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
- * Implements the Messaging Gateway Pattern
+ * Implements the Messaging Gateway Pattern. Bookings leave and enter the component as {@link BookingRequestedEvent}
+ * and {@link BookingDecidedEvent}, never as the entity itself.
  *
  * @see <a href="https://www.enterpriseintegrationpatterns.com/patterns/messaging/MessagingGateway.html">Messaging Gateway Pattern</a>
  */
@@ -31,19 +51,41 @@ public class BookingComponentMessagingGateway {
 
     private final Logger LOG = LoggerFactory.getLogger(getClass());
 
-    private final KafkaTemplate<String, Object> template;
-    private final KafkaTemplate<Long, Object> longTemplate;
+    private final KafkaSendPipeline sendPipeline;
+
+    private final OutboxMessageRepository outboxMessageRepository;
+
+    private final EventSerializer<Object> outboxSerializer;
+
+    private final IdempotentConsumer idempotentConsumer;
+
+    private final BookingLatencyRecorder latencyRecorder;
+
+    private final Counter dltCounter;
 
     private boolean fail = true;
 
+    @Value("${shipkafka.bookings.partitions:3}")
+    private int bookingsPartitions;
+
 
     private final BookingComponentBusinessLogic bookingComponentBusinessLogic;
 
     @Autowired
-    public BookingComponentMessagingGateway(@Lazy BookingComponentBusinessLogic bookingComponentBusinessLogic, KafkaTemplate<String, Object> template, KafkaTemplate<Long, Object> longTemplate) {
+    public BookingComponentMessagingGateway(@Lazy BookingComponentBusinessLogic bookingComponentBusinessLogic, KafkaSendPipeline sendPipeline,
+                                            OutboxMessageRepository outboxMessageRepository, KafkaProperties kafkaProperties,
+                                            IdempotentConsumer idempotentConsumer, BookingLatencyRecorder latencyRecorder, MeterRegistry meterRegistry) {
         this.bookingComponentBusinessLogic = bookingComponentBusinessLogic;
-        this.template = template;
-        this.longTemplate = longTemplate;
+        this.sendPipeline = sendPipeline;
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.outboxSerializer = new EventSerializer<>();
+        this.outboxSerializer.configure(kafkaProperties.buildProducerProperties(), false);
+        this.idempotentConsumer = idempotentConsumer;
+        this.latencyRecorder = latencyRecorder;
+        this.dltCounter = Counter.builder("shipkafka.bookings.dlt")
+                .description("Ship damaged events that exhausted their retries")
+                .tag("listener", "ship-damaged")
+                .register(meterRegistry);
     }
 
     @RetryableTopic(attempts = "3", backoff = @Backoff(delay = 2_000, maxDelay = 10_000, multiplier = 2))
@@ -63,43 +105,126 @@ public class BookingComponentMessagingGateway {
     @DltHandler
     public void listenShipDamagedDlt(ShipDamagedEvent shipDamagedEvent){
         LOG.info("Received DLT message: {}", shipDamagedEvent.toString());
+        dltCounter.increment();
         bookingComponentBusinessLogic.cancelBookings(shipDamagedEvent.getShipId());
     }
 
     @KafkaListener(id ="ship-bookings", topics = "ship-bookings", groupId = "booking")
-    public void listenBooking(Booking booking) throws BookingNotFoundException {
-        LOG.info("Received message: {}", booking.toString());
-        bookingComponentBusinessLogic.processBooking(booking);
+    public void listenBooking(BookingDecidedEvent decision) throws BookingNotFoundException {
+        LOG.info("Received message: {}", decision.toString());
+        if (idempotentConsumer.isProcessed(BookingComponentBusinessLogic.CONSUMER, decision.eventId())) {
+            LOG.info("Dropped duplicate: {}", decision);
+            return;
+        }
+        bookingComponentBusinessLogic.processBooking(decision.getBookingId(), decision.getBookingStatus(), decision.eventId());
+        latencyRecorder.recordDecision(decision.getBookingId(), decision.getBookingStatus());
     }
 
 
 
     public <T> void sendMessage(String topic, T message) {
         LOG.info("Sending message : {}", message.toString());
-        template.send(topic, message);
+        sendPipeline.send(topic, message);
     }
 
     public <T> void sendMessage(String topic, Long key, T message) {
         LOG.info("Sending message : {}", message.toString());
-        longTemplate.send(topic, key, message);
+        sendPipeline.send(topic, key, message);
+    }
+
+    /**
+     * Stores the message in the outbox within the current transaction. It is published by the {@link OutboxRelay} once
+     * the transaction has committed, so the caller neither waits for the broker nor publishes rolled back state.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> void publishMessage(String topic, Long key, T message) {
+        LOG.info("Storing message in outbox: {}", message.toString());
+        outboxMessageRepository.save(toOutboxMessage(topic, key, message));
     }
 
+    /**
+     * Stores all messages in the outbox within the current transaction, see {@link #publishMessage(String, Long, Object)}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> void publishMessages(String topic, Function<T, Long> key, List<T> messages) {
+        LOG.info("Storing {} messages in outbox", messages.size());
+        List<OutboxMessage> outboxMessages = new ArrayList<>(messages.size());
+        for (T message : messages) {
+            outboxMessages.add(toOutboxMessage(topic, key.apply(message), message));
+        }
+        outboxMessageRepository.saveAll(outboxMessages);
+    }
+
+    /**
+     * Publishes the request of the new booking to "bookings", see {@link #publishMessage(String, Long, Object)}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishBookingRequested(Booking booking) {
+        publishMessage("bookings", booking.getId(), toRequestedEvent(booking));
+    }
+
+    /**
+     * Publishes the requests of the new bookings to "bookings", see {@link #publishMessages(String, Function, List)}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishBookingsRequested(List<Booking> bookings) {
+        publishMessages("bookings", BookingRequestedEvent::getBookingId, bookings.stream()
+                .map(BookingComponentMessagingGateway::toRequestedEvent)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Publishes the current status of the bookings to "ship-bookings", see {@link #publishMessages(String, Function, List)}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishBookingsDecided(List<Booking> bookings) {
+        publishMessages("ship-bookings", BookingDecidedEvent::getBookingId, bookings.stream()
+                .map(booking -> toRequestedEvent(booking).decide(booking.getBookingStatus()))
+                .collect(Collectors.toList()));
+    }
+
+    private static BookingRequestedEvent toRequestedEvent(Booking booking) {
+        return new BookingRequestedEvent(booking.getId(), booking.getCustomerId(), booking.getShipId(), booking.getContainerCount());
+    }
+
+    private OutboxMessage toOutboxMessage(String topic, Long key, Object message) {
+        Long shipId = message instanceof ShipRoutable ? ((ShipRoutable) message).getShipId() : null;
+        return new OutboxMessage(topic, key, shipId, message.getClass().getName(), outboxSerializer.serialize(topic, message));
+    }
+
+    /**
+     * Bookings are keyed by their id, but partitioned by their ship id, see {@link com.devonfw.shipkafka.common.messaging.ShipIdPartitioner}.
+     */
     @Bean
     public NewTopic bookings() {
         return TopicBuilder.name("bookings")
-                .partitions(3)
+                .partitions(bookingsPartitions)
                 .compact()
                 .build();
     }
 
+    /**
+     * Decisions are partitioned like the requests they answer, so both topics need the same number of partitions for the
+     * {@link com.devonfw.shipkafka.bookingcomponent.view.BookingViewTopology} to see both in the same task.
+     */
     @Bean
     public NewTopic shipTopic() {
         return TopicBuilder.name("ship-bookings")
-                .partitions(3)
+                .partitions(bookingsPartitions)
                 .compact()
                 .build();
     }
 
+    /**
+     * Changes of a ship are partitioned like its bookings, so they are applied in the order they were made.
+     */
+    @Bean
+    public NewTopic shipChangesTopic() {
+        return TopicBuilder.name("ship-changes")
+                .partitions(bookingsPartitions)
+                .build();
+    }
+
     @Bean
     public NewTopic shipDamagedTopic(){
         return TopicBuilder.name("shipDamagedTopic").build();
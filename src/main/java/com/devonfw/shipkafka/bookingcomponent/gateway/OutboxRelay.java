@@ -0,0 +1,179 @@
+package com.devonfw.shipkafka.bookingcomponent.gateway;
+
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.OutboxMessage;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.OutboxMessageRepository;
+import com.devonfw.shipkafka.common.messaging.BookingTimeline;
+import com.devonfw.shipkafka.common.messaging.ShipIdPartitioner;
+import com.devonfw.shipkafka.common.messaging.codec.CompactCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.ProducerListener;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the messages of the outbox in batches. A batch is locked in a transaction, sent without waiting for the
+ * single acknowledgements, flushed, and the messages up to the first failed one are deleted with one statement. The
+ * failed message and the ones after it stay in the outbox and are sent again by the next run, so delivery is at least
+ * once and the messages of a key are not reordered. A relay only sends the oldest messages, so while another node sends
+ * a batch, it leaves the newer ones alone.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final KafkaTemplate<Long, byte[]> template;
+
+    private final int batchSize;
+
+    private final Counter relayedCounter;
+
+    private final Counter failedCounter;
+
+    private final Timer relayTimer;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    @Autowired
+    public OutboxRelay(OutboxMessageRepository outboxMessageRepository, PlatformTransactionManager transactionManager,
+                       ProducerFactory<Long, byte[]> producerFactory,
+                       ProducerListener<Long, byte[]> producerListener, MeterRegistry meterRegistry,
+                       @Value("${shipkafka.outbox.batch-size:500}") int batchSize,
+                       @Value("${shipkafka.outbox.linger-ms:20}") int lingerMs,
+                       @Value("${shipkafka.outbox.producer-batch-size:65536}") int producerBatchSize) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.template = new KafkaTemplate<>(producerFactory, Map.of(
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class,
+                ProducerConfig.LINGER_MS_CONFIG, lingerMs,
+                ProducerConfig.BATCH_SIZE_CONFIG, producerBatchSize));
+        this.template.setProducerListener(producerListener);
+        this.batchSize = batchSize;
+
+        this.relayedCounter = meterRegistry.counter("shipkafka.outbox.relayed");
+        this.failedCounter = meterRegistry.counter("shipkafka.outbox.failed");
+        this.relayTimer = meterRegistry.timer("shipkafka.outbox.relay");
+        Gauge.builder("shipkafka.outbox.lag", lagMillis, AtomicLong::get)
+                .description("Age of the oldest message waiting in the outbox")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The template has a producer factory of its own, copied from the auto-configured one, which is not a bean, so its
+     * producer is closed here.
+     */
+    @PreDestroy
+    public void close() {
+        template.getProducerFactory().reset();
+    }
+
+    /**
+     * Age of the oldest message in the outbox when it was last read, 0 if it was empty.
+     */
+    public long getLagMillis() {
+        return lagMillis.get();
+    }
+
+    @Scheduled(fixedDelayString = "${shipkafka.outbox.poll-interval-ms:100}")
+    public void relay() {
+        Integer relayed;
+        do {
+            relayed = transactionTemplate.execute(status -> relayOldest());
+        } while (relayed != null && relayed == batchSize);
+    }
+
+    /**
+     * Locks and sends the oldest batch, unless another relay holds older messages, which must be sent first.
+     *
+     * @return the number of relayed messages
+     */
+    private int relayOldest() {
+        Date oldestCreatedOn = outboxMessageRepository.findOldestCreatedOn();
+        lagMillis.set(oldestCreatedOn == null ? 0 : System.currentTimeMillis() - oldestCreatedOn.getTime());
+
+        List<OutboxMessage> messages = outboxMessageRepository.lockOldest(PageRequest.of(0, batchSize));
+        if (messages.isEmpty() || !messages.get(0).getId().equals(outboxMessageRepository.findOldestId())) {
+            return 0;
+        }
+        return relayTimer.record(() -> relay(messages));
+    }
+
+    private int relay(List<OutboxMessage> messages) {
+        List<ListenableFuture<SendResult<Long, byte[]>>> futures = new ArrayList<>(messages.size());
+        for (OutboxMessage message : messages) {
+            ProducerRecord<Long, byte[]> record = new ProducerRecord<>(message.getTopic(), partition(message), message.getMessageKey(), message.getPayload());
+            record.headers().add(BookingTimeline.REQUESTED_AT, BookingTimeline.toHeader(message.getCreatedOn().getTime()));
+            if (!CompactCodec.isCompact(message.getPayload())) {
+                record.headers().add(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, message.getPayloadType().getBytes(StandardCharsets.UTF_8));
+            }
+            futures.add(template.send(record));
+        }
+        template.flush();
+
+        List<Long> sent = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                futures.get(i).get(30, TimeUnit.SECONDS);
+                sent.add(messages.get(i).getId());
+            } catch (ExecutionException | TimeoutException e) {
+                LOG.warn("Failed to relay {}, keeping it and the {} messages after it", messages.get(i), messages.size() - i - 1, e);
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (!sent.isEmpty()) {
+            outboxMessageRepository.deleteAllByIdInBatch(sent);
+        }
+        relayedCounter.increment(sent.size());
+        failedCounter.increment(messages.size() - sent.size());
+        LOG.debug("Relayed {} of {} outbox messages", sent.size(), messages.size());
+        return sent.size();
+    }
+
+    /**
+     * The payload is already serialized, so the {@link ShipIdPartitioner} cannot see the ship id. It is applied here.
+     */
+    private Integer partition(OutboxMessage message) {
+        if (message.getShipId() == null) {
+            return null;
+        }
+        return ShipIdPartitioner.partition(message.getShipId(), template.partitionsFor(message.getTopic()).size());
+    }
+}
@@ -9,31 +9,93 @@ import com.devonfw.shipkafka.bookingcomponent.dtos.BookingCreateDTO;
 import com.devonfw.shipkafka.common.exceptions.BookingAlreadyConfirmedException;
 import com.devonfw.shipkafka.bookingcomponent.exceptions.BookingNotFoundException;
 import com.devonfw.shipkafka.bookingcomponent.exceptions.CustomerNotFoundException;
+import com.devonfw.shipkafka.common.messaging.IdempotentConsumer;
 import com.devonfw.shipkafka.shipcomponent.exceptions.ShipNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class BookingComponentBusinessLogic {
 
+    private static final Logger LOG = LoggerFactory.getLogger(BookingComponentBusinessLogic.class);
+
+    /**
+     * Consumer of the {@link IdempotentConsumer}, which must not apply a booking decision twice.
+     */
+    public static final String CONSUMER = "booking";
+
     private final CustomerRepository customerRepository;
 
     private final BookingRepository bookingRepository;
 
     private final BookingComponentMessagingGateway bookingComponentMessagingGateway;
 
+    private final IdempotentConsumer idempotentConsumer;
+
+    private final BookingStatusNotifier bookingStatusNotifier;
+
+    private final BookingEventStore bookingEventStore;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int cancellationChunkSize;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer addTimer;
+
+    private final Timer addAllTimer;
+
+    private final Timer processTimer;
+
+    private final Timer cancelTimer;
+
     @Autowired
     public BookingComponentBusinessLogic(CustomerRepository customerRepository,
                                          BookingRepository bookingRepository,
-                                         @Lazy BookingComponentMessagingGateway bookingComponentMessagingGateway){
+                                         @Lazy BookingComponentMessagingGateway bookingComponentMessagingGateway,
+                                         IdempotentConsumer idempotentConsumer,
+                                         BookingStatusNotifier bookingStatusNotifier,
+                                         BookingEventStore bookingEventStore,
+                                         PlatformTransactionManager transactionManager,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${shipkafka.bookings.cancellation-chunk-size:500}") int cancellationChunkSize){
         this.customerRepository = customerRepository;
         this.bookingRepository = bookingRepository;
         this.bookingComponentMessagingGateway = bookingComponentMessagingGateway;
+        this.idempotentConsumer = idempotentConsumer;
+        this.bookingStatusNotifier = bookingStatusNotifier;
+        this.bookingEventStore = bookingEventStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cancellationChunkSize = cancellationChunkSize;
+        this.meterRegistry = meterRegistry;
+
+        this.addTimer = timer("shipkafka.bookings.add", "Time to store a booking and publish its request");
+        this.addAllTimer = timer("shipkafka.bookings.add.bulk", "Time to store a list of bookings and publish their requests");
+        this.processTimer = timer("shipkafka.bookings.process", "Time to apply a decision of the ship component to a booking");
+        this.cancelTimer = timer("shipkafka.bookings.cancel", "Time to cancel all bookings of a damaged ship");
+    }
+
+    private Timer timer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     @Transactional(readOnly = true)
@@ -43,65 +105,136 @@ public class BookingComponentBusinessLogic {
 
     @Transactional(rollbackFor = {CustomerNotFoundException.class})
     public Booking addBooking(Long customerId, BookingCreateDTO bookingCreateDTO) throws CustomerNotFoundException{
-        Optional<Customer> optionalCustomer = customerRepository.findById(customerId);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            if (customerRepository.existsCachedById(customerId)) {
+                //Booking booking = bookingRepository.save(Booking.of(bookingCreateDTO));
+                Booking booking = new Booking(bookingCreateDTO.getShipId(), bookingCreateDTO.getContainerCount());
+                booking.setCustomerId(customerId);
+                booking = bookingRepository.save(booking);
+                bookingEventStore.append(booking);
 
-        if (optionalCustomer.isPresent()) {
-            Customer customer = optionalCustomer.get();
+                bookingComponentMessagingGateway.publishBookingRequested(booking);
 
-            //Booking booking = bookingRepository.save(Booking.of(bookingCreateDTO));
-            Booking booking = bookingRepository.save(new Booking(bookingCreateDTO.getShipId(), bookingCreateDTO.getContainerCount()));
 
-            customer.addBooking(booking);
-            customerRepository.save(customer);
+                return booking;
+            } else {
+                throw new CustomerNotFoundException(customerId);
+            }
+        } finally {
+            sample.stop(addTimer);
+        }
+    }
 
-            bookingComponentMessagingGateway.sendMessage("bookings", booking.getId(), booking);
+    /**
+     * Stores all bookings of the customer and publishes their requests in one transaction. The bookings and their
+     * outbox messages are written with batched inserts, see {@code spring.jpa.properties.hibernate.jdbc.batch_size}.
+     *
+     * @return the stored bookings in the given order
+     */
+    @Transactional(rollbackFor = {CustomerNotFoundException.class})
+    public List<Booking> addBookings(Long customerId, List<BookingCreateDTO> bookingCreateDTOs) throws CustomerNotFoundException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            if (!customerRepository.existsCachedById(customerId)) {
+                throw new CustomerNotFoundException(customerId);
+            }
 
+            List<Booking> bookings = new ArrayList<>(bookingCreateDTOs.size());
+            for (BookingCreateDTO bookingCreateDTO : bookingCreateDTOs) {
+                Booking booking = new Booking(bookingCreateDTO.getShipId(), bookingCreateDTO.getContainerCount());
+                booking.setCustomerId(customerId);
+                bookings.add(booking);
+            }
+            bookings = bookingRepository.saveAll(bookings);
+            bookingEventStore.append(bookings);
 
-            return booking;
-        } else {
-            throw new CustomerNotFoundException(customerId);
+            bookingComponentMessagingGateway.publishBookingsRequested(bookings);
+            return bookings;
+        } finally {
+            sample.stop(addAllTimer);
         }
     }
 
     @Transactional(readOnly = true)
     public List<Booking> getBookings(Long customerId, Boolean onlyConfirmed) throws CustomerNotFoundException {
 
-        Customer customer = customerRepository
-                .findById(customerId)
-                .orElseThrow(() -> new CustomerNotFoundException(customerId));
+        if (!customerRepository.existsCachedById(customerId)) {
+            throw new CustomerNotFoundException(customerId);
+        }
 
         if (onlyConfirmed) {
             return bookingRepository.findConfirmedBookings(customerId);
         } else {
-            return customer.getBookings();
+            return bookingRepository.findByCustomerIdOrderByIdAsc(customerId);
         }
     }
 
-    //@Transactional(rollbackFor = {ShipNotFoundException.class})
-    public void cancelBookings(Long shipId){
-        List<Booking> bookings = bookingRepository.findBookingsByShipId(shipId);
-
-        if (bookings.isEmpty()){
-            //throw new ShipNotFoundException(shipId);
-            return;
-        }
-
-        for (Booking booking : bookings) {
-            if(booking.getBookingStatus() != BookingStatus.CANCELED) {
-                booking.updateBookingStatus(BookingStatus.CANCELED);
-                bookingRepository.save(booking);
+    /**
+     * Cancels all bookings of the ship that may still be canceled. The bookings are processed in chunks of
+     * {@code shipkafka.bookings.cancellation-chunk-size}, each with one update statement and its own transaction, in
+     * which the canceled bookings are published to "ship-bookings" through the outbox. The bookings of a chunk that are
+     * still cancelable are locked before the update, so only the bookings canceled by this transaction are published,
+     * not those another transaction canceled meanwhile.
+     *
+     * @return the number of canceled bookings
+     */
+    public int cancelBookings(Long shipId){
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<BookingStatus> cancelable = BookingStatus.CANCELED.getPreviousStates();
+        int canceled = 0;
+        Long afterId = 0L;
+        List<Long> ids;
+        do {
+            ids = bookingRepository.findIdsByShipIdAndBookingStatusIn(shipId, cancelable, afterId, PageRequest.of(0, cancellationChunkSize));
+            if (ids.isEmpty()) {
+                break;
             }
-        }
+            afterId = ids.get(ids.size() - 1);
+
+            List<Long> chunk = ids;
+            canceled += transactionTemplate.execute(status -> {
+                List<Long> locked = bookingRepository.lockByIdInAndBookingStatusIn(chunk, cancelable).stream()
+                        .map(Booking::getId)
+                        .collect(Collectors.toList());
+                if (locked.isEmpty()) {
+                    return 0;
+                }
+                int updated = bookingRepository.updateBookingStatus(locked, BookingStatus.CANCELED, cancelable, new Date());
+                List<Booking> bookings = bookingRepository.findAllById(locked);
+                bookingEventStore.append(bookings);
+                bookingComponentMessagingGateway.publishBookingsDecided(bookings);
+                bookingStatusNotifier.statusChanged(bookings);
+                return updated;
+            });
+        } while (ids.size() == cancellationChunkSize);
+
+        sample.stop(cancelTimer);
+        LOG.info("Canceled {} bookings of ship {}", canceled, shipId);
+        return canceled;
     }
 
-    public void processBooking(Booking booking) throws BookingNotFoundException {
-        Booking b = bookingRepository
-                .findById(booking.getId())
-                .orElseThrow(() -> new BookingNotFoundException(booking.getId()));
-
-        if(b.getBookingStatus() != BookingStatus.CANCELED){
-            b.updateBookingStatus(booking.getBookingStatus());
-            bookingRepository.save(b);
+    /**
+     * Applies the decision of the ship component, identified by the given event id, to the booking. Callers drop known
+     * duplicates with {@link IdempotentConsumer#isProcessed(String, String)} before.
+     */
+    @Transactional(rollbackFor = {BookingNotFoundException.class})
+    public void processBooking(Long bookingId, BookingStatus bookingStatus, String eventId) throws BookingNotFoundException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            idempotentConsumer.markProcessed(CONSUMER, eventId);
+            Booking b = bookingRepository
+                    .findById(bookingId)
+                    .orElseThrow(() -> new BookingNotFoundException(bookingId));
+
+            if(b.getBookingStatus() != BookingStatus.CANCELED && b.getBookingStatus() != bookingStatus){
+                b.updateBookingStatus(bookingStatus);
+                bookingRepository.save(b);
+                bookingEventStore.append(b);
+                bookingStatusNotifier.statusChanged(b);
+            }
+        } finally {
+            sample.stop(processTimer);
         }
     }
 }
@@ -0,0 +1,198 @@
+package com.devonfw.shipkafka.bookingcomponent.logic;
+
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.BookingEvent;
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.BookingSnapshot;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.BookingEventRepository;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.BookingSnapshotRepository;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of the status transitions of bookings. Every change of a booking appends a {@link BookingEvent} in
+ * the transaction of the change, so the log is a sequence of inserts next to the updates of the booking table.
+ * <p>
+ * The booking table stays the system of record: bookings are still updated in place and all reads are answered from
+ * it, so the log adds writes instead of replacing the random updates. The log serves the history of a booking, see
+ * {@link #getHistory(Long)}, and {@link #rebuild()}, which folds the state of all bookings from the latest
+ * {@link BookingSnapshot} and the events that occurred since, see {@link BookingReplay}, e.g. to restore or verify the
+ * booking table.
+ * <p>
+ * Snapshots are written every {@code shipkafka.booking-events.snapshot-interval-ms} and cover the events that occurred
+ * until {@code shipkafka.booking-events.snapshot-settle-ms} ago, which must exceed the longest transaction appending
+ * events. A new snapshot is folded from the previous one and the events since. The chunks of the previous snapshot are
+ * locked meanwhile, so with several nodes only one of them writes the snapshot of an interval. The very first snapshot
+ * is not guarded and may be written by more than one node, the older one is deleted by the next snapshot.
+ */
+@Component
+public class BookingEventStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BookingEventStore.class);
+
+    private final BookingEventRepository bookingEventRepository;
+
+    private final BookingSnapshotRepository bookingSnapshotRepository;
+
+    private final long settleMillis;
+
+    private final long intervalMillis;
+
+    private final int chunkSize;
+
+    private final Timer rebuildTimer;
+
+    private final Timer snapshotTimer;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public BookingEventStore(BookingEventRepository bookingEventRepository, BookingSnapshotRepository bookingSnapshotRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${shipkafka.booking-events.snapshot-settle-ms:60000}") long settleMillis,
+                             @Value("${shipkafka.booking-events.snapshot-interval-ms:600000}") long intervalMillis,
+                             @Value("${shipkafka.booking-events.snapshot-chunk-size:10000}") int chunkSize) {
+        this.bookingEventRepository = bookingEventRepository;
+        this.bookingSnapshotRepository = bookingSnapshotRepository;
+        this.settleMillis = settleMillis;
+        this.intervalMillis = intervalMillis;
+        this.chunkSize = chunkSize;
+
+        this.rebuildTimer = Timer.builder("shipkafka.booking-events.rebuild")
+                .description("Time to rebuild all bookings from the latest snapshot and the events since")
+                .register(meterRegistry);
+        this.snapshotTimer = Timer.builder("shipkafka.booking-events.snapshot")
+                .description("Time to write a snapshot of all bookings")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Appends the current state of the booking, which must have been stored, within the current transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Booking booking) {
+        bookingEventRepository.save(new BookingEvent(booking));
+    }
+
+    /**
+     * Appends the current state of the bookings with batched inserts, see {@link #append(Booking)}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Collection<Booking> bookings) {
+        bookingEventRepository.saveAll(bookings.stream().map(BookingEvent::new).collect(Collectors.toList()));
+    }
+
+    @Transactional(readOnly = true)
+    public List<BookingEvent> getHistory(Long bookingId) {
+        return bookingEventRepository.findByBookingIdOrderByIdAsc(bookingId);
+    }
+
+    /**
+     * @return all bookings by id, as folded from the latest snapshot and all events since
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Booking> rebuild() {
+        Timer.Sample sample = Timer.start();
+        BookingReplay replay = new BookingReplay();
+        Date coveredUntil = loadLatestSnapshot(replay);
+        int snapshotSize = replay.size();
+        try (Stream<BookingEvent> events = bookingEventRepository.streamOccurredFrom(coveredUntil)) {
+            events.forEach(event -> apply(replay, event));
+        }
+        Map<Long, Booking> bookings = replay.toBookings();
+
+        long millis = sample.stop(rebuildTimer) / 1_000_000;
+        LOG.info("Rebuilt {} bookings from a snapshot of {} bookings and the events since {} in {} ms",
+                bookings.size(), snapshotSize, coveredUntil, millis);
+        return bookings;
+    }
+
+    /**
+     * Folds the events since the latest snapshot into a new one and deletes the older snapshots. Nothing is written if
+     * another node wrote a snapshot within the last half interval.
+     */
+    @Transactional
+    @Scheduled(initialDelayString = "${shipkafka.booking-events.snapshot-interval-ms:600000}",
+            fixedDelayString = "${shipkafka.booking-events.snapshot-interval-ms:600000}")
+    public void snapshot() {
+        Timer.Sample sample = Timer.start();
+        Date coveredUntil = new Date(System.currentTimeMillis() - settleMillis);
+        BookingReplay replay = new BookingReplay();
+        Date from = new Date(0);
+        Date latest = bookingSnapshotRepository.findLatestCoveredUntil().orElse(null);
+        if (latest != null) {
+            // waits for a node writing a snapshot, which deletes these chunks when it commits
+            List<BookingSnapshot> previous = bookingSnapshotRepository.lockByCoveredUntil(latest);
+            if (previous.isEmpty() || coveredUntil.getTime() - latest.getTime() < intervalMillis / 2) {
+                LOG.debug("Skipped snapshot, the latest covers until {}", latest);
+                return;
+            }
+            decode(replay, previous);
+            from = latest;
+        }
+
+        try (Stream<BookingEvent> events = bookingEventRepository.streamOccurredBetween(from, coveredUntil)) {
+            events.forEach(event -> apply(replay, event));
+        }
+
+        List<BookingSnapshot> chunks = new ArrayList<>();
+        int remaining = replay.size();
+        for (byte[] payload : replay.encode(chunkSize)) {
+            chunks.add(new BookingSnapshot(coveredUntil, Math.min(chunkSize, remaining), payload));
+            remaining -= chunkSize;
+        }
+        bookingSnapshotRepository.saveAll(chunks);
+        bookingSnapshotRepository.flush();
+        int deleted = bookingSnapshotRepository.deleteCoveredBefore(coveredUntil);
+
+        long millis = sample.stop(snapshotTimer) / 1_000_000;
+        LOG.info("Wrote a snapshot of {} bookings in {} chunks until {}, replacing {} chunks, in {} ms",
+                replay.size(), chunks.size(), coveredUntil, deleted, millis);
+    }
+
+    /**
+     * @return the date the snapshot covers, or the epoch if there is none
+     */
+    private Date loadLatestSnapshot(BookingReplay replay) {
+        Date coveredUntil = bookingSnapshotRepository.findLatestCoveredUntil().orElse(null);
+        if (coveredUntil == null) {
+            return new Date(0);
+        }
+        decode(replay, bookingSnapshotRepository.findByCoveredUntilOrderByIdAsc(coveredUntil));
+        return coveredUntil;
+    }
+
+    private void decode(BookingReplay replay, List<BookingSnapshot> chunks) {
+        for (BookingSnapshot chunk : chunks) {
+            replay.decode(chunk.getPayload());
+            entityManager.detach(chunk);
+        }
+    }
+
+    /**
+     * Events are detached right after they were applied, so the persistence context stays flat regardless of the
+     * length of the log.
+     */
+    private void apply(BookingReplay replay, BookingEvent event) {
+        replay.apply(event);
+        entityManager.detach(event);
+    }
+}
@@ -0,0 +1,164 @@
+package com.devonfw.shipkafka.bookingcomponent.logic;
+
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.BookingEvent;
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import com.devonfw.shipkafka.common.messaging.codec.CompactReader;
+import com.devonfw.shipkafka.common.messaging.codec.CompactWriter;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Current state of bookings, folded from their {@link BookingEvent}s. Event ids are assigned from blocks reserved per
+ * node, so they do not order the events of one booking. The status does: an event is only applied if the current status
+ * may {@link BookingStatus#transition(BookingStatus)} to its status, which makes the fold independent of the order in
+ * which the events are read. The version of a booking is the number of its events minus one, like the version column
+ * of the entity, which is incremented by every status update.
+ * <p>
+ * Snapshots are written as chunks in a compact binary layout: the number of bookings, then per booking its id, a bit
+ * set of null ids, the customer and ship id, container count, status ordinal, creation time, time since creation of
+ * the last update and version.
+ */
+final class BookingReplay {
+
+    private static final int NO_CUSTOMER_ID = 1;
+
+    private static final int NO_SHIP_ID = 1 << 1;
+
+    private static final BookingStatus[] BOOKING_STATUSES = BookingStatus.values();
+
+    private final Map<Long, State> states = new HashMap<>();
+
+    void apply(BookingEvent event) {
+        State state = states.get(event.getBookingId());
+        if (state == null) {
+            states.put(event.getBookingId(), new State(event));
+        } else {
+            state.apply(event);
+        }
+    }
+
+    int size() {
+        return states.size();
+    }
+
+    Map<Long, Booking> toBookings() {
+        Map<Long, Booking> bookings = new HashMap<>(states.size() * 4 / 3 + 1);
+        states.forEach((id, state) -> bookings.put(id, state.toBooking(id)));
+        return bookings;
+    }
+
+    /**
+     * @return the encoded bookings, at most {@code chunkSize} per chunk
+     */
+    List<byte[]> encode(int chunkSize) {
+        List<byte[]> chunks = new ArrayList<>(states.size() / chunkSize + 1);
+        List<Map.Entry<Long, State>> chunk = new ArrayList<>(chunkSize);
+        for (Map.Entry<Long, State> entry : states.entrySet()) {
+            chunk.add(entry);
+            if (chunk.size() == chunkSize) {
+                chunks.add(encodeChunk(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(encodeChunk(chunk));
+        }
+        return chunks;
+    }
+
+    /**
+     * Adds the bookings of a chunk written by {@link #encode(int)}.
+     */
+    void decode(byte[] chunk) {
+        CompactReader reader = new CompactReader(chunk, 0);
+        long count = reader.readVarLong();
+        for (long i = 0; i < count; i++) {
+            Long id = reader.readVarLong();
+            int nulls = reader.readByte();
+            State state = new State();
+            state.customerId = (nulls & NO_CUSTOMER_ID) == 0 ? reader.readVarLong() : null;
+            state.shipId = (nulls & NO_SHIP_ID) == 0 ? reader.readVarLong() : null;
+            state.containerCount = (int) reader.readVarLong();
+            state.status = BOOKING_STATUSES[reader.readByte()];
+            state.createdOn = reader.readVarLong();
+            state.lastUpdatedOn = state.createdOn + reader.readVarLong();
+            state.version = reader.readVarLong();
+            states.put(id, state);
+        }
+    }
+
+    private static byte[] encodeChunk(List<Map.Entry<Long, State>> chunk) {
+        CompactWriter writer = new CompactWriter().writeVarLong(chunk.size());
+        for (Map.Entry<Long, State> entry : chunk) {
+            State state = entry.getValue();
+            writer.writeVarLong(entry.getKey());
+            writer.writeByte((state.customerId == null ? NO_CUSTOMER_ID : 0) | (state.shipId == null ? NO_SHIP_ID : 0));
+            if (state.customerId != null) {
+                writer.writeVarLong(state.customerId);
+            }
+            if (state.shipId != null) {
+                writer.writeVarLong(state.shipId);
+            }
+            writer.writeVarLong(state.containerCount)
+                    .writeByte(state.status.ordinal())
+                    .writeVarLong(state.createdOn)
+                    .writeVarLong(state.lastUpdatedOn - state.createdOn)
+                    .writeVarLong(state.version);
+        }
+        return writer.toByteArray();
+    }
+
+    private static final class State {
+
+        private Long customerId;
+
+        private Long shipId;
+
+        private int containerCount;
+
+        private BookingStatus status;
+
+        private long createdOn;
+
+        private long lastUpdatedOn;
+
+        private long version;
+
+        private State() {
+        }
+
+        private State(BookingEvent event) {
+            this.customerId = event.getCustomerId();
+            this.shipId = event.getShipId();
+            this.containerCount = event.getContainerCount();
+            this.status = event.getBookingStatus();
+            this.createdOn = event.getOccurredOn().getTime();
+            this.lastUpdatedOn = createdOn;
+        }
+
+        /**
+         * Events that precede the current status were read late; they only count towards the version and creation time.
+         */
+        private void apply(BookingEvent event) {
+            long occurredOn = event.getOccurredOn().getTime();
+            version++;
+            createdOn = Math.min(createdOn, occurredOn);
+            if (status.canTransition(event.getBookingStatus())) {
+                customerId = event.getCustomerId();
+                shipId = event.getShipId();
+                containerCount = event.getContainerCount();
+                status = event.getBookingStatus();
+                lastUpdatedOn = occurredOn;
+            }
+        }
+
+        private Booking toBooking(Long id) {
+            return new Booking(id, new Date(createdOn), new Date(lastUpdatedOn), containerCount, shipId, customerId, status, version);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.devonfw.shipkafka.bookingcomponent.logic;
+
+import com.devonfw.shipkafka.common.concurrent.ExecutionThreads;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Pushes status changes of bookings to the clients waiting for them, see {@code BookingRestController}, so they do not
+ * have to poll. Watchers are notified once the transaction that changed the booking has committed. Only the changes
+ * applied by this instance are pushed.
+ * <p>
+ * Watchers may block on slow clients, so they are called on {@code shipkafka.bookings.status.notify-threads} threads of
+ * their own instead of the thread that committed, e.g. a Kafka listener. The changes of a booking are always handed to
+ * the same thread, so its watchers see them in order.
+ */
+@Component
+public class BookingStatusNotifier {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BookingStatusNotifier.class);
+
+    private final Map<Long, Set<Consumer<Booking>>> watchersByBookingId = new ConcurrentHashMap<>();
+
+    private final AtomicInteger watcherCount = new AtomicInteger();
+
+    private final ExecutorService[] executors;
+
+    @Autowired
+    public BookingStatusNotifier(MeterRegistry meterRegistry, ExecutionThreads executionThreads,
+                                 @Value("${shipkafka.bookings.status.notify-threads:4}") int notifyThreads) {
+        this.executors = new ExecutorService[notifyThreads];
+        for (int i = 0; i < notifyThreads; i++) {
+            executors[i] = Executors.newSingleThreadExecutor(executionThreads.newThreadFactory("booking-status-" + i + "-"));
+        }
+        Gauge.builder("shipkafka.bookings.status.watchers", watcherCount, AtomicInteger::get)
+                .description("Clients waiting for the status change of a booking")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Calls the watcher with every later change of the booking until the returned handle is run. Register the watcher
+     * before reading the current status, so no change is missed in between.
+     */
+    public Runnable watch(Long bookingId, Consumer<Booking> watcher) {
+        watchersByBookingId.computeIfAbsent(bookingId, id -> ConcurrentHashMap.newKeySet()).add(watcher);
+        watcherCount.incrementAndGet();
+        return () -> watchersByBookingId.computeIfPresent(bookingId, (id, watchers) -> {
+            if (watchers.remove(watcher)) {
+                watcherCount.decrementAndGet();
+            }
+            return watchers.isEmpty() ? null : watchers;
+        });
+    }
+
+    public void statusChanged(Booking booking) {
+        statusChanged(List.of(booking));
+    }
+
+    public void statusChanged(Collection<Booking> bookings) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // the watchers are checked after the commit, so a watcher registered during the transaction is notified
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notifyWatchers(bookings);
+                }
+            });
+        } else {
+            notifyWatchers(bookings);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (ExecutorService executor : executors) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void notifyWatchers(Collection<Booking> bookings) {
+        if (watcherCount.get() == 0) {
+            return;
+        }
+        for (Booking booking : bookings) {
+            Set<Consumer<Booking>> watchers = watchersByBookingId.get(booking.getId());
+            if (watchers == null) {
+                continue;
+            }
+            executors[Math.floorMod(booking.getId().hashCode(), executors.length)].execute(() -> {
+                for (Consumer<Booking> watcher : watchers) {
+                    try {
+                        watcher.accept(booking);
+                    } catch (RuntimeException e) {
+                        LOG.warn("Could not notify watcher of booking {}", booking.getId(), e);
+                    }
+                }
+            });
+        }
+    }
+}
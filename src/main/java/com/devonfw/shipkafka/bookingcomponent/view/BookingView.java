@@ -0,0 +1,118 @@
+package com.devonfw.shipkafka.bookingcomponent.view;
+
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Serves booking reads from the state stores of the {@link BookingViewTopology} through interactive queries. The stores
+ * of an instance only hold the partitions assigned to it, so every read only answers from partitions that are active on
+ * this instance, and returns an empty result otherwise, upon which the caller reads the database.
+ */
+@Component
+@ConditionalOnProperty(prefix = "shipkafka.booking-view", name = "enabled")
+public class BookingView {
+
+    private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+
+    private final int partitions;
+
+    @Autowired
+    public BookingView(StreamsBuilderFactoryBean streamsBuilderFactoryBean,
+                       @Value("${shipkafka.bookings.partitions:3}") int partitions) {
+        this.streamsBuilderFactoryBean = streamsBuilderFactoryBean;
+        this.partitions = partitions;
+    }
+
+    public boolean isQueryable() {
+        KafkaStreams kafkaStreams = streamsBuilderFactoryBean.getKafkaStreams();
+        return kafkaStreams != null && kafkaStreams.state() == KafkaStreams.State.RUNNING;
+    }
+
+    /**
+     * "bookings" is partitioned by ship id, so the partition of a booking id is unknown and all local partitions are
+     * read. A booking found there is current, as only active partitions are queried.
+     */
+    public Optional<Booking> getBooking(Long bookingId) {
+        return Optional.ofNullable(this.<Long, Booking>store(BookingViewTopology.BOOKINGS_STORE, null).get(bookingId));
+    }
+
+    /**
+     * @return all bookings, or nothing if some partitions are active on other instances
+     */
+    public Optional<List<Booking>> getBookings() {
+        List<ReadOnlyKeyValueStore<Long, Booking>> stores = new ArrayList<>(partitions);
+        try {
+            for (int partition = 0; partition < partitions; partition++) {
+                stores.add(store(BookingViewTopology.BOOKINGS_STORE, partition));
+            }
+        } catch (InvalidStateStoreException e) {
+            return Optional.empty();
+        }
+        List<Booking> bookings = new ArrayList<>();
+        for (ReadOnlyKeyValueStore<Long, Booking> store : stores) {
+            try (KeyValueIterator<Long, Booking> iterator = store.all()) {
+                iterator.forEachRemaining(keyValue -> bookings.add(keyValue.value));
+            }
+        }
+        return Optional.of(bookings);
+    }
+
+    /**
+     * Looks up the partition of the customer by {@link KafkaStreams#queryMetadataForKey}, and reads the customer's
+     * bookings with a range query if it is active on this instance.
+     *
+     * @return the bookings of the customer, or nothing if the partition is active on another instance or the view
+     * holds no bookings of the customer
+     */
+    public Optional<List<Booking>> getBookingsOfCustomer(Long customerId, boolean onlyConfirmed) {
+        CustomerBookingKey first = CustomerBookingKey.first(customerId);
+        KeyQueryMetadata metadata = streamsBuilderFactoryBean.getKafkaStreams()
+                .queryMetadataForKey(BookingViewTopology.CUSTOMER_BOOKINGS_STORE, first, CustomerBookingKey.partitioner());
+        if (metadata == null || metadata.partition() < 0) {
+            return Optional.empty();
+        }
+        ReadOnlyKeyValueStore<CustomerBookingKey, Booking> store;
+        try {
+            store = store(BookingViewTopology.CUSTOMER_BOOKINGS_STORE, metadata.partition());
+        } catch (InvalidStateStoreException e) {
+            return Optional.empty();
+        }
+        List<Booking> bookings = new ArrayList<>();
+        try (KeyValueIterator<CustomerBookingKey, Booking> iterator = store.range(first, CustomerBookingKey.last(customerId))) {
+            iterator.forEachRemaining(keyValue -> bookings.add(keyValue.value));
+        }
+        if (bookings.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(bookings.stream()
+                .filter(booking -> !onlyConfirmed || booking.getBookingStatus() == BookingStatus.CONFIRMED)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * @param partition the only partition to query, which must be active on this instance, or null for all local ones
+     * @throws InvalidStateStoreException if the partition is not active on this instance
+     */
+    private <K, V> ReadOnlyKeyValueStore<K, V> store(String name, Integer partition) {
+        StoreQueryParameters<ReadOnlyKeyValueStore<K, V>> parameters =
+                StoreQueryParameters.fromNameAndType(name, QueryableStoreTypes.keyValueStore());
+        return streamsBuilderFactoryBean.getKafkaStreams().store(partition == null ? parameters : parameters.withPartition(partition));
+    }
+}
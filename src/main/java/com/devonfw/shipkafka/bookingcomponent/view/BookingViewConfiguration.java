@@ -0,0 +1,22 @@
+package com.devonfw.shipkafka.bookingcomponent.view;
+
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.KTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+
+@Configuration
+@EnableKafkaStreams
+@ConditionalOnProperty(prefix = "shipkafka.booking-view", name = "enabled")
+public class BookingViewConfiguration {
+
+    @Bean
+    public KTable<Long, Booking> bookingView(StreamsBuilder streamsBuilder,
+                                             @Value("${shipkafka.booking-view.in-memory:false}") boolean inMemory) {
+        return BookingViewTopology.build(streamsBuilder, inMemory);
+    }
+}
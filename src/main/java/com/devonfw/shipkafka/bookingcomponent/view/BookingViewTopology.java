@@ -0,0 +1,86 @@
+package com.devonfw.shipkafka.bookingcomponent.view;
+
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import com.devonfw.shipkafka.common.events.BookingDecidedEvent;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.common.messaging.codec.EventDeserializer;
+import com.devonfw.shipkafka.common.messaging.codec.EventSerializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.*;
+import org.apache.kafka.streams.state.KeyValueBytesStoreSupplier;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerde;
+
+/**
+ * Folds the requested bookings of "bookings" and the ship decisions of "ship-bookings" into the current state of every
+ * booking, keyed by booking id, and repartitions it by customer into the bookings of every customer, keyed by
+ * {@link CustomerBookingKey}, so an update replaces a single entry. The events carry no timestamps and versions, so
+ * these stay empty in the view.
+ */
+public final class BookingViewTopology {
+
+    public static final String BOOKINGS_STORE = "booking-view";
+
+    public static final String CUSTOMER_BOOKINGS_STORE = "customer-bookings-view";
+
+    private BookingViewTopology() {
+    }
+
+    public static KTable<Long, Booking> build(StreamsBuilder builder, boolean inMemory) {
+        Serde<Booking> bookingSerde = new JsonSerde<>(Booking.class).noTypeInfo().ignoreTypeHeaders();
+
+        KStream<Long, BookingDecidedEvent> requested = builder.stream("bookings", Consumed.with(Serdes.Long(), eventSerde(BookingRequestedEvent.class)))
+                .mapValues(event -> event.decide(BookingStatus.REQUESTED));
+        KStream<Long, BookingDecidedEvent> decided = builder.stream("ship-bookings", Consumed.with(Serdes.Long(), eventSerde(BookingDecidedEvent.class)));
+
+        KTable<Long, Booking> bookings = requested.merge(decided)
+                .mapValues(BookingViewTopology::toBooking)
+                .groupByKey(Grouped.with(Serdes.Long(), bookingSerde))
+                .reduce(BookingViewTopology::latest, Materialized.<Long, Booking>as(storeSupplier(BOOKINGS_STORE, inMemory))
+                        .withKeySerde(Serdes.Long())
+                        .withValueSerde(bookingSerde));
+
+        bookings.toStream()
+                .filter((bookingId, booking) -> booking != null && booking.getCustomerId() != null)
+                .selectKey((bookingId, booking) -> new CustomerBookingKey(booking.getCustomerId(), bookingId))
+                .repartition(Repartitioned.<CustomerBookingKey, Booking>as("customer-bookings")
+                        .withKeySerde(CustomerBookingKey.SERDE)
+                        .withValueSerde(bookingSerde)
+                        .withStreamPartitioner(CustomerBookingKey.partitioner()))
+                .toTable(Materialized.<CustomerBookingKey, Booking>as(storeSupplier(CUSTOMER_BOOKINGS_STORE, inMemory))
+                        .withKeySerde(CustomerBookingKey.SERDE)
+                        .withValueSerde(bookingSerde));
+
+        return bookings;
+    }
+
+    /**
+     * Records of both topics may arrive in any order, so a record only replaces the current state if it is a legal
+     * {@link com.devonfw.shipkafka.common.domain.datatypes.BookingStatus} transition.
+     */
+    static Booking latest(Booking current, Booking next) {
+        try {
+            current.getBookingStatus().transition(next.getBookingStatus());
+            return next;
+        } catch (IllegalArgumentException e) {
+            return current;
+        }
+    }
+
+    private static Booking toBooking(BookingDecidedEvent event) {
+        return new Booking(event.getBookingId(), null, null, event.getContainerCount(), event.getShipId(), event.getCustomerId(),
+                event.getBookingStatus(), null);
+    }
+
+    private static <T> Serde<T> eventSerde(Class<T> type) {
+        return Serdes.serdeFrom(new EventSerializer<>(), new EventDeserializer<>(new JsonDeserializer<>(type).ignoreTypeHeaders()));
+    }
+
+    private static KeyValueBytesStoreSupplier storeSupplier(String name, boolean inMemory) {
+        return inMemory ? Stores.inMemoryKeyValueStore(name) : Stores.persistentKeyValueStore(name);
+    }
+}
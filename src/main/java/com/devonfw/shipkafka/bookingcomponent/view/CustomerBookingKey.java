@@ -0,0 +1,49 @@
+package com.devonfw.shipkafka.bookingcomponent.view;
+
+import lombok.Value;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.streams.processor.StreamPartitioner;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Key of one booking of a customer in the view materialized by the {@link BookingViewTopology}. It is serialized as the
+ * customer id followed by the booking id, both big-endian, so the bookings of a customer are adjacent in the store and
+ * read with a range query. The keys are partitioned by the customer id only, so all bookings of a customer are in the
+ * same partition.
+ */
+@Value
+public class CustomerBookingKey {
+
+    static final Serde<CustomerBookingKey> SERDE = Serdes.serdeFrom(
+            (topic, key) -> key == null ? null : ByteBuffer.allocate(2 * Long.BYTES).putLong(key.customerId).putLong(key.bookingId).array(),
+            (topic, bytes) -> {
+                if (bytes == null) {
+                    return null;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                return new CustomerBookingKey(buffer.getLong(), buffer.getLong());
+            });
+
+    Long customerId;
+
+    Long bookingId;
+
+    /**
+     * Partitions like the default partitioner does for the customer id alone.
+     */
+    static <V> StreamPartitioner<CustomerBookingKey, V> partitioner() {
+        return (topic, key, value, numPartitions) ->
+                Utils.toPositive(Utils.murmur2(Serdes.Long().serializer().serialize(topic, key.customerId))) % numPartitions;
+    }
+
+    static CustomerBookingKey first(Long customerId) {
+        return new CustomerBookingKey(customerId, 0L);
+    }
+
+    static CustomerBookingKey last(Long customerId) {
+        return new CustomerBookingKey(customerId, Long.MAX_VALUE);
+    }
+}
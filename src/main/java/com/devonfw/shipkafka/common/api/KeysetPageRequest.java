@@ -0,0 +1,20 @@
+package com.devonfw.shipkafka.common.api;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Page requests for keyset pagination: clients pass the id of the last entity they received as {@code after} and
+ * always read the first page behind it, so the database seeks the primary key index instead of skipping an offset.
+ */
+public final class KeysetPageRequest {
+
+    public static final int MAX_SIZE = 1000;
+
+    private KeysetPageRequest() {
+    }
+
+    public static Pageable of(int size) {
+        return PageRequest.of(0, Math.max(1, Math.min(size, MAX_SIZE)));
+    }
+}
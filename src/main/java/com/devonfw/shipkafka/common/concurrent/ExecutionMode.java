@@ -0,0 +1,17 @@
+package com.devonfw.shipkafka.common.concurrent;
+
+/**
+ * Threads that run request handling and listener record processing, see {@link ExecutionThreads}.
+ */
+public enum ExecutionMode {
+
+    /**
+     * Pooled platform threads, as configured by Spring Boot.
+     */
+    PLATFORM,
+
+    /**
+     * A new virtual thread per request and per listener consumer. Needs Java 21, otherwise platform threads are used.
+     */
+    VIRTUAL
+}
@@ -0,0 +1,100 @@
+package com.devonfw.shipkafka.common.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads for the {@link ExecutionMode} of {@code shipkafka.execution.mode}. The application is built for
+ * Java 17, so virtual threads are created reflectively. On runtimes without them the mode falls back to
+ * {@link ExecutionMode#PLATFORM}.
+ */
+@Component
+public class ExecutionThreads {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExecutionThreads.class);
+
+    private static final Method OF_VIRTUAL = findOfVirtual();
+
+    private final ExecutionMode mode;
+
+    @Autowired
+    public ExecutionThreads(@Value("${shipkafka.execution.mode:platform}") ExecutionMode mode) {
+        if (mode == ExecutionMode.VIRTUAL && !isVirtualSupported()) {
+            LOG.warn("Virtual threads need Java 21, running on {} with platform threads", Runtime.version());
+            mode = ExecutionMode.PLATFORM;
+        }
+        this.mode = mode;
+    }
+
+    public static boolean isVirtualSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * The effective mode.
+     */
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    public boolean isVirtual() {
+        return mode == ExecutionMode.VIRTUAL;
+    }
+
+    public ThreadFactory newThreadFactory(String namePrefix) {
+        if (isVirtual()) {
+            return virtualThreadFactory(namePrefix);
+        }
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> new Thread(runnable, namePrefix + count.incrementAndGet());
+    }
+
+    /**
+     * Runs tasks on a new virtual thread each, or on a pool of {@code platformThreads} platform threads.
+     */
+    public ExecutorService newExecutor(String namePrefix, int platformThreads) {
+        if (isVirtual()) {
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.SECONDS, new SynchronousQueue<>(), newThreadFactory(namePrefix));
+        }
+        return Executors.newFixedThreadPool(platformThreads, newThreadFactory(namePrefix));
+    }
+
+    /**
+     * Executor of Spring, e.g. for listener containers, that starts a new thread per task.
+     */
+    public AsyncListenableTaskExecutor newTaskExecutor(String namePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(namePrefix);
+        executor.setThreadFactory(newThreadFactory(namePrefix));
+        return executor;
+    }
+
+    private static ThreadFactory virtualThreadFactory(String namePrefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = builderType.getMethod("name", String.class, long.class).invoke(OF_VIRTUAL.invoke(null), namePrefix, 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create virtual thread factory", e);
+        }
+    }
+
+    private static Method findOfVirtual() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            // preview releases declare the method but refuse to call it without --enable-preview
+            ofVirtual.invoke(null);
+            return ofVirtual;
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.devonfw.shipkafka.common.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches for data that rarely changes, backed by Caffeine as configured by {@code spring.cache}. Spring Boot publishes
+ * their statistics as the meters {@code cache.gets} with the tag {@code result=hit|miss}, {@code cache.puts} and
+ * {@code cache.evictions}, tagged with the cache name.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    /**
+     * Ships by id, see {@code ShipRepository#findCachedById}. Entries are evicted when a ship is updated.
+     */
+    public static final String SHIPS = "ships";
+
+    /**
+     * Ids of existing customers, see {@code CustomerRepository#existsCachedById}. Entries are evicted when a customer is
+     * deleted.
+     */
+    public static final String CUSTOMERS = "customers";
+}
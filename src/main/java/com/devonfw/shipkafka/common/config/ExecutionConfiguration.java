@@ -0,0 +1,41 @@
+package com.devonfw.shipkafka.common.config;
+
+import com.devonfw.shipkafka.common.concurrent.ExecutionThreads;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Runs request handling on the threads of the {@link com.devonfw.shipkafka.common.concurrent.ExecutionMode}: in the
+ * virtual mode Tomcat processes every request and Spring MVC every asynchronous handler on a new virtual thread. The
+ * listener containers are configured in {@link KafkaConfiguration}.
+ */
+@Configuration
+public class ExecutionConfiguration implements WebMvcConfigurer {
+
+    private final ExecutionThreads executionThreads;
+
+    @Autowired
+    public ExecutionConfiguration(ExecutionThreads executionThreads) {
+        this.executionThreads = executionThreads;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> executionModeProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (executionThreads.isVirtual()) {
+                protocolHandler.setExecutor(executionThreads.newExecutor("http-", 0));
+            }
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (executionThreads.isVirtual()) {
+            configurer.setTaskExecutor(executionThreads.newTaskExecutor("mvc-async-"));
+        }
+    }
+}
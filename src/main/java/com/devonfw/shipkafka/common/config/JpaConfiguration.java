@@ -0,0 +1,28 @@
+package com.devonfw.shipkafka.common.config;
+
+import com.devonfw.shipkafka.common.domain.PooledLoSequenceGenerator;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.Map;
+
+@Configuration
+public class JpaConfiguration {
+
+    /**
+     * Passes the allocation sizes of {@code shipkafka.ids.allocation-size}, keyed by sequence name, to the
+     * {@link PooledLoSequenceGenerator}.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer allocationSizeHibernatePropertiesCustomizer(Environment environment) {
+        Map<String, Integer> allocationSizes = Binder.get(environment)
+                .bind("shipkafka.ids.allocation-size", Bindable.mapOf(String.class, Integer.class))
+                .orElse(Map.of());
+        return properties -> allocationSizes.forEach((sequence, allocationSize) ->
+                properties.put(PooledLoSequenceGenerator.ALLOCATION_SIZE_PREFIX + sequence, allocationSize));
+    }
+}
@@ -0,0 +1,101 @@
+package com.devonfw.shipkafka.common.config;
+
+import com.devonfw.shipkafka.common.concurrent.ExecutionThreads;
+import com.devonfw.shipkafka.common.messaging.KafkaTransactions;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+
+import java.util.Properties;
+
+@Configuration
+public class KafkaConfiguration {
+
+    /**
+     * Id of the per-record listener on the "bookings" topic, see {@code ShipRestController#onBookingEvent}.
+     */
+    public static final String BOOKINGS_LISTENER_ID = "bookings";
+
+    /**
+     * Id of the batch listener on the "bookings" topic, see {@code ShipRestController#onBookingEvents}.
+     */
+    public static final String BOOKINGS_BATCH_LISTENER_ID = "bookings-batch";
+
+    @Value("${shipkafka.bookings.batch-listener.enabled:false}")
+    private boolean bookingsBatchListenerEnabled;
+
+    @Value("${shipkafka.bookings.transactional.enabled:false}")
+    private boolean bookingsTransactionalEnabled;
+
+    /**
+     * Replaces the default factory of Spring Boot. When the batch or the transactional listener consumes the "bookings"
+     * topic, the per-record listener must not be started, while its retry topic listeners created by {@code @RetryableTopic} keep running.
+     * In the virtual {@link com.devonfw.shipkafka.common.concurrent.ExecutionMode} every consumer, which also
+     * processes the records, runs on a virtual thread.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> kafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer, ConsumerFactory<Object, Object> consumerFactory,
+            ExecutionThreads executionThreads) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        if (executionThreads.isVirtual()) {
+            factory.getContainerProperties().setConsumerTaskExecutor(executionThreads.newTaskExecutor("kafka-"));
+        }
+        factory.setContainerCustomizer(container -> {
+            if ((bookingsBatchListenerEnabled || bookingsTransactionalEnabled) && BOOKINGS_LISTENER_ID.equals(container.getListenerId())) {
+                container.setAutoStartup(false);
+            }
+        });
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer, ConsumerFactory<Object, Object> consumerFactory,
+            ExecutionThreads executionThreads) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        if (executionThreads.isVirtual()) {
+            factory.getContainerProperties().setConsumerTaskExecutor(executionThreads.newTaskExecutor("kafka-batch-"));
+        }
+        factory.setBatchListener(true);
+        factory.setContainerCustomizer(container -> {
+            if (bookingsTransactionalEnabled && BOOKINGS_BATCH_LISTENER_ID.equals(container.getListenerId())) {
+                container.setAutoStartup(false);
+            }
+        });
+        return factory;
+    }
+
+    /**
+     * Batch listeners that consume, process and produce exactly once. Each poll of up to
+     * {@code shipkafka.bookings.transactional.batch-size} records runs in one Kafka transaction of
+     * {@link KafkaTransactions}, which also commits the offsets of the poll with {@code sendOffsetsToTransaction}. The
+     * listener commits its JPA transaction before it returns, so the database commits first and the Kafka transaction
+     * last (best-effort one-phase commit). All consumers read committed records only, see {@code spring.kafka.consumer},
+     * so output of aborted transactions is never seen.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> transactionalBatchListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer, ConsumerFactory<Object, Object> consumerFactory,
+            ExecutionThreads executionThreads, KafkaTransactions kafkaTransactions,
+            @Value("${shipkafka.bookings.transactional.batch-size:100}") int batchSize) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        if (executionThreads.isVirtual()) {
+            factory.getContainerProperties().setConsumerTaskExecutor(executionThreads.newTaskExecutor("kafka-tx-"));
+        }
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setTransactionManager(kafkaTransactions.getTransactionManager());
+
+        Properties consumerProperties = new Properties();
+        consumerProperties.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchSize));
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerProperties);
+        return factory;
+    }
+}
@@ -0,0 +1,37 @@
+package com.devonfw.shipkafka.common.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+/**
+ * Supports {@code spring.main.lazy-initialization} of the "fast-boot" profile. Beans with Kafka listeners, scheduled
+ * tasks or event listeners are only registered with their infrastructure when they are created, so they stay eager.
+ * All others, e.g. REST controllers, are created on first use.
+ */
+@Configuration
+public class StartupConfiguration {
+
+    private static final List<Class<? extends Annotation>> EAGER_ANNOTATIONS = List.of(KafkaListener.class, Scheduled.class, EventListener.class);
+
+    @Bean
+    public static LazyInitializationExcludeFilter listenerLazyInitializationExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> beanType != null && hasListenerMethods(beanType);
+    }
+
+    private static boolean hasListenerMethods(Class<?> beanType) {
+        if (AnnotatedElementUtils.hasAnnotation(beanType, KafkaListener.class)) {
+            return true;
+        }
+        return !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Boolean>) method ->
+                EAGER_ANNOTATIONS.stream().anyMatch(annotation -> AnnotatedElementUtils.hasAnnotation(method, annotation)) ? true : null).isEmpty();
+    }
+}
@@ -0,0 +1,44 @@
+package com.devonfw.shipkafka.common.domain;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Sequence generator with the pooled-lo optimizer: one call of the sequence reserves a block of ids, which are then
+ * assigned from memory. The block size of each sequence is set by {@code shipkafka.ids.allocation-size.<sequence>},
+ * see {@code JpaConfiguration}. It is also the increment of the sequence, so changing it for an existing database
+ * needs the sequence to be altered as well.
+ * <pre>
+ * &#64;GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ship_seq")
+ * &#64;GenericGenerator(name = "ship_seq", strategy = PooledLoSequenceGenerator.STRATEGY,
+ *         parameters = &#64;Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "ship_seq"))
+ * </pre>
+ */
+public class PooledLoSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY = "com.devonfw.shipkafka.common.domain.PooledLoSequenceGenerator";
+
+    /**
+     * Prefix of the Hibernate settings with the allocation size per sequence name.
+     */
+    public static final String ALLOCATION_SIZE_PREFIX = "shipkafka.ids.allocation-size.";
+
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        int allocationSize = ConfigurationHelper.getInt(ALLOCATION_SIZE_PREFIX + params.getProperty(SEQUENCE_PARAM), settings, DEFAULT_ALLOCATION_SIZE);
+        params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+}
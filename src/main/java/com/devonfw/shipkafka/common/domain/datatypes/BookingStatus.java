@@ -1,5 +1,7 @@
 package com.devonfw.shipkafka.common.domain.datatypes;
 
+import java.util.List;
+
 public enum BookingStatus {
     REQUESTED, CONFIRMED(REQUESTED), CANCELED(REQUESTED, CONFIRMED);
 
@@ -9,13 +11,26 @@ public enum BookingStatus {
         this.previousStates = state;
     }
 
+    /**
+     * The states a booking may be in to {@link #transition(BookingStatus)} to this state.
+     */
+    public List<BookingStatus> getPreviousStates() {
+        return List.of(previousStates);
+    }
 
-    public BookingStatus transition(BookingStatus newState) {
+    public boolean canTransition(BookingStatus newState) {
         for (BookingStatus previous : newState.previousStates) {
             if (this == previous) {
-                return newState;
+                return true;
             }
         }
+        return false;
+    }
+
+    public BookingStatus transition(BookingStatus newState) {
+        if (canTransition(newState)) {
+            return newState;
+        }
         throw new IllegalArgumentException(String.format("Illegal state transition from %s to %s.", this, newState));
     }
 }
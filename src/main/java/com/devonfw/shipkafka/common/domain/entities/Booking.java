@@ -1,8 +1,13 @@
 package com.devonfw.shipkafka.common.domain.entities;
 
+import com.devonfw.shipkafka.common.domain.PooledLoSequenceGenerator;
 import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
 import com.devonfw.shipkafka.bookingcomponent.dtos.BookingCreateDTO;
+import com.devonfw.shipkafka.common.messaging.ShipRoutable;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import java.util.Date;
@@ -12,12 +17,15 @@ import java.util.Date;
 @Setter
 @ToString
 @NoArgsConstructor
-public class Booking {
+@Table(indexes = @Index(name = "idx_booking_customer_id", columnList = "customer_id"))
+public class Booking implements ShipRoutable {
 
     @Setter(AccessLevel.NONE)
-    private final Date createdOn = new Date();
+    private Date createdOn = new Date();
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @GenericGenerator(name = "booking_seq", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "booking_seq"))
     private Long id;
     private Date lastUpdatedOn;
 
@@ -25,6 +33,9 @@ public class Booking {
 
     private Long shipId;
 
+    @Column(name = "customer_id")
+    private Long customerId;
+
     @Setter(AccessLevel.NONE)
     private BookingStatus bookingStatus = BookingStatus.REQUESTED;
 
@@ -38,6 +49,21 @@ public class Booking {
         this.lastUpdatedOn = new Date();
     }
 
+    /**
+     * Restores a booking from its events, see {@code BookingViewTopology}.
+     */
+    public Booking(Long id, Date createdOn, Date lastUpdatedOn, int containerCount, Long shipId, Long customerId,
+                   BookingStatus bookingStatus, Long version) {
+        this.id = id;
+        this.createdOn = createdOn;
+        this.lastUpdatedOn = lastUpdatedOn;
+        this.containerCount = containerCount;
+        this.shipId = shipId;
+        this.customerId = customerId;
+        this.bookingStatus = bookingStatus;
+        this.version = version;
+    }
+
 //    public static Booking of(BookingCreateDTO bookingCreateDTO) {
 //        return new Booking(bookingCreateDTO.shipId, bookingCreateDTO.getContainerCount());
 //    }
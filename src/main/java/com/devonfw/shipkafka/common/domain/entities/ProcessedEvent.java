@@ -0,0 +1,49 @@
+package com.devonfw.shipkafka.common.domain.entities;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Event that a consumer has processed, see {@link com.devonfw.shipkafka.common.messaging.IdempotentConsumer}. The id
+ * is assigned, so {@link #isNew()} tells Spring Data to insert without looking the row up first. Consumers that must
+ * repeat their output for a redelivered event store the result of processing it, see
+ * {@link com.devonfw.shipkafka.common.messaging.IdempotentConsumer#findResults}.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = @Index(name = "idx_processed_event_processed_on", columnList = "processedOn"))
+public class ProcessedEvent implements Persistable<String> {
+
+    @Id
+    private String id;
+
+    private Date processedOn;
+
+    private String result;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private boolean isNew;
+
+    public ProcessedEvent(String id) {
+        this(id, null);
+    }
+
+    public ProcessedEvent(String id, String result) {
+        this.id = id;
+        this.processedOn = new Date();
+        this.result = result;
+        this.isNew = true;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+}
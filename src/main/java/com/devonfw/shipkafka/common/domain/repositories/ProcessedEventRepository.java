@@ -0,0 +1,18 @@
+package com.devonfw.shipkafka.common.domain.repositories;
+
+import com.devonfw.shipkafka.common.domain.entities.ProcessedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+
+@Repository
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, String> {
+
+    @Modifying
+    @Query("DELETE FROM ProcessedEvent e WHERE e.processedOn < :before")
+    int deleteProcessedBefore(@Param("before") Date before);
+}
@@ -0,0 +1,37 @@
+package com.devonfw.shipkafka.common.events;
+
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.messaging.ShipRoutable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * The ship component confirmed or canceled a booking, published to "ship-bookings". It repeats the fields of the
+ * {@link BookingRequestedEvent}, so consumers of "ship-bookings" do not depend on having seen the request.
+ */
+@Value
+@Builder
+@Jacksonized
+@AllArgsConstructor
+public class BookingDecidedEvent implements ShipRoutable {
+
+    Long bookingId;
+
+    Long customerId;
+
+    Long shipId;
+
+    int containerCount;
+
+    BookingStatus bookingStatus;
+
+    /**
+     * Identifies the decision, see {@link com.devonfw.shipkafka.common.messaging.IdempotentConsumer}. A booking is
+     * decided at most once per status, so repeated decisions with the same status are duplicates.
+     */
+    public String eventId() {
+        return "decided-" + bookingId + "-" + bookingStatus;
+    }
+}
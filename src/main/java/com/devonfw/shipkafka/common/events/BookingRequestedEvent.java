@@ -0,0 +1,37 @@
+package com.devonfw.shipkafka.common.events;
+
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.messaging.ShipRoutable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * A customer requested a booking, published by the booking component to "bookings".
+ */
+@Value
+@Builder
+@Jacksonized
+@AllArgsConstructor
+public class BookingRequestedEvent implements ShipRoutable {
+
+    Long bookingId;
+
+    Long customerId;
+
+    Long shipId;
+
+    int containerCount;
+
+    /**
+     * Identifies the request, see {@link com.devonfw.shipkafka.common.messaging.IdempotentConsumer}.
+     */
+    public String eventId() {
+        return "requested-" + bookingId;
+    }
+
+    public BookingDecidedEvent decide(BookingStatus bookingStatus) {
+        return new BookingDecidedEvent(bookingId, customerId, shipId, containerCount, bookingStatus);
+    }
+}
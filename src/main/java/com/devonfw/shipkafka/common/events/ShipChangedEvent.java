@@ -0,0 +1,22 @@
+package com.devonfw.shipkafka.common.events;
+
+import com.devonfw.shipkafka.common.messaging.ShipRoutable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Change of a ship made through the REST API, which the node owning the ship applies to its capacity ledger.
+ * {@code availableContainers} is null if the capacity was not changed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShipChangedEvent implements ShipRoutable {
+
+    private Long shipId;
+
+    private Integer availableContainers;
+
+    private boolean damaged;
+}
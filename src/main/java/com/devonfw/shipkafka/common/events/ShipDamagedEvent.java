@@ -1,5 +1,6 @@
 package com.devonfw.shipkafka.common.events;
 
+import com.devonfw.shipkafka.common.messaging.ShipRoutable;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -7,7 +8,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class ShipDamagedEvent {
+public class ShipDamagedEvent implements ShipRoutable {
 
     private Long shipId;
 }
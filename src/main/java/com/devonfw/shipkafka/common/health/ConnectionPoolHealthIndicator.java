@@ -0,0 +1,63 @@
+package com.devonfw.shipkafka.common.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Out of service while more than {@code shipkafka.health.connection-pool.max-pending-threads} threads wait for a
+ * connection of the Hikari pool, i.e. every connection is in use and requests queue up for the database. Unknown for
+ * other pools, and until the pool was started.
+ */
+@Component
+public class ConnectionPoolHealthIndicator implements HealthIndicator {
+
+    private static final String PENDING = "pending";
+
+    private final HikariDataSource hikariDataSource;
+
+    private final int maxPendingThreads;
+
+    private final OverloadThreshold threshold;
+
+    @Autowired
+    public ConnectionPoolHealthIndicator(DataSource dataSource,
+                                         @Value("${shipkafka.health.connection-pool.max-pending-threads:10}") int maxPendingThreads,
+                                         @Value("${shipkafka.health.recover-ratio:0.5}") double recoverRatio) {
+        this.hikariDataSource = unwrap(dataSource);
+        this.maxPendingThreads = maxPendingThreads;
+        this.threshold = new OverloadThreshold(recoverRatio);
+    }
+
+    private static HikariDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Health health() {
+        HikariPoolMXBean pool = hikariDataSource == null ? null : hikariDataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return Health.unknown().build();
+        }
+        int pending = pool.getThreadsAwaitingConnection();
+        Health.Builder builder = threshold.isOverloaded(PENDING, pending, maxPendingThreads) ? Health.outOfService() : Health.up();
+        return builder
+                .withDetail("active", pool.getActiveConnections())
+                .withDetail("idle", pool.getIdleConnections())
+                .withDetail("max", hikariDataSource.getMaximumPoolSize())
+                .withDetail(PENDING, pending)
+                .withDetail("maxPending", maxPendingThreads)
+                .build();
+    }
+}
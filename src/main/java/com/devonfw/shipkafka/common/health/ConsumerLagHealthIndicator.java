@@ -0,0 +1,58 @@
+package com.devonfw.shipkafka.common.health;
+
+import com.devonfw.shipkafka.common.messaging.ConsumerLagMonitor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.OptionalLong;
+
+/**
+ * Out of service while a running listener is more than {@code shipkafka.health.consumer-lag.max-records} records
+ * behind on the partitions assigned to this instance, as sampled by the {@link ConsumerLagMonitor}, so only the
+ * instances behind leave the load balancer, not the whole group. Listeners of retry topics are covered by the
+ * {@link RetryTopicHealthIndicator}. Listeners whose lag is unknown, e.g. while the broker cannot be reached, do not
+ * count.
+ */
+@Component
+public class ConsumerLagHealthIndicator implements HealthIndicator {
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+
+    private final ConsumerLagMonitor consumerLagMonitor;
+
+    private final long maxRecords;
+
+    private final OverloadThreshold threshold;
+
+    @Autowired
+    public ConsumerLagHealthIndicator(KafkaListenerEndpointRegistry listenerRegistry, ConsumerLagMonitor consumerLagMonitor,
+                                      @Value("${shipkafka.health.consumer-lag.max-records:10000}") long maxRecords,
+                                      @Value("${shipkafka.health.recover-ratio:0.5}") double recoverRatio) {
+        this.listenerRegistry = listenerRegistry;
+        this.consumerLagMonitor = consumerLagMonitor;
+        this.maxRecords = maxRecords;
+        this.threshold = new OverloadThreshold(recoverRatio);
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = Health.up().withDetail("maxRecords", maxRecords);
+        boolean overloaded = false;
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            if (!container.isRunning() || ConsumerLagMonitor.isRetryListener(container)) {
+                continue;
+            }
+            OptionalLong lag = consumerLagMonitor.getAssignedLag(container);
+            if (lag.isPresent()) {
+                builder.withDetail(container.getListenerId(), lag.getAsLong());
+                overloaded |= threshold.isOverloaded(container.getListenerId(), lag.getAsLong(), maxRecords);
+            }
+        }
+        return overloaded ? builder.outOfService().build() : builder.build();
+    }
+}
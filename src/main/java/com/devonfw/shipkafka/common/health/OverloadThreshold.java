@@ -0,0 +1,27 @@
+package com.devonfw.shipkafka.common.health;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Threshold with hysteresis: a value is overloaded once it exceeds its maximum, and stays overloaded until it falls
+ * below {@code shipkafka.health.recover-ratio} of the maximum. An instance that sheds traffic while it catches up thus
+ * does not flap between ready and not ready. The state is kept per key, e.g. per listener.
+ */
+class OverloadThreshold {
+
+    private final double recoverRatio;
+
+    private final Map<String, Boolean> overloaded = new ConcurrentHashMap<>();
+
+    OverloadThreshold(double recoverRatio) {
+        this.recoverRatio = recoverRatio;
+    }
+
+    boolean isOverloaded(String key, double value, double max) {
+        boolean wasOverloaded = overloaded.getOrDefault(key, false);
+        boolean isOverloaded = value > max || (wasOverloaded && value > max * recoverRatio);
+        overloaded.put(key, isOverloaded);
+        return isOverloaded;
+    }
+}
@@ -0,0 +1,59 @@
+package com.devonfw.shipkafka.common.health;
+
+import com.devonfw.shipkafka.common.messaging.ConsumerLagMonitor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.OptionalLong;
+
+/**
+ * Out of service while more than {@code shipkafka.health.retry-topics.max-records} records wait in the partitions of
+ * the retry and dead letter topics assigned to this instance, which means its requests are failing faster than they
+ * are retried. Listeners whose lag is unknown do not count.
+ */
+@Component
+public class RetryTopicHealthIndicator implements HealthIndicator {
+
+    private static final String TOTAL = "total";
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+
+    private final ConsumerLagMonitor consumerLagMonitor;
+
+    private final long maxRecords;
+
+    private final OverloadThreshold threshold;
+
+    @Autowired
+    public RetryTopicHealthIndicator(KafkaListenerEndpointRegistry listenerRegistry, ConsumerLagMonitor consumerLagMonitor,
+                                     @Value("${shipkafka.health.retry-topics.max-records:1000}") long maxRecords,
+                                     @Value("${shipkafka.health.recover-ratio:0.5}") double recoverRatio) {
+        this.listenerRegistry = listenerRegistry;
+        this.consumerLagMonitor = consumerLagMonitor;
+        this.maxRecords = maxRecords;
+        this.threshold = new OverloadThreshold(recoverRatio);
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = Health.up().withDetail("maxRecords", maxRecords);
+        long total = 0;
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            if (!container.isRunning() || !ConsumerLagMonitor.isRetryListener(container)) {
+                continue;
+            }
+            OptionalLong lag = consumerLagMonitor.getAssignedLag(container);
+            if (lag.isPresent()) {
+                builder.withDetail(container.getListenerId(), lag.getAsLong());
+                total += lag.getAsLong();
+            }
+        }
+        builder.withDetail(TOTAL, total);
+        return threshold.isOverloaded(TOTAL, total, maxRecords) ? builder.outOfService().build() : builder.build();
+    }
+}
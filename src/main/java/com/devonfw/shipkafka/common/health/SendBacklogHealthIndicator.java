@@ -0,0 +1,57 @@
+package com.devonfw.shipkafka.common.health;
+
+import com.devonfw.shipkafka.bookingcomponent.gateway.OutboxRelay;
+import com.devonfw.shipkafka.common.messaging.KafkaSendPipeline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Out of service while the records in flight of the {@link KafkaSendPipeline} exceed
+ * {@code shipkafka.health.send-backlog.max-in-flight-ratio} of {@code shipkafka.kafka.send.max-in-flight}, so sends are
+ * about to block, or while the oldest message of the {@link OutboxRelay} is older than
+ * {@code shipkafka.health.send-backlog.max-outbox-lag-ms}.
+ */
+@Component
+public class SendBacklogHealthIndicator implements HealthIndicator {
+
+    private final KafkaSendPipeline sendPipeline;
+
+    private final OutboxRelay outboxRelay;
+
+    private final double maxInFlightRatio;
+
+    private final long maxOutboxLagMillis;
+
+    private final OverloadThreshold threshold;
+
+    @Autowired
+    public SendBacklogHealthIndicator(KafkaSendPipeline sendPipeline, OutboxRelay outboxRelay,
+                                      @Value("${shipkafka.health.send-backlog.max-in-flight-ratio:0.8}") double maxInFlightRatio,
+                                      @Value("${shipkafka.health.send-backlog.max-outbox-lag-ms:30000}") long maxOutboxLagMillis,
+                                      @Value("${shipkafka.health.recover-ratio:0.5}") double recoverRatio) {
+        this.sendPipeline = sendPipeline;
+        this.outboxRelay = outboxRelay;
+        this.maxInFlightRatio = maxInFlightRatio;
+        this.maxOutboxLagMillis = maxOutboxLagMillis;
+        this.threshold = new OverloadThreshold(recoverRatio);
+    }
+
+    @Override
+    public Health health() {
+        int inFlight = sendPipeline.getInFlight();
+        long outboxLagMillis = outboxRelay.getLagMillis();
+        boolean sendOverloaded = threshold.isOverloaded("inFlight", inFlight, sendPipeline.getMaxInFlight() * maxInFlightRatio);
+        boolean outboxOverloaded = threshold.isOverloaded("outboxLag", outboxLagMillis, maxOutboxLagMillis);
+
+        Health.Builder builder = sendOverloaded || outboxOverloaded ? Health.outOfService() : Health.up();
+        return builder
+                .withDetail("inFlight", inFlight)
+                .withDetail("maxInFlight", sendPipeline.getMaxInFlight())
+                .withDetail("outboxLagMs", outboxLagMillis)
+                .withDetail("maxOutboxLagMs", maxOutboxLagMillis)
+                .build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency from the REST request of a booking until its decision was applied, as
+ * {@code shipkafka.bookings.latency} tagged with the final status and the stage:
+ * <ul>
+ *     <li>outbox: from the request until it was sent to "bookings"</li>
+ *     <li>ship: from there until the ship component sent its decision, including retries</li>
+ *     <li>booking: from there until the booking component applied it</li>
+ *     <li>total: the whole way</li>
+ * </ul>
+ * The stages are also tagged on the current Sleuth span. If {@code shipkafka.latency.file} is set, each booking is
+ * appended to that file as JSON line with its trace id, so single slow bookings can be looked up in the traces.
+ */
+@Component
+public class BookingLatencyRecorder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BookingLatencyRecorder.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final Tracer tracer;
+
+    private final Duration[] serviceLevelObjectives;
+
+    private final BufferedWriter fileSink;
+
+    @Autowired
+    public BookingLatencyRecorder(MeterRegistry meterRegistry, Tracer tracer,
+                                  @Value("${shipkafka.latency.file:}") String file,
+                                  @Value("${shipkafka.latency.slo-ms:}") long[] serviceLevelObjectivesMillis) throws IOException {
+        this.meterRegistry = meterRegistry;
+        this.tracer = tracer;
+        this.serviceLevelObjectives = Arrays.stream(serviceLevelObjectivesMillis).mapToObj(Duration::ofMillis).toArray(Duration[]::new);
+        this.fileSink = file.isEmpty() ? null : Files.newBufferedWriter(Path.of(file), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Records the booking if the record the current listener thread processes carries its {@link BookingTimeline}.
+     * Call it once the decision has been committed.
+     */
+    public void recordDecision(Long bookingId, BookingStatus bookingStatus) {
+        BookingTimelineInterceptor.currentTimeline().ifPresent(timeline -> record(bookingId, bookingStatus, timeline, System.currentTimeMillis()));
+    }
+
+    void record(Long bookingId, BookingStatus bookingStatus, BookingTimeline timeline, long processedAt) {
+        long outbox = timeline.getPublishedAt() - timeline.getRequestedAt();
+        long ship = timeline.getDecidedAt() - timeline.getPublishedAt();
+        long booking = processedAt - timeline.getDecidedAt();
+        long total = processedAt - timeline.getRequestedAt();
+        timer("outbox", bookingStatus).record(Math.max(0, outbox), TimeUnit.MILLISECONDS);
+        timer("ship", bookingStatus).record(Math.max(0, ship), TimeUnit.MILLISECONDS);
+        timer("booking", bookingStatus).record(Math.max(0, booking), TimeUnit.MILLISECONDS);
+        timer("total", bookingStatus).record(Math.max(0, total), TimeUnit.MILLISECONDS);
+
+        Span span = tracer.currentSpan();
+        if (span != null) {
+            span.tag("booking.latency.outbox", Long.toString(outbox));
+            span.tag("booking.latency.ship", Long.toString(ship));
+            span.tag("booking.latency.booking", Long.toString(booking));
+            span.tag("booking.latency.total", Long.toString(total));
+        }
+        if (fileSink != null) {
+            write(String.format("{\"bookingId\":%d,\"status\":\"%s\",\"requestedAt\":%d,\"publishedAt\":%d,\"decidedAt\":%d,\"processedAt\":%d,\"traceId\":%s}",
+                    bookingId, bookingStatus, timeline.getRequestedAt(), timeline.getPublishedAt(), timeline.getDecidedAt(), processedAt,
+                    span == null ? "null" : "\"" + span.context().traceId() + "\""));
+        }
+    }
+
+    private Timer timer(String stage, BookingStatus bookingStatus) {
+        return Timer.builder("shipkafka.bookings.latency")
+                .description("Time from the request of a booking until its decision was applied, per stage")
+                .tag("stage", stage)
+                .tag("status", bookingStatus.name())
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(serviceLevelObjectives)
+                .register(meterRegistry);
+    }
+
+    private synchronized void write(String line) {
+        try {
+            fileSink.write(line);
+            fileSink.newLine();
+        } catch (IOException e) {
+            LOG.warn("Could not write booking latency", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shipkafka.latency.file-flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (fileSink != null) {
+            try {
+                fileSink.flush();
+            } catch (IOException e) {
+                LOG.warn("Could not flush booking latencies", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (fileSink != null) {
+            fileSink.close();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import lombok.Value;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Timestamps of the hops of a booking from its REST request to its decision, read from a "ship-bookings" record. They
+ * travel in Kafka headers holding epoch millis:
+ * <ul>
+ *     <li>{@link #REQUESTED_AT}: the booking and its outbox message were stored, set by the outbox relay</li>
+ *     <li>{@link #PUBLISHED_AT}: the request was sent to "bookings", taken from the timestamp of that record by the
+ *     {@link BookingTimelineProducerInterceptor}</li>
+ * </ul>
+ * The timestamp of the "ship-bookings" record itself is the time of the decision.
+ */
+@Value
+public class BookingTimeline {
+
+    public static final String REQUESTED_AT = "shipkafka_requested_at";
+
+    public static final String PUBLISHED_AT = "shipkafka_published_at";
+
+    long requestedAt;
+
+    long publishedAt;
+
+    long decidedAt;
+
+    /**
+     * @return the timeline of the record, empty if it did not pass all hops, e.g. cancellations of the booking component
+     */
+    public static Optional<BookingTimeline> of(ConsumerRecord<?, ?> record) {
+        Long requestedAt = getTime(record.headers(), REQUESTED_AT);
+        Long publishedAt = getTime(record.headers(), PUBLISHED_AT);
+        if (requestedAt == null || publishedAt == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new BookingTimeline(requestedAt, publishedAt, record.timestamp()));
+    }
+
+    static Long getTime(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        return header == null ? null : Long.valueOf(new String(header.value(), StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Encodes the time as decimal string, so the headers stay readable in the console consumer.
+     */
+    public static byte[] toHeader(long epochMillis) {
+        return Long.toString(epochMillis).getBytes(StandardCharsets.US_ASCII);
+    }
+}
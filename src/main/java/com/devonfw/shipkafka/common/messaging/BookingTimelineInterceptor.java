@@ -0,0 +1,41 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Keeps the record a listener thread is processing, so records sent while processing it carry its
+ * {@link BookingTimeline} on, see {@link BookingTimelineProducerInterceptor}. Spring Boot applies it to the record
+ * listeners of the default container factory. Batch listeners do not forward the timeline.
+ */
+@Component
+public class BookingTimelineInterceptor implements RecordInterceptor<Object, Object> {
+
+    private static final ThreadLocal<ConsumerRecord<?, ?>> CURRENT_RECORD = new ThreadLocal<>();
+
+    static Optional<ConsumerRecord<?, ?>> currentRecord() {
+        return Optional.ofNullable(CURRENT_RECORD.get());
+    }
+
+    /**
+     * @return the timeline of the record the current thread is processing
+     */
+    public static Optional<BookingTimeline> currentTimeline() {
+        return currentRecord().flatMap(BookingTimeline::of);
+    }
+
+    @Override
+    public ConsumerRecord<Object, Object> intercept(ConsumerRecord<Object, Object> record) {
+        CURRENT_RECORD.set(record);
+        return record;
+    }
+
+    @Override
+    public void afterRecord(ConsumerRecord<Object, Object> record, Consumer<Object, Object> consumer) {
+        CURRENT_RECORD.remove();
+    }
+}
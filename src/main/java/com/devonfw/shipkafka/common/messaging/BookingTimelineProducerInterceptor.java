@@ -0,0 +1,55 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.header.Headers;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Copies the {@link BookingTimeline} headers of the record the sending thread is processing to the sent record, e.g.
+ * from a "bookings" record to the decision sent to "ship-bookings" or to its retry topic. The timestamp of a record
+ * without {@link BookingTimeline#PUBLISHED_AT} becomes its publication time. Registered with the producer by
+ * {@code spring.kafka.producer.properties.interceptor.classes}.
+ */
+public class BookingTimelineProducerInterceptor implements ProducerInterceptor<Object, Object> {
+
+    @Override
+    public ProducerRecord<Object, Object> onSend(ProducerRecord<Object, Object> record) {
+        Optional<ConsumerRecord<?, ?>> currentRecord = BookingTimelineInterceptor.currentRecord();
+        if (currentRecord.isEmpty()) {
+            return record;
+        }
+
+        Headers received = currentRecord.get().headers();
+        Long requestedAt = BookingTimeline.getTime(received, BookingTimeline.REQUESTED_AT);
+        if (requestedAt == null) {
+            return record;
+        }
+        Long publishedAt = BookingTimeline.getTime(received, BookingTimeline.PUBLISHED_AT);
+
+        Headers headers = record.headers();
+        if (headers.lastHeader(BookingTimeline.REQUESTED_AT) == null) {
+            headers.add(BookingTimeline.REQUESTED_AT, BookingTimeline.toHeader(requestedAt));
+        }
+        if (headers.lastHeader(BookingTimeline.PUBLISHED_AT) == null) {
+            headers.add(BookingTimeline.PUBLISHED_AT, BookingTimeline.toHeader(publishedAt != null ? publishedAt : currentRecord.get().timestamp()));
+        }
+        return record;
+    }
+
+    @Override
+    public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+}
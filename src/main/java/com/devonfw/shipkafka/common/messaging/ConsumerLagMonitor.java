@@ -0,0 +1,182 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes the consumer lag of every listener as {@code shipkafka.kafka.consumer.lag}, tagged with the listener id:
+ * the sum over the partitions of its topics of the end offset minus the offset committed by its group. The offsets
+ * are sampled every {@code shipkafka.metrics.consumer-lag.interval-ms}. The lag stays at its last value while the
+ * broker cannot be reached, and is -1 until it was sampled once.
+ * <p>
+ * The lag of a group is shared by all its instances. {@link #getAssignedLag(MessageListenerContainer)} narrows it to
+ * the partitions assigned to this instance.
+ */
+@Component
+public class ConsumerLagMonitor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConsumerLagMonitor.class);
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+
+    private final KafkaAdmin kafkaAdmin;
+
+    private final MeterRegistry meterRegistry;
+
+    private final long intervalMillis;
+
+    private final long timeoutMillis;
+
+    private final Map<String, AtomicLong> lagByListenerId = new ConcurrentHashMap<>();
+
+    private final Map<String, LagSample> samplesByListenerId = new ConcurrentHashMap<>();
+
+    private AdminClient adminClient;
+
+    @Autowired
+    public ConsumerLagMonitor(KafkaListenerEndpointRegistry listenerRegistry, KafkaAdmin kafkaAdmin, MeterRegistry meterRegistry,
+                              @Value("${shipkafka.metrics.consumer-lag.interval-ms:10000}") long intervalMillis,
+                              @Value("${shipkafka.metrics.consumer-lag.timeout-ms:5000}") long timeoutMillis) {
+        this.listenerRegistry = listenerRegistry;
+        this.kafkaAdmin = kafkaAdmin;
+        this.meterRegistry = meterRegistry;
+        this.intervalMillis = intervalMillis;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${shipkafka.metrics.consumer-lag.interval-ms:10000}")
+    public void update() {
+        Collection<MessageListenerContainer> containers = listenerRegistry.getListenerContainers();
+        containers.forEach(container -> lagByListenerId.computeIfAbsent(container.getListenerId(), listenerId -> register(listenerId, container.getGroupId())));
+
+        for (MessageListenerContainer container : containers) {
+            String[] topics = container.getContainerProperties().getTopics();
+            if (!container.isRunning() || container.getGroupId() == null || topics == null) {
+                continue;
+            }
+            try {
+                LagSample sample = new LagSample(lag(container.getGroupId(), Set.of(topics)), System.currentTimeMillis());
+                samplesByListenerId.put(container.getListenerId(), sample);
+                lagByListenerId.get(container.getListenerId()).set(sample.getTotal());
+            } catch (ExecutionException | TimeoutException e) {
+                // the broker is most likely unreachable, so the other listeners are not tried either
+                LOG.debug("Could not sample the lag of listener {}", container.getListenerId(), e);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * The lag of the partitions currently assigned to the listener's consumers on this instance. Empty while it is
+     * unknown: before the first sample, and when the last one is older than three sampling intervals, e.g. because the
+     * broker cannot be reached.
+     */
+    public OptionalLong getAssignedLag(MessageListenerContainer container) {
+        LagSample sample = samplesByListenerId.get(container.getListenerId());
+        Collection<TopicPartition> assignedPartitions = container.getAssignedPartitions();
+        if (sample == null || assignedPartitions == null || System.currentTimeMillis() - sample.sampledAt > 3 * intervalMillis) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(assignedPartitions.stream()
+                .mapToLong(partition -> sample.lagByPartition.getOrDefault(partition, 0L))
+                .sum());
+    }
+
+    /**
+     * Whether the listener consumes the retry or dead letter topics created by {@code @RetryableTopic}, whose lag is the
+     * number of records waiting for a retry rather than new work.
+     */
+    public static boolean isRetryListener(MessageListenerContainer container) {
+        String[] topics = container.getContainerProperties().getTopics();
+        return topics != null && Arrays.stream(topics).anyMatch(topic -> topic.contains("-retry") || topic.endsWith("-dlt"));
+    }
+
+    private AtomicLong register(String listenerId, String groupId) {
+        AtomicLong lag = new AtomicLong(-1);
+        Gauge.builder("shipkafka.kafka.consumer.lag", lag, AtomicLong::get)
+                .description("Records of the listener's topics not yet committed by its consumer group")
+                .tag("listener", listenerId)
+                .tag("group", String.valueOf(groupId))
+                .register(meterRegistry);
+        return lag;
+    }
+
+    private Map<TopicPartition, Long> lag(String groupId, Set<String> topics) throws ExecutionException, InterruptedException, TimeoutException {
+        Map<TopicPartition, OffsetAndMetadata> committed = adminClient().listConsumerGroupOffsets(groupId)
+                .partitionsToOffsetAndMetadata()
+                .get(timeoutMillis, TimeUnit.MILLISECONDS)
+                .entrySet().stream()
+                .filter(entry -> topics.contains(entry.getKey().topic()) && entry.getValue() != null)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        if (committed.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets = adminClient()
+                .listOffsets(committed.keySet().stream().collect(Collectors.toMap(Function.identity(), partition -> OffsetSpec.latest())))
+                .all()
+                .get(timeoutMillis, TimeUnit.MILLISECONDS);
+        Map<TopicPartition, Long> lag = new HashMap<>();
+        for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : committed.entrySet()) {
+            lag.put(entry.getKey(), Math.max(0, endOffsets.get(entry.getKey()).offset() - entry.getValue().offset()));
+        }
+        return lag;
+    }
+
+    private synchronized AdminClient adminClient() {
+        if (adminClient == null) {
+            adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+        }
+        return adminClient;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+
+    private static final class LagSample {
+
+        private final Map<TopicPartition, Long> lagByPartition;
+
+        private final long sampledAt;
+
+        private LagSample(Map<TopicPartition, Long> lagByPartition, long sampledAt) {
+            this.lagByPartition = lagByPartition;
+            this.sampledAt = sampledAt;
+        }
+
+        private long getTotal() {
+            return lagByPartition.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+}
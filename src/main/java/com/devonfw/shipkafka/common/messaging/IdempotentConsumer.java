@@ -0,0 +1,216 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import com.devonfw.shipkafka.common.domain.entities.ProcessedEvent;
+import com.devonfw.shipkafka.common.domain.repositories.ProcessedEventRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Drops events that a consumer has processed before, such as redeliveries after a rebalance and duplicates written by
+ * producer retries. An event is marked as processed in the processed_event table within the transaction that processes
+ * it, so a failed attempt stays unmarked and is processed again by the retry. Such transactions must roll back on
+ * checked exceptions as well. Recently processed events are also kept
+ * in a bounded in-memory cache, which drops most duplicates before they touch the database.
+ * <p>
+ * Events are identified by their consumer and an id derived from the event, e.g.
+ * {@link com.devonfw.shipkafka.common.events.BookingRequestedEvent#eventId()}. The duplicates and new events of every
+ * consumer are counted by {@code shipkafka.idempotency.events}.
+ */
+@Component
+public class IdempotentConsumer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IdempotentConsumer.class);
+
+    private final ProcessedEventRepository processedEventRepository;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Recently processed event keys, so most duplicates are dropped without a database lookup.
+     */
+    private final Cache<String, Boolean> cache;
+
+    private final long retentionMillis;
+
+    @Autowired
+    public IdempotentConsumer(ProcessedEventRepository processedEventRepository, MeterRegistry meterRegistry,
+                              @Value("${shipkafka.idempotency.cache-size:100000}") int cacheSize,
+                              @Value("${shipkafka.idempotency.cache-ttl-ms:600000}") long cacheTtlMillis,
+                              @Value("${shipkafka.idempotency.retention-ms:604800000}") long retentionMillis) {
+        this.processedEventRepository = processedEventRepository;
+        this.meterRegistry = meterRegistry;
+        this.cache = processedEventCache(cacheSize, cacheTtlMillis);
+        this.retentionMillis = retentionMillis;
+    }
+
+    static Cache<String, Boolean> processedEventCache(int maxSize, long ttlMillis) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Whether the event was processed before. Events that were not must be marked by
+     * {@link #markProcessed(String, String)} in the transaction that processes them.
+     */
+    public boolean isProcessed(String consumer, String eventId) {
+        String key = key(consumer, eventId);
+        if (isCached(consumer, key)) {
+            return true;
+        }
+        if (processedEventRepository.existsById(key)) {
+            cache.put(key, Boolean.TRUE);
+            count(consumer, false);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Batch alternative to {@link #isProcessed(String, String)}, which looks the events up with a single query. The
+     * returned events are marked by {@link #markProcessed(String, Collection)} once processed.
+     *
+     * @return the events that were not processed before, in their order
+     */
+    public <T> List<T> removeProcessed(String consumer, List<T> events, Function<T, String> eventId) {
+        Map<String, T> uncached = new LinkedHashMap<>();
+        for (T event : events) {
+            String key = key(consumer, eventId.apply(event));
+            if (!isCached(consumer, key) && uncached.putIfAbsent(key, event) != null) {
+                count(consumer, false);
+            }
+        }
+        if (uncached.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> stored = processedEventRepository.findAllById(uncached.keySet()).stream()
+                .map(ProcessedEvent::getId)
+                .collect(Collectors.toSet());
+        List<T> unprocessed = new ArrayList<>(uncached.size());
+        uncached.forEach((key, event) -> {
+            if (stored.contains(key)) {
+                cache.put(key, Boolean.TRUE);
+                count(consumer, false);
+            } else {
+                unprocessed.add(event);
+            }
+        });
+        return unprocessed;
+    }
+
+    /**
+     * Marks the event as processed within the current transaction. Call it before any other change of the transaction:
+     * if a concurrent consumer processes the same event, the insert fails and nothing else is changed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void markProcessed(String consumer, String eventId) {
+        markProcessed(consumer, List.of(eventId));
+    }
+
+    /**
+     * Marks the events as processed within the current transaction, see {@link #removeProcessed(String, List, Function)}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void markProcessed(String consumer, Collection<String> eventIds) {
+        save(consumer, eventIds.stream()
+                .map(eventId -> new ProcessedEvent(key(consumer, eventId)))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Marks the events as processed within the current transaction, together with the result of processing each of
+     * them, which may be null. The results are returned by {@link #findResults(String, Collection)}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void markProcessed(String consumer, Map<String, String> resultsByEventId) {
+        List<ProcessedEvent> processedEvents = new ArrayList<>(resultsByEventId.size());
+        resultsByEventId.forEach((eventId, result) -> processedEvents.add(new ProcessedEvent(key(consumer, eventId), result)));
+        save(consumer, processedEvents);
+    }
+
+    /**
+     * Looks up the stored results of the given events with a single query, bypassing the cache. A consumer whose output
+     * may have been lost after its transaction committed repeats the output of a redelivered event from its result.
+     *
+     * @return the results of the events that were processed before, by event id; the result itself may be null
+     */
+    public Map<String, String> findResults(String consumer, Collection<String> eventIds) {
+        Map<String, String> eventIdsByKey = new HashMap<>();
+        eventIds.forEach(eventId -> eventIdsByKey.put(key(consumer, eventId), eventId));
+
+        Map<String, String> results = new HashMap<>();
+        for (ProcessedEvent processedEvent : processedEventRepository.findAllById(eventIdsByKey.keySet())) {
+            results.put(eventIdsByKey.get(processedEvent.getId()), processedEvent.getResult());
+            count(consumer, false);
+        }
+        return results;
+    }
+
+    private void save(String consumer, List<ProcessedEvent> processedEvents) {
+        processedEventRepository.saveAll(processedEvents);
+        processedEventRepository.flush();
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                processedEvents.forEach(processedEvent -> {
+                    cache.put(processedEvent.getId(), Boolean.TRUE);
+                    count(consumer, true);
+                });
+            }
+        });
+    }
+
+    /**
+     * Deletes the processed events older than {@code shipkafka.idempotency.retention-ms}, which must exceed the time
+     * in which an event may be redelivered.
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${shipkafka.idempotency.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        int deleted = processedEventRepository.deleteProcessedBefore(new Date(System.currentTimeMillis() - retentionMillis));
+        if (deleted > 0) {
+            LOG.info("Deleted {} processed events", deleted);
+        }
+    }
+
+    private boolean isCached(String consumer, String key) {
+        if (cache.getIfPresent(key) != null) {
+            count(consumer, false);
+            return true;
+        }
+        return false;
+    }
+
+    private void count(String consumer, boolean processed) {
+        Counter.builder("shipkafka.idempotency.events")
+                .description("Events received by an idempotent consumer, by whether they were new or a duplicate")
+                .tag("consumer", consumer)
+                .tag("result", processed ? "new" : "duplicate")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String key(String consumer, String eventId) {
+        return consumer + ":" + eventId;
+    }
+}
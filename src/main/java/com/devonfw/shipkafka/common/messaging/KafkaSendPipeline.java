@@ -0,0 +1,252 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.ProducerListener;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import javax.annotation.PreDestroy;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends records with the {@link ProducerProfile} of their topic, as configured by
+ * {@code shipkafka.kafka.producer.topic-profiles}. Topics without a profile are sent by the auto-configured template.
+ * <p>
+ * At most {@code shipkafka.kafka.send.max-in-flight} records may wait for their acknowledgement. Callers block while
+ * that many are in flight, and a record is rejected with a {@link KafkaException} after
+ * {@code shipkafka.kafka.send.max-block-ms}. Rejected and failed records are counted by {@code shipkafka.kafka.send.errors},
+ * the records in flight are published as {@code shipkafka.kafka.send.in-flight}, and the time from the send until the
+ * broker acknowledged a record is recorded per topic as {@code shipkafka.kafka.send}. Transactions take their permits with
+ * {@link #reserve(String, int)} before they start, so they do not hold a database connection while they wait.
+ * <p>
+ * Records sent within a transaction are awaited before it commits, and a failed record rolls it back, so the state
+ * the record announces is not committed without it. The wait is bounded by the {@code delivery.timeout.ms} of the
+ * producer.
+ */
+@Component
+public class KafkaSendPipeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KafkaSendPipeline.class);
+
+    private final KafkaTemplate<Object, Object> defaultTemplate;
+
+    private final Map<ProducerProfile, KafkaTemplate<Object, Object>> templatesByProfile = new EnumMap<>(ProducerProfile.class);
+
+    private final Map<String, KafkaTemplate<Object, Object>> templatesByTopic = new HashMap<>();
+
+    private final Semaphore permits;
+
+    private final int maxInFlight;
+
+    private final long maxBlockMillis;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer waitTimer;
+
+    private final ThreadLocal<Reservation> reservations = new ThreadLocal<>();
+
+    @Autowired
+    public KafkaSendPipeline(KafkaTemplate<Object, Object> kafkaTemplate, ProducerFactory<Object, Object> producerFactory,
+                             ProducerListener<Object, Object> producerListener, Environment environment, MeterRegistry meterRegistry,
+                             @Value("${shipkafka.kafka.send.max-in-flight:10000}") int maxInFlight,
+                             @Value("${shipkafka.kafka.send.max-block-ms:5000}") long maxBlockMillis) {
+        this.defaultTemplate = kafkaTemplate;
+        this.permits = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.maxBlockMillis = maxBlockMillis;
+        this.meterRegistry = meterRegistry;
+
+        Map<String, ProducerProfile> topicProfiles = Binder.get(environment)
+                .bind("shipkafka.kafka.producer.topic-profiles", Bindable.mapOf(String.class, ProducerProfile.class))
+                .orElse(Map.of());
+        topicProfiles.forEach((topic, profile) -> {
+            templatesByTopic.put(topic, templatesByProfile.computeIfAbsent(profile, p -> {
+                KafkaTemplate<Object, Object> template = new KafkaTemplate<>(producerFactory, p.getProducerConfig());
+                template.setProducerListener(producerListener);
+                return template;
+            }));
+            LOG.info("Sending to {} with producer profile {}", topic, profile);
+        });
+
+        this.waitTimer = Timer.builder("shipkafka.kafka.send.wait")
+                .description("Time a send waited for a record in flight to be acknowledged")
+                .register(meterRegistry);
+        Gauge.builder("shipkafka.kafka.send.in-flight", this, KafkaSendPipeline::getInFlight)
+                .description("Records sent but not yet acknowledged by the broker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The templates of the profiles have producer factories of their own, copied from the auto-configured one, which
+     * are not beans, so their producers are closed here.
+     */
+    @PreDestroy
+    public void close() {
+        templatesByProfile.values().forEach(template -> template.getProducerFactory().reset());
+    }
+
+    public ListenableFuture<SendResult<Object, Object>> send(String topic, Object message) {
+        return send(topic, null, message);
+    }
+
+    /**
+     * Sends the record once fewer than {@code shipkafka.kafka.send.max-in-flight} records are in flight.
+     *
+     * @throws KafkaException if no record was acknowledged within {@code shipkafka.kafka.send.max-block-ms}
+     */
+    public ListenableFuture<SendResult<Object, Object>> send(String topic, Object key, Object message) {
+        Reservation reservation = reservations.get();
+        if (reservation != null && reservation.remaining > 0) {
+            reservation.remaining--;
+        } else {
+            acquire(topic, 1);
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        ListenableFuture<SendResult<Object, Object>> future;
+        try {
+            future = templatesByTopic.getOrDefault(topic, defaultTemplate).send(topic, key, message);
+        } catch (RuntimeException e) {
+            permits.release();
+            countError(topic, "failed");
+            sample.stop(sendTimer(topic, "failure"));
+            throw e;
+        }
+        future.addCallback(result -> {
+            permits.release();
+            sample.stop(sendTimer(topic, "success"));
+        }, e -> {
+            permits.release();
+            countError(topic, "failed");
+            sample.stop(sendTimer(topic, "failure"));
+            LOG.warn("Failed to send {} to {}", message, topic, e);
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            ListenableFuture<SendResult<Object, Object>> sent = future;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    await(topic, sent);
+                }
+            });
+        }
+        return future;
+    }
+
+    /**
+     * Takes the permits for up to {@code count} records sent by the current thread until the reservation is closed,
+     * blocking like {@link #send(String, Object, Object)} does. Permits not used by then are returned.
+     *
+     * @throws KafkaException if the permits were not available within {@code shipkafka.kafka.send.max-block-ms}
+     */
+    public Reservation reserve(String topic, int count) {
+        int permitCount = Math.min(count, maxInFlight);
+        acquire(topic, permitCount);
+        Reservation reservation = new Reservation(permitCount, reservations.get());
+        reservations.set(reservation);
+        return reservation;
+    }
+
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    private void acquire(String topic, int count) {
+        if (permits.tryAcquire(count)) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            if (!permits.tryAcquire(count, maxBlockMillis, TimeUnit.MILLISECONDS)) {
+                countError(topic, "rejected");
+                throw new KafkaException(String.format("Rejected record for %s, %d records in flight for %d ms", topic, maxInFlight, maxBlockMillis));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            countError(topic, "rejected");
+            throw new KafkaException("Interrupted while waiting to send a record to " + topic, e);
+        } finally {
+            sample.stop(waitTimer);
+        }
+    }
+
+    private static void await(String topic, ListenableFuture<SendResult<Object, Object>> future) {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            throw new KafkaException("Failed to send a record to " + topic, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while waiting for a record sent to " + topic, e);
+        }
+    }
+
+    private Timer sendTimer(String topic, String result) {
+        return Timer.builder("shipkafka.kafka.send")
+                .description("Time from sending a record until the broker acknowledged it")
+                .tag("topic", topic)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private void countError(String topic, String reason) {
+        Counter.builder("shipkafka.kafka.send.errors")
+                .description("Records rejected because too many were in flight, or failed to be sent")
+                .tag("topic", topic)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Permits taken by {@link #reserve(String, int)}, used by the sends of the thread that took them.
+     */
+    public final class Reservation implements AutoCloseable {
+
+        private final Reservation previous;
+
+        private int remaining;
+
+        private Reservation(int remaining, Reservation previous) {
+            this.remaining = remaining;
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                reservations.remove();
+            } else {
+                reservations.set(previous);
+            }
+            permits.release(remaining);
+            remaining = 0;
+        }
+    }
+}
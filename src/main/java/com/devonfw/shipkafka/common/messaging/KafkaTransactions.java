@@ -0,0 +1,59 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.ProducerListener;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.UUID;
+
+/**
+ * Transactional producer of the exactly-once listeners, see
+ * {@link com.devonfw.shipkafka.common.config.KafkaConfiguration#transactionalBatchListenerContainerFactory}. The
+ * container begins a Kafka transaction per poll with the {@link #getTransactionManager() transaction manager}, records
+ * sent by the {@link #getTemplate() template} join it and the offsets of the poll are sent to it before the commit.
+ * <p>
+ * Neither the producer factory nor the transaction manager are beans, so the auto-configured non-transactional producer
+ * and the JPA transaction manager stay in place. The transactional id prefix is made unique per instance, as required by
+ * the exactly-once mode V2 of the container.
+ */
+@Component
+public class KafkaTransactions {
+
+    private final DefaultKafkaProducerFactory<Object, Object> producerFactory;
+
+    private final KafkaTransactionManager<Object, Object> transactionManager;
+
+    private final KafkaTemplate<Object, Object> template;
+
+    @Autowired
+    public KafkaTransactions(KafkaProperties kafkaProperties, ProducerListener<Object, Object> producerListener,
+                             @Value("${shipkafka.bookings.transactional.transaction-id-prefix:ship-tx-}") String transactionIdPrefix) {
+        this.producerFactory = new DefaultKafkaProducerFactory<>(kafkaProperties.buildProducerProperties());
+        this.producerFactory.setTransactionIdPrefix(transactionIdPrefix + UUID.randomUUID() + "-");
+        this.transactionManager = new KafkaTransactionManager<>(producerFactory);
+        this.template = new KafkaTemplate<>(producerFactory);
+        this.template.setProducerListener(producerListener);
+    }
+
+    public KafkaTransactionManager<Object, Object> getTransactionManager() {
+        return transactionManager;
+    }
+
+    /**
+     * Sends only within a Kafka transaction, i.e. on the consumer thread of a transactional listener.
+     */
+    public KafkaTemplate<Object, Object> getTemplate() {
+        return template;
+    }
+
+    @PreDestroy
+    public void close() {
+        producerFactory.destroy();
+    }
+}
@@ -0,0 +1,49 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Map;
+
+/**
+ * Producer settings tuned for one kind of topic, applied on top of {@code spring.kafka.producer}. The profile of a topic
+ * is selected by {@code shipkafka.kafka.producer.topic-profiles}, see {@link KafkaSendPipeline}.
+ */
+public enum ProducerProfile {
+
+    /**
+     * Sends every record right away and only waits for the partition leader.
+     */
+    LOW_LATENCY(Map.of(
+            ProducerConfig.LINGER_MS_CONFIG, 0,
+            ProducerConfig.ACKS_CONFIG, "1",
+            ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false,
+            ProducerConfig.COMPRESSION_TYPE_CONFIG, "none")),
+
+    /**
+     * Collects records into large compressed batches, at the cost of up to the linger time per record.
+     */
+    HIGH_THROUGHPUT(Map.of(
+            ProducerConfig.LINGER_MS_CONFIG, 20,
+            ProducerConfig.BATCH_SIZE_CONFIG, 131_072,
+            ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4",
+            ProducerConfig.ACKS_CONFIG, "all")),
+
+    /**
+     * Idempotent producer: retries neither duplicate nor reorder records within a partition.
+     */
+    EXACTLY_ONCE(Map.of(
+            ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+            ProducerConfig.ACKS_CONFIG, "all",
+            ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5,
+            ProducerConfig.RETRIES_CONFIG, Integer.MAX_VALUE));
+
+    private final Map<String, Object> producerConfig;
+
+    ProducerProfile(Map<String, Object> producerConfig) {
+        this.producerConfig = producerConfig;
+    }
+
+    public Map<String, Object> getProducerConfig() {
+        return producerConfig;
+    }
+}
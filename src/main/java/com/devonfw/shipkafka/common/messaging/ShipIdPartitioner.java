@@ -0,0 +1,46 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.clients.producer.internals.DefaultPartitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Partitions {@link ShipRoutable} messages by their ship id instead of the record key. The key stays untouched, so
+ * compacted topics keep one record per key. All other messages are partitioned by the {@link DefaultPartitioner}.
+ */
+public class ShipIdPartitioner implements Partitioner {
+
+    private final DefaultPartitioner defaultPartitioner = new DefaultPartitioner();
+
+    public static int partition(Long shipId, int numPartitions) {
+        byte[] shipIdBytes = ByteBuffer.allocate(Long.BYTES).putLong(shipId).array();
+        return Utils.toPositive(Utils.murmur2(shipIdBytes)) % numPartitions;
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        if (value instanceof ShipRoutable && ((ShipRoutable) value).getShipId() != null) {
+            return partition(((ShipRoutable) value).getShipId(), cluster.partitionsForTopic(topic).size());
+        }
+        return defaultPartitioner.partition(topic, key, keyBytes, value, valueBytes, cluster);
+    }
+
+    @Override
+    public void onNewBatch(String topic, Cluster cluster, int prevPartition) {
+        defaultPartitioner.onNewBatch(topic, cluster, prevPartition);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        defaultPartitioner.configure(configs);
+    }
+
+    @Override
+    public void close() {
+        defaultPartitioner.close();
+    }
+}
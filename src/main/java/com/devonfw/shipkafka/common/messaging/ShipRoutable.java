@@ -0,0 +1,10 @@
+package com.devonfw.shipkafka.common.messaging;
+
+/**
+ * Message that belongs to a ship. The {@link ShipIdPartitioner} sends all such messages of one ship to the same
+ * partition, so they are consumed in order by a single listener thread.
+ */
+public interface ShipRoutable {
+
+    Long getShipId();
+}
@@ -0,0 +1,58 @@
+package com.devonfw.shipkafka.common.messaging.codec;
+
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.events.BookingDecidedEvent;
+
+/**
+ * The layout of the {@link BookingRequestedEventFormat}, followed by the status as its ordinal.
+ */
+class BookingDecidedEventFormat implements CompactFormat<BookingDecidedEvent> {
+
+    private static final int NO_BOOKING_STATUS = 1 << 3;
+
+    private static final BookingStatus[] BOOKING_STATUSES = BookingStatus.values();
+
+    @Override
+    public byte getTypeId() {
+        return 4;
+    }
+
+    @Override
+    public Class<BookingDecidedEvent> getType() {
+        return BookingDecidedEvent.class;
+    }
+
+    @Override
+    public void write(BookingDecidedEvent event, CompactWriter writer) {
+        int nulls = (event.getBookingId() == null ? BookingRequestedEventFormat.NO_BOOKING_ID : 0)
+                | (event.getCustomerId() == null ? BookingRequestedEventFormat.NO_CUSTOMER_ID : 0)
+                | (event.getShipId() == null ? BookingRequestedEventFormat.NO_SHIP_ID : 0)
+                | (event.getBookingStatus() == null ? NO_BOOKING_STATUS : 0);
+        writer.writeByte(nulls);
+
+        if (event.getBookingId() != null) {
+            writer.writeVarLong(event.getBookingId());
+        }
+        if (event.getCustomerId() != null) {
+            writer.writeVarLong(event.getCustomerId());
+        }
+        if (event.getShipId() != null) {
+            writer.writeVarLong(event.getShipId());
+        }
+        writer.writeVarLong(event.getContainerCount());
+        if (event.getBookingStatus() != null) {
+            writer.writeByte(event.getBookingStatus().ordinal());
+        }
+    }
+
+    @Override
+    public BookingDecidedEvent read(CompactReader reader) {
+        int nulls = reader.readByte();
+        Long bookingId = (nulls & BookingRequestedEventFormat.NO_BOOKING_ID) == 0 ? reader.readVarLong() : null;
+        Long customerId = (nulls & BookingRequestedEventFormat.NO_CUSTOMER_ID) == 0 ? reader.readVarLong() : null;
+        Long shipId = (nulls & BookingRequestedEventFormat.NO_SHIP_ID) == 0 ? reader.readVarLong() : null;
+        int containerCount = (int) reader.readVarLong();
+        BookingStatus bookingStatus = (nulls & NO_BOOKING_STATUS) == 0 ? BOOKING_STATUSES[reader.readByte()] : null;
+        return new BookingDecidedEvent(bookingId, customerId, shipId, containerCount, bookingStatus);
+    }
+}
@@ -0,0 +1,52 @@
+package com.devonfw.shipkafka.common.messaging.codec;
+
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+
+/**
+ * A bit set of the {@code null} fields, followed by all other fields in declaration order.
+ */
+class BookingRequestedEventFormat implements CompactFormat<BookingRequestedEvent> {
+
+    static final int NO_BOOKING_ID = 1;
+    static final int NO_CUSTOMER_ID = 1 << 1;
+    static final int NO_SHIP_ID = 1 << 2;
+
+    @Override
+    public byte getTypeId() {
+        return 3;
+    }
+
+    @Override
+    public Class<BookingRequestedEvent> getType() {
+        return BookingRequestedEvent.class;
+    }
+
+    @Override
+    public void write(BookingRequestedEvent event, CompactWriter writer) {
+        int nulls = (event.getBookingId() == null ? NO_BOOKING_ID : 0)
+                | (event.getCustomerId() == null ? NO_CUSTOMER_ID : 0)
+                | (event.getShipId() == null ? NO_SHIP_ID : 0);
+        writer.writeByte(nulls);
+
+        if (event.getBookingId() != null) {
+            writer.writeVarLong(event.getBookingId());
+        }
+        if (event.getCustomerId() != null) {
+            writer.writeVarLong(event.getCustomerId());
+        }
+        if (event.getShipId() != null) {
+            writer.writeVarLong(event.getShipId());
+        }
+        writer.writeVarLong(event.getContainerCount());
+    }
+
+    @Override
+    public BookingRequestedEvent read(CompactReader reader) {
+        int nulls = reader.readByte();
+        Long bookingId = (nulls & NO_BOOKING_ID) == 0 ? reader.readVarLong() : null;
+        Long customerId = (nulls & NO_CUSTOMER_ID) == 0 ? reader.readVarLong() : null;
+        Long shipId = (nulls & NO_SHIP_ID) == 0 ? reader.readVarLong() : null;
+        int containerCount = (int) reader.readVarLong();
+        return new BookingRequestedEvent(bookingId, customerId, shipId, containerCount);
+    }
+}
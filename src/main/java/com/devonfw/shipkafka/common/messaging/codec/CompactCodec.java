@@ -0,0 +1,69 @@
+package com.devonfw.shipkafka.common.messaging.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of the event types. A message starts with {@link #MAGIC}, which no JSON document starts
+ * with, followed by the {@link #VERSION} of the layouts and the type id of its {@link CompactFormat}. Type ids of
+ * removed formats are not reused, type id 1 was the former layout of the booking entity.
+ */
+public final class CompactCodec {
+
+    public static final byte MAGIC = 0;
+
+    public static final byte VERSION = 1;
+
+    private static final Map<Class<?>, CompactFormat<?>> FORMATS_BY_TYPE = new HashMap<>();
+
+    private static final CompactFormat<?>[] FORMATS_BY_ID = new CompactFormat<?>[128];
+
+    static {
+        for (CompactFormat<?> format : List.of(new ShipDamagedEventFormat(), new BookingRequestedEventFormat(), new BookingDecidedEventFormat())) {
+            FORMATS_BY_TYPE.put(format.getType(), format);
+            FORMATS_BY_ID[format.getTypeId()] = format;
+        }
+    }
+
+    private CompactCodec() {
+    }
+
+    public static boolean supports(Object value) {
+        return value != null && FORMATS_BY_TYPE.containsKey(value.getClass());
+    }
+
+    public static boolean isCompact(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> byte[] encode(T value) {
+        CompactFormat<T> format = (CompactFormat<T>) FORMATS_BY_TYPE.get(value.getClass());
+        if (format == null) {
+            throw new SerializationException("No compact format for " + value.getClass().getName());
+        }
+        CompactWriter writer = new CompactWriter()
+                .writeByte(MAGIC)
+                .writeByte(VERSION)
+                .writeByte(format.getTypeId());
+        format.write(value, writer);
+        return writer.toByteArray();
+    }
+
+    public static Object decode(byte[] data) {
+        CompactReader reader = new CompactReader(data, 1);
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new SerializationException("Unsupported compact format version " + version);
+        }
+        int typeId = reader.readByte();
+        CompactFormat<?> format = typeId < FORMATS_BY_ID.length ? FORMATS_BY_ID[typeId] : null;
+        if (format == null) {
+            throw new SerializationException("Unknown compact type id " + typeId);
+        }
+        return format.read(reader);
+    }
+}
@@ -0,0 +1,19 @@
+package com.devonfw.shipkafka.common.messaging.codec;
+
+/**
+ * Fixed binary layout of one message type, registered in {@link CompactCodec}. The layout of a type must only change
+ * together with {@link CompactCodec#VERSION}.
+ */
+public interface CompactFormat<T> {
+
+    /**
+     * Identifies the type in the header of a message, must be unique among all formats.
+     */
+    byte getTypeId();
+
+    Class<T> getType();
+
+    void write(T value, CompactWriter writer);
+
+    T read(CompactReader reader);
+}
@@ -0,0 +1,42 @@
+package com.devonfw.shipkafka.common.messaging.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+/**
+ * Reads what a {@link CompactWriter} wrote.
+ */
+public final class CompactReader {
+
+    private final byte[] buffer;
+
+    private int position;
+
+    public CompactReader(byte[] buffer, int position) {
+        this.buffer = buffer;
+        this.position = position;
+    }
+
+    public int readByte() {
+        checkAvailable();
+        return buffer[position++] & 0xFF;
+    }
+
+    public long readVarLong() {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            checkAvailable();
+            byte b = buffer[position++];
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new SerializationException("Malformed variable-length integer at position " + position);
+    }
+
+    private void checkAvailable() {
+        if (position >= buffer.length) {
+            throw new SerializationException("Unexpected end of message after " + buffer.length + " bytes");
+        }
+    }
+}
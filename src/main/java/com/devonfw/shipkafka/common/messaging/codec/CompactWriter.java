@@ -0,0 +1,41 @@
+package com.devonfw.shipkafka.common.messaging.codec;
+
+import java.util.Arrays;
+
+/**
+ * Growing byte buffer for {@link CompactFormat}s. Numbers are written as zig-zag encoded variable-length integers, so
+ * small ids and counts take one or two bytes.
+ */
+public final class CompactWriter {
+
+    private byte[] buffer = new byte[32];
+
+    private int position;
+
+    public CompactWriter writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+        return this;
+    }
+
+    public CompactWriter writeVarLong(long value) {
+        ensureCapacity(10);
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((zigZag & 0x7F) | 0x80);
+            zigZag >>>= 7;
+        }
+        buffer[position++] = (byte) zigZag;
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (position + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.devonfw.shipkafka.common.messaging.codec;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Reads messages in the compact format of the {@link CompactCodec} as well as JSON, independent of the topic, so
+ * consumers keep working while producers switch topics between both formats.
+ */
+public class EventDeserializer<T> implements Deserializer<T> {
+
+    private final Deserializer<T> jsonDeserializer;
+
+    public EventDeserializer() {
+        this(new JsonDeserializer<>());
+    }
+
+    public EventDeserializer(Deserializer<T> jsonDeserializer) {
+        this.jsonDeserializer = jsonDeserializer;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(String topic, byte[] data) {
+        if (CompactCodec.isCompact(data)) {
+            return (T) CompactCodec.decode(data);
+        }
+        return jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        if (CompactCodec.isCompact(data)) {
+            return (T) CompactCodec.decode(data);
+        }
+        return jsonDeserializer.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,81 @@
+package com.devonfw.shipkafka.common.messaging.codec;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the event types known to the {@link CompactCodec} in the compact format to the topics listed in
+ * {@value #COMPACT_TOPICS}, and everything else as JSON. A listed topic also covers its retry and dead letter topics,
+ * e.g. "bookings" covers "bookings-retry-5000" and "bookings-dlt".
+ */
+public class EventSerializer<T> implements Serializer<T> {
+
+    public static final String COMPACT_TOPICS = "shipkafka.codec.compact-topics";
+
+    private final JsonSerializer<T> jsonSerializer;
+
+    private Set<String> compactTopics = Set.of();
+
+    public EventSerializer() {
+        this(new JsonSerializer<>());
+    }
+
+    public EventSerializer(JsonSerializer<T> jsonSerializer) {
+        this.jsonSerializer = jsonSerializer;
+    }
+
+    public EventSerializer<T> compactTopics(Collection<String> compactTopics) {
+        this.compactTopics = Set.copyOf(compactTopics);
+        return this;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+        Object topics = configs.get(COMPACT_TOPICS);
+        if (topics instanceof Collection) {
+            compactTopics(((Collection<?>) topics).stream().map(String::valueOf).toList());
+        } else if (topics instanceof String) {
+            compactTopics(StringUtils.commaDelimitedListToSet(StringUtils.trimAllWhitespace((String) topics)));
+        }
+    }
+
+    public boolean isCompact(String topic) {
+        if (compactTopics.contains(topic)) {
+            return true;
+        }
+        for (int i = topic.indexOf('-'); i > 0; i = topic.indexOf('-', i + 1)) {
+            if (compactTopics.contains(topic.substring(0, i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        if (isCompact(topic) && CompactCodec.supports(data)) {
+            return CompactCodec.encode(data);
+        }
+        return jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, T data) {
+        if (isCompact(topic) && CompactCodec.supports(data)) {
+            return CompactCodec.encode(data);
+        }
+        return jsonSerializer.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
@@ -0,0 +1,32 @@
+package com.devonfw.shipkafka.common.messaging.codec;
+
+import com.devonfw.shipkafka.common.events.ShipDamagedEvent;
+
+/**
+ * Whether the ship id is {@code null}, followed by the ship id.
+ */
+class ShipDamagedEventFormat implements CompactFormat<ShipDamagedEvent> {
+
+    @Override
+    public byte getTypeId() {
+        return 2;
+    }
+
+    @Override
+    public Class<ShipDamagedEvent> getType() {
+        return ShipDamagedEvent.class;
+    }
+
+    @Override
+    public void write(ShipDamagedEvent event, CompactWriter writer) {
+        writer.writeByte(event.getShipId() == null ? 1 : 0);
+        if (event.getShipId() != null) {
+            writer.writeVarLong(event.getShipId());
+        }
+    }
+
+    @Override
+    public ShipDamagedEvent read(CompactReader reader) {
+        return new ShipDamagedEvent(reader.readByte() == 0 ? reader.readVarLong() : null);
+    }
+}
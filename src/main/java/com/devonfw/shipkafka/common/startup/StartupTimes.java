@@ -0,0 +1,63 @@
+package com.devonfw.shipkafka.common.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the time from the start of the JVM until the application was ready, as {@code shipkafka.startup.ready},
+ * and until the first request after that was answered, as {@code shipkafka.startup.first-request}. Requests to the
+ * actuator endpoints, e.g. readiness probes, do not count. Both are -1 until they happened.
+ */
+@Component
+public class StartupTimes extends OncePerRequestFilter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StartupTimes.class);
+
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private final AtomicLong readyMillis = new AtomicLong(-1);
+
+    private final AtomicLong firstRequestMillis = new AtomicLong(-1);
+
+    @Autowired
+    public StartupTimes(MeterRegistry meterRegistry) {
+        TimeGauge.builder("shipkafka.startup.ready", readyMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time from the start of the JVM until the application was ready")
+                .register(meterRegistry);
+        TimeGauge.builder("shipkafka.startup.first-request", firstRequestMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time from the start of the JVM until the first request after readiness was answered")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ready() {
+        readyMillis.set(System.currentTimeMillis() - jvmStartMillis);
+        LOG.info("Ready {} ms after the start of the JVM", readyMillis.get());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        filterChain.doFilter(request, response);
+        if (firstRequestMillis.get() < 0 && readyMillis.get() >= 0 && !request.getRequestURI().startsWith("/actuator")
+                && firstRequestMillis.compareAndSet(-1, System.currentTimeMillis() - jvmStartMillis)) {
+            LOG.info("Answered the first request {} ms after the start of the JVM", firstRequestMillis.get());
+        }
+    }
+}
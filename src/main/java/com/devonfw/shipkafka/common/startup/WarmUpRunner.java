@@ -0,0 +1,173 @@
+package com.devonfw.shipkafka.common.startup;
+
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.common.messaging.IdempotentConsumer;
+import com.devonfw.shipkafka.common.messaging.codec.EventSerializer;
+import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import com.devonfw.shipkafka.shipcomponent.exceptions.ShipNotFoundException;
+import com.devonfw.shipkafka.shipcomponent.logic.ShipCapacityLedger;
+import com.devonfw.shipkafka.shipcomponent.logic.ShipComponentLogic;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Exercises the hot paths before the application reports readiness, which happens once all runners have completed.
+ * Every iteration decides a booking request for a damaged ship by {@link ShipComponentLogic#confirmBooking}, reserves
+ * and releases capacity in the {@link ShipCapacityLedger} and serializes the decision, all within a transaction that is
+ * rolled back. Nothing is sent to Kafka. With a web server, the paged REST reads are requested as well. The meters
+ * recorded by the warm-up are removed afterwards, so they only count real requests.
+ * <p>
+ * With {@code shipkafka.warm-up.exit} the application exits after the warm-up, which is the training run of the
+ * class-data archive, see the {@code cdsArchive} task.
+ */
+@Component
+@ConditionalOnProperty(prefix = "shipkafka.warm-up", name = "enabled")
+public class WarmUpRunner implements ApplicationRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    private static final List<String> REST_PATHS = List.of("/ships?size=20", "/customers?size=20", "/bookings?size=20");
+
+    private final ShipComponentLogic shipComponentLogic;
+
+    private final ShipCapacityLedger capacityLedger;
+
+    private final ShipRepository shipRepository;
+
+    private final IdempotentConsumer idempotentConsumer;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final RestTemplateBuilder restTemplateBuilder;
+
+    private final EventSerializer<Object> serializer;
+
+    private final Environment environment;
+
+    private final ConfigurableApplicationContext applicationContext;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int iterations;
+
+    private final boolean exit;
+
+    @Autowired
+    public WarmUpRunner(ShipComponentLogic shipComponentLogic, ShipCapacityLedger capacityLedger, ShipRepository shipRepository,
+                        IdempotentConsumer idempotentConsumer, PlatformTransactionManager transactionManager,
+                        RestTemplateBuilder restTemplateBuilder, KafkaProperties kafkaProperties, Environment environment,
+                        ConfigurableApplicationContext applicationContext, MeterRegistry meterRegistry,
+                        @Value("${shipkafka.warm-up.iterations:2000}") int iterations,
+                        @Value("${shipkafka.warm-up.exit:false}") boolean exit) {
+        this.shipComponentLogic = shipComponentLogic;
+        this.capacityLedger = capacityLedger;
+        this.shipRepository = shipRepository;
+        this.idempotentConsumer = idempotentConsumer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.restTemplateBuilder = restTemplateBuilder;
+        this.serializer = new EventSerializer<>();
+        this.serializer.configure(kafkaProperties.buildProducerProperties(), false);
+        this.environment = environment;
+        this.applicationContext = applicationContext;
+        this.meterRegistry = meterRegistry;
+        this.iterations = iterations;
+        this.exit = exit;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            decideBooking(-1L - i);
+        }
+        int requests = requestRestPaths();
+        removeWarmUpMeters();
+        LOG.info("Warmed up with {} booking decisions and {} REST requests in {} ms", iterations, requests,
+                (System.nanoTime() - start) / 1_000_000);
+
+        if (exit) {
+            System.exit(SpringApplication.exit(applicationContext));
+        }
+    }
+
+    /**
+     * Negative booking ids never collide with real requests, and nothing of the rolled back transaction is cached.
+     */
+    private void decideBooking(long bookingId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            Long shipId = shipRepository.save(new Ship("Warm-up", Integer.MAX_VALUE, true)).getId();
+            try {
+                BookingRequestedEvent booking = new BookingRequestedEvent(bookingId, bookingId, shipId, 1);
+                if (!idempotentConsumer.isProcessed(ShipComponentLogic.CONSUMER, booking.eventId())) {
+                    shipComponentLogic.confirmBooking(booking);
+                }
+                capacityLedger.setDamaged(shipId, false);
+                if (capacityLedger.tryReserve(shipId, booking.getContainerCount())) {
+                    capacityLedger.release(shipId, booking.getContainerCount());
+                }
+                serializer.serialize("ship-bookings", booking.decide(BookingStatus.CONFIRMED));
+            } catch (ShipNotFoundException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                capacityLedger.evict(List.of(shipId));
+            }
+        });
+    }
+
+    /**
+     * The components register these meters again on their next use. The application is not ready yet, so the REST
+     * requests counted so far are the warm-up's.
+     */
+    private void removeWarmUpMeters() {
+        Stream.of(meterRegistry.find("shipkafka.bookings.confirm").tag("mode", "record"),
+                        meterRegistry.find("shipkafka.bookings.parking").tag("result", "parked"),
+                        meterRegistry.find("http.server.requests"))
+                .flatMap(search -> search.meters().stream())
+                .forEach(meterRegistry::remove);
+    }
+
+    /**
+     * @return the number of requests sent, 0 without a web server
+     */
+    private int requestRestPaths() {
+        String port = environment.getProperty("local.server.port");
+        if (port == null) {
+            return 0;
+        }
+        RestTemplate restTemplate = restTemplateBuilder.rootUri("http://localhost:" + port).build();
+        int requests = 0;
+        for (int i = 0; i < iterations / 10; i++) {
+            for (String path : REST_PATHS) {
+                try {
+                    restTemplate.getForObject(path, String.class);
+                } catch (RestClientException e) {
+                    LOG.debug("Warm-up request {} failed", path, e);
+                }
+                requests++;
+            }
+        }
+        return requests;
+    }
+}
@@ -1,46 +1,101 @@
 package com.devonfw.shipkafka.shipcomponent.api;
 
-import com.devonfw.shipkafka.common.domain.entities.Booking;
-import com.devonfw.shipkafka.common.events.ShipDamagedEvent;
-import com.devonfw.shipkafka.common.exceptions.BookingAlreadyConfirmedException;
+import com.devonfw.shipkafka.common.api.KeysetPageRequest;
+import com.devonfw.shipkafka.common.api.NdjsonStreamer;
+import com.devonfw.shipkafka.common.config.CacheConfiguration;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.common.events.ShipChangedEvent;
+import com.devonfw.shipkafka.common.messaging.IdempotentConsumer;
+import com.devonfw.shipkafka.common.messaging.KafkaSendPipeline;
+import com.devonfw.shipkafka.common.messaging.KafkaTransactions;
 import com.devonfw.shipkafka.shipcomponent.dtos.IdDTO;
 import com.devonfw.shipkafka.shipcomponent.dtos.ShipCreateDTO;
 import com.devonfw.shipkafka.shipcomponent.dtos.ShipUpdateDTO;
-import com.devonfw.shipkafka.shipcomponent.exceptions.ShipDamagedException;
 import com.devonfw.shipkafka.shipcomponent.exceptions.ShipNotFoundException;
 import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
 import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import com.devonfw.shipkafka.shipcomponent.logic.ShipCapacityLedger;
 import com.devonfw.shipkafka.shipcomponent.logic.ShipComponentLogic;
+import com.devonfw.shipkafka.shipcomponent.logic.ShipPartitionOwner;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.retrytopic.DeadLetterPublishingRecovererFactory;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.awt.print.Book;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping(path = "/ships")
-public class ShipRestController {
+public class ShipRestController implements ConsumerSeekAware {
 
     private final ShipComponentLogic shipComponentLogic;
 
     private final ShipRepository shipRepository;
 
+    private final ShipCapacityLedger capacityLedger;
+
+    private final ShipPartitionOwner shipPartitionOwner;
+
+    private final NdjsonStreamer ndjsonStreamer;
+
+    private final IdempotentConsumer idempotentConsumer;
+
+    private final KafkaTransactions kafkaTransactions;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter dltCounter;
+
     private static final Logger LOG = LoggerFactory.getLogger(ShipRestController.class);
 
+    private final ObjectProvider<DeadLetterPublishingRecovererFactory> retryTopicRecovererFactory;
+
+    private final Cache shipCache;
+
+    private DeadLetterPublishingRecoverer retryTopicRecoverer;
+
     private boolean shipDamaged;
 
     @Autowired
-    public ShipRestController(ShipComponentLogic shipComponentLogic, ShipRepository shipRepository) {
+    public ShipRestController(ShipComponentLogic shipComponentLogic, ShipRepository shipRepository, ShipCapacityLedger capacityLedger,
+                              ShipPartitionOwner shipPartitionOwner, NdjsonStreamer ndjsonStreamer, IdempotentConsumer idempotentConsumer, KafkaTransactions kafkaTransactions,
+                              MeterRegistry meterRegistry,
+                              ObjectProvider<DeadLetterPublishingRecovererFactory> retryTopicRecovererFactory, CacheManager cacheManager) {
         this.shipComponentLogic = shipComponentLogic;
         this.shipRepository = shipRepository;
+        this.capacityLedger = capacityLedger;
+        this.shipPartitionOwner = shipPartitionOwner;
+        this.ndjsonStreamer = ndjsonStreamer;
+        this.idempotentConsumer = idempotentConsumer;
+        this.kafkaTransactions = kafkaTransactions;
+        this.meterRegistry = meterRegistry;
+        this.dltCounter = Counter.builder("shipkafka.bookings.dlt")
+                .description("Booking requests that exhausted their retries and were canceled")
+                .tag("listener", "bookings")
+                .register(meterRegistry);
+        this.retryTopicRecovererFactory = retryTopicRecovererFactory;
+        this.shipCache = cacheManager.getCache(CacheConfiguration.SHIPS);
     }
 
     @GetMapping
@@ -48,11 +103,33 @@ public class ShipRestController {
         return shipRepository.findAll();
     }
 
+    @GetMapping(params = "size")
+    public List<Ship> getShips(@RequestParam(value = "after", defaultValue = "0") Long after, @RequestParam("size") int size) {
+        return shipRepository.findByIdGreaterThanOrderByIdAsc(after, KeysetPageRequest.of(size));
+    }
+
+    @GetMapping(value = "/stream")
+    public ResponseEntity<StreamingResponseBody> streamShips() {
+        return ndjsonStreamer.stream(shipRepository::streamAll);
+    }
+
+    /**
+     * Reads the ship from the cache, with the available containers and damage flag of the {@link ShipCapacityLedger},
+     * which is ahead of the database by up to one flush interval, if this node owns the ship. Otherwise the ledger may
+     * be stale, and the ship is read from the database.
+     */
     @GetMapping(value = "/{id:\\d+}")
     public Ship getShip(@PathVariable("id") Long shipId) throws ShipNotFoundException {
-        return shipRepository
-                .findById(shipId)
+        if (!shipPartitionOwner.owns(shipId)) {
+            return shipRepository.findById(shipId).orElseThrow(() -> new ShipNotFoundException(shipId));
+        }
+        Ship cached = shipRepository
+                .findCachedById(shipId)
                 .orElseThrow(() -> new ShipNotFoundException(shipId));
+
+        Ship ship = new Ship(cached.getName(), capacityLedger.getAvailableContainers(shipId), capacityLedger.isDamaged(shipId));
+        ship.setId(shipId);
+        return ship;
     }
 
     @PostMapping
@@ -61,41 +138,145 @@ public class ShipRestController {
         return new IdDTO(shipRepository.save(Ship.of(shipCreateDTO)).getId());
     }
 
+    /**
+     * The change is written to the database by {@link ShipComponentLogic#updateShip(ShipUpdateDTO)} and sent to
+     * "ship-changes", from where the node owning the ship applies it to its {@link ShipCapacityLedger} and releases the
+     * bookings parked while the ship was damaged, see {@link #onShipChanged(ShipChangedEvent)}.
+     */
     @PutMapping
     public Ship updateShip(@Valid @RequestBody ShipUpdateDTO shipUpdateDTO) throws ShipNotFoundException {
+        Ship ship = shipComponentLogic.updateShip(shipUpdateDTO);
+        shipCache.evict(ship.getId());
+        return ship;
+    }
+
+    /**
+     * Every node reads all partitions of the ship changes by assignment, so no consumer group has to be joined, and
+     * applies the changes of the ships it owns. The partitions are assigned when the container starts, while the
+     * "bookings" partitions are only assigned after the group join, so the changes are read from before this node takes
+     * over its first ships. Older changes are loaded from the database with the ships, see {@link ShipPartitionOwner}.
+     * The changes carry absolute values, so the listener always starts at the end, see
+     * {@link #onPartitionsAssigned(Map, ConsumerSeekCallback)}, and never replays older ones.
+     */
+    @KafkaListener(id = "ship-changes", topicPartitions = @TopicPartition(topic = "ship-changes",
+            partitions = "#{'0-' + (${shipkafka.bookings.partitions:3} - 1)}"))
+    public void onShipChanged(ShipChangedEvent change) {
+        LOG.info("Received: {}", change);
+        try {
+            shipComponentLogic.applyShipChange(change);
+        } catch (ShipNotFoundException e) {
+            LOG.info("Dropped change of deleted ship: {}", change);
+        }
+    }
+
+    /**
+     * Called for the partitions of all listeners of this controller, only the ship changes are read from the end.
+     */
+    @Override
+    public void onPartitionsAssigned(Map<org.apache.kafka.common.TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        callback.seekToEnd(assignments.keySet().stream()
+                .filter(partition -> partition.topic().equals("ship-changes"))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Requests for damaged ships are parked by {@link ShipComponentLogic#confirmBooking(BookingRequestedEvent)}, so only
+     * requests for unknown ships take the retry topics.
+     */
+    @RetryableTopic(include = ShipNotFoundException.class, attempts = "3", backoff = @Backoff(delay = 5_000, maxDelay = 30_000, multiplier = 2),
+            numPartitions = "${shipkafka.bookings.partitions:3}")
+    @KafkaListener(id = "bookings", topics = "bookings", groupId = "ship", concurrency = "${shipkafka.bookings.concurrency:3}")
+    public void onBookingEvent(BookingRequestedEvent booking) throws ShipNotFoundException {
+        LOG.info("Received: {}", booking);
+        if (idempotentConsumer.isProcessed(ShipComponentLogic.CONSUMER, booking.eventId())) {
+            LOG.info("Dropped duplicate: {}", booking);
+            return;
+        }
+        try (KafkaSendPipeline.Reservation reservation = shipComponentLogic.reserveDecisions(1)) {
+            shipComponentLogic.confirmBooking(booking);
+        } catch (ShipNotFoundException e) {
+            countRetry(e);
+            throw e;
+        }
+    }
 
-        Ship shipToUpdate = shipRepository
-                .findById(shipUpdateDTO.getId())
-                .orElseThrow(() -> new ShipNotFoundException(shipUpdateDTO.getId()));
-
-        if (shipUpdateDTO.getDamaged() != null) {
-            if (!shipToUpdate.isDamaged() && shipUpdateDTO.getDamaged()) {
-                shipToUpdate.setDamaged(shipUpdateDTO.getDamaged());
-                ShipDamagedEvent shipDamagedEvent = new ShipDamagedEvent(shipUpdateDTO.getId());
-                shipComponentLogic.sendMessage("ship-damaged", shipDamagedEvent);
-            } else {
-                shipToUpdate.setDamaged(shipUpdateDTO.getDamaged());
+    /**
+     * Batch alternative to {@link #onBookingEvent(BookingRequestedEvent)}, enabled by {@code shipkafka.bookings.batch-listener.enabled}.
+     * Bookings that cannot be decided are handed over to the retry topics of {@link #onBookingEvent(BookingRequestedEvent)}, so they
+     * take the same retry and DLT route as in the per-record mode.
+     */
+    @KafkaListener(id = "bookings-batch", topics = "bookings", groupId = "ship", containerFactory = "batchListenerContainerFactory",
+            concurrency = "${shipkafka.bookings.concurrency:3}", autoStartup = "${shipkafka.bookings.batch-listener.enabled:false}")
+    public void onBookingEvents(List<ConsumerRecord<Long, BookingRequestedEvent>> records) {
+        LOG.info("Received batch of {} bookings", records.size());
+        List<BookingRequestedEvent> bookings = idempotentConsumer.removeProcessed(ShipComponentLogic.CONSUMER,
+                records.stream().map(ConsumerRecord::value).collect(Collectors.toList()), BookingRequestedEvent::eventId);
+        if (bookings.size() < records.size()) {
+            LOG.info("Dropped {} duplicates", records.size() - bookings.size());
+        }
+        Map<BookingRequestedEvent, Exception> failed;
+        try (KafkaSendPipeline.Reservation reservation = shipComponentLogic.reserveDecisions(bookings.size())) {
+            failed = shipComponentLogic.confirmBookings(bookings);
+        }
+
+        for (ConsumerRecord<Long, BookingRequestedEvent> record : records) {
+            Exception exception = failed.get(record.value());
+            if (exception != null) {
+                LOG.info("Forwarding to retry topic: {} ({})", record.value(), exception.getMessage());
+                countRetry(exception);
+                getRetryTopicRecoverer().accept(record, exception);
             }
         }
+    }
+
+    /**
+     * Exactly-once alternative to {@link #onBookingEvents(List)}, enabled by {@code shipkafka.bookings.transactional.enabled}.
+     * The decisions of a poll and its offsets are committed in one Kafka transaction, after the JPA transaction of
+     * {@link ShipComponentLogic#confirmBookingsTransactional(List, org.springframework.kafka.core.KafkaOperations)}.
+     * Bookings that cannot be decided take the retry topics, whose records are not part of the transaction.
+     */
+    @KafkaListener(id = "bookings-transactional", topics = "bookings", groupId = "ship", containerFactory = "transactionalBatchListenerContainerFactory",
+            concurrency = "${shipkafka.bookings.concurrency:3}", autoStartup = "${shipkafka.bookings.transactional.enabled:false}")
+    public void onBookingEventsTransactional(List<ConsumerRecord<Long, BookingRequestedEvent>> records) {
+        LOG.info("Received transactional batch of {} bookings", records.size());
+        Map<BookingRequestedEvent, Exception> failed = shipComponentLogic.confirmBookingsTransactional(
+                records.stream().map(ConsumerRecord::value).collect(Collectors.toList()), kafkaTransactions.getTemplate());
 
-        if (shipUpdateDTO.getAvailableContainers() != null) {
-            shipToUpdate.setAvailableContainers(shipUpdateDTO.getAvailableContainers());
+        for (ConsumerRecord<Long, BookingRequestedEvent> record : records) {
+            Exception exception = failed.get(record.value());
+            if (exception != null) {
+                LOG.info("Forwarding to retry topic: {} ({})", record.value(), exception.getMessage());
+                countRetry(exception);
+                getRetryTopicRecoverer().accept(record, exception);
+            }
         }
+    }
 
-        shipRepository.save(shipToUpdate);
-        return shipToUpdate;
+    private void countRetry(Exception exception) {
+        Counter.builder("shipkafka.bookings.retried")
+                .description("Booking requests handed over to the retry topics")
+                .tag("exception", exception.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
     }
 
-    @RetryableTopic(include = {ShipDamagedException.class, ShipNotFoundException.class}, attempts = "3", backoff = @Backoff(delay = 5_000, maxDelay = 30_000, multiplier = 2))
-    @KafkaListener(id = "bookings", topics = "bookings", groupId = "ship")
-    public void onBookingEvent(Booking booking) throws ShipNotFoundException, BookingAlreadyConfirmedException, ShipDamagedException {
-        LOG.info("Received: {}", booking);
-        shipComponentLogic.confirmBooking(booking);
+    private synchronized DeadLetterPublishingRecoverer getRetryTopicRecoverer() {
+        if (retryTopicRecoverer == null) {
+            retryTopicRecoverer = retryTopicRecovererFactory.getObject().create();
+        }
+        return retryTopicRecoverer;
     }
 
     @DltHandler
-    public void onBookingEventDlt(Booking booking) {
+    public void onBookingEventDlt(BookingRequestedEvent booking) {
         LOG.info("Received DLT message: {}", booking.toString());
-        shipComponentLogic.cancelBookingAndSend(booking);
+        dltCounter.increment();
+        if (idempotentConsumer.isProcessed(ShipComponentLogic.CONSUMER, booking.eventId())) {
+            LOG.info("Dropped duplicate: {}", booking);
+            return;
+        }
+        try (KafkaSendPipeline.Reservation reservation = shipComponentLogic.reserveDecisions(1)) {
+            shipComponentLogic.cancelBookingAndSend(booking);
+        }
     }
 }
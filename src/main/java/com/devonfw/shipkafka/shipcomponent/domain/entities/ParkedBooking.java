@@ -0,0 +1,56 @@
+package com.devonfw.shipkafka.shipcomponent.domain.entities;
+
+import com.devonfw.shipkafka.common.domain.PooledLoSequenceGenerator;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Booking request for a damaged ship, waiting until the ship is repaired or the parking times out, see
+ * {@link com.devonfw.shipkafka.shipcomponent.logic.ShipComponentLogic#releaseParkedBookings(Long)}.
+ */
+@Entity
+@Immutable
+@Getter
+@ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = {@Index(name = "idx_parked_booking_ship_id", columnList = "shipId"),
+        @Index(name = "idx_parked_booking_parked_on", columnList = "parkedOn")})
+public class ParkedBooking {
+
+    private final Date parkedOn = new Date();
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "parked_booking_seq")
+    @GenericGenerator(name = "parked_booking_seq", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "parked_booking_seq"))
+    private Long id;
+
+    private Long bookingId;
+
+    private Long customerId;
+
+    private Long shipId;
+
+    private int containerCount;
+
+    public ParkedBooking(BookingRequestedEvent booking) {
+        this.bookingId = booking.getBookingId();
+        this.customerId = booking.getCustomerId();
+        this.shipId = booking.getShipId();
+        this.containerCount = booking.getContainerCount();
+    }
+
+    public BookingRequestedEvent toEvent() {
+        return new BookingRequestedEvent(bookingId, customerId, shipId, containerCount);
+    }
+}
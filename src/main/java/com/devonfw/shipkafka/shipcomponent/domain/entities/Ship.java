@@ -1,10 +1,14 @@
 package com.devonfw.shipkafka.shipcomponent.domain.entities;
 
+import com.devonfw.shipkafka.common.domain.PooledLoSequenceGenerator;
 import com.devonfw.shipkafka.shipcomponent.dtos.ShipCreateDTO;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -19,7 +23,9 @@ import javax.persistence.Id;
 public class Ship {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ship_seq")
+    @GenericGenerator(name = "ship_seq", strategy = PooledLoSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "ship_seq"))
     private Long id;
 
     private String name;
@@ -34,6 +40,10 @@ public class Ship {
         this.damaged = damaged;
     }
 
+    public Ship(String name, int availableContainers){
+        this(name, availableContainers, false);
+    }
+
     public static Ship of(ShipCreateDTO shipCreateDTO) {
         return new Ship(
                 shipCreateDTO.getShipName(),
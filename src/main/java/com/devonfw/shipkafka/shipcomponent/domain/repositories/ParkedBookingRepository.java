@@ -0,0 +1,52 @@
+package com.devonfw.shipkafka.shipcomponent.domain.repositories;
+
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.shipcomponent.domain.entities.ParkedBooking;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+public interface ParkedBookingRepository extends JpaRepository<ParkedBooking, Long> {
+
+    /**
+     * Reads the oldest bookings parked for the ship and locks them until the end of the transaction, so a concurrent
+     * release or sweep waits and then no longer finds the bookings decided by this one.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM ParkedBooking p WHERE p.shipId = :shipId ORDER BY p.id")
+    List<ParkedBooking> lockByShipId(@Param("shipId") Long shipId, Pageable pageable);
+
+    /**
+     * Like {@link #lockByShipId(Long, Pageable)}, for the bookings parked before the given time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM ParkedBooking p WHERE p.parkedOn < :parkedOn ORDER BY p.id")
+    List<ParkedBooking> lockByParkedOnBefore(@Param("parkedOn") Date parkedOn, Pageable pageable);
+
+    @Query("SELECT DISTINCT p.shipId FROM ParkedBooking p")
+    List<Long> findParkedShipIds();
+
+    long countByShipId(Long shipId);
+
+    /**
+     * The given bookings that already have the status, e.g. those the booking component canceled because their ship was
+     * damaged while they were parked.
+     */
+    @Query("SELECT b.id FROM Booking b WHERE b.id IN :bookingIds AND b.bookingStatus = :status")
+    Set<Long> findBookingIdsWithStatus(@Param("bookingIds") Collection<Long> bookingIds, @Param("status") BookingStatus status);
+
+    @Modifying
+    @Query("DELETE FROM ParkedBooking p WHERE p.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
@@ -1,9 +1,56 @@
 package com.devonfw.shipkafka.shipcomponent.domain.repositories;
 
+import com.devonfw.shipkafka.common.config.CacheConfiguration;
 import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface ShipRepository extends JpaRepository<Ship, Long> {
+    @Query("SELECT s.id FROM Ship s")
+    List<Long> findAllIds();
+
+    /**
+     * Cached variant of {@link #findById(Object)} for reads. The returned ship is shared, so it must not be changed.
+     */
+    @Cacheable(cacheNames = CacheConfiguration.SHIPS, unless = "#result == null")
+    Optional<Ship> findCachedById(Long id);
+
+    /**
+     * Writes only the available containers, so concurrent changes of the other columns, e.g. by
+     * {@link #updateDamaged(Long, boolean)}, are not overwritten.
+     *
+     * @return the number of updated ships, 0 if the ship was deleted
+     */
+    @Modifying
+    @Query("UPDATE Ship s SET s.availableContainers = :availableContainers WHERE s.id = :id")
+    int updateAvailableContainers(@Param("id") Long id, @Param("availableContainers") int availableContainers);
+
+    /**
+     * Writes only the damage flag, so the available containers flushed by the
+     * {@link com.devonfw.shipkafka.shipcomponent.logic.ShipCapacityLedger} are not overwritten.
+     *
+     * @return the number of updated ships, 0 if the ship was deleted or its flag already had the given value
+     */
+    @Modifying
+    @Query("UPDATE Ship s SET s.damaged = :damaged WHERE s.id = :id AND s.damaged <> :damaged")
+    int updateDamaged(@Param("id") Long id, @Param("damaged") boolean damaged);
+
+    List<Ship> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    @Query("SELECT s FROM Ship s ORDER BY s.id")
+    Stream<Ship> streamAll();
 }
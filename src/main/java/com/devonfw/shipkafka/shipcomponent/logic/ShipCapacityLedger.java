@@ -0,0 +1,200 @@
+package com.devonfw.shipkafka.shipcomponent.logic;
+
+import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import com.devonfw.shipkafka.shipcomponent.exceptions.ShipNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory owner of the available containers of all ships. Reservations are compare-and-set operations on a per-ship
+ * counter, so concurrent listener threads never oversell a ship and never wait for the database. Changed counters are
+ * written back to the {@link ShipRepository} in batches by {@link #flush()}, so ships read from the database may lag
+ * behind by up to {@code shipkafka.ship-capacity-ledger.flush-interval-ms}. Transactions that reserve capacity also write
+ * the counters of their ships by {@link #flush(Collection)}, so no committed reservation depends on the write-behind.
+ * Only the available containers are written, so changes of the other columns are never overwritten.
+ */
+@Component
+public class ShipCapacityLedger {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShipCapacityLedger.class);
+
+    private final ShipRepository shipRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, ShipCapacity> capacities = new ConcurrentHashMap<>();
+
+    private final Set<Long> dirtyShipIds = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public ShipCapacityLedger(ShipRepository shipRepository, PlatformTransactionManager transactionManager) {
+        this.shipRepository = shipRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Loads the capacity of all given ships that are not known yet with a single query.
+     *
+     * @return the given ships that do not exist
+     */
+    public Set<Long> load(Collection<Long> shipIds) {
+        Set<Long> missing = new HashSet<>();
+        for (Long shipId : shipIds) {
+            if (!capacities.containsKey(shipId)) {
+                missing.add(shipId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Ship ship : shipRepository.findAllById(missing)) {
+                capacities.putIfAbsent(ship.getId(), new ShipCapacity(ship));
+                missing.remove(ship.getId());
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Replaces the capacity of the given ships by the database state with a single query, e.g. when they were changed
+     * by another node while this one did not own them.
+     */
+    public void reload(Collection<Long> shipIds) {
+        evict(shipIds);
+        load(shipIds);
+    }
+
+    /**
+     * Forgets the capacity of the given ships, so it is loaded from the database again on the next access. Callers
+     * must {@link #flush()} before, otherwise unflushed reservations are lost.
+     */
+    public void evict(Collection<Long> shipIds) {
+        shipIds.forEach(capacities::remove);
+    }
+
+    public boolean isDamaged(Long shipId) throws ShipNotFoundException {
+        return getCapacity(shipId).damaged;
+    }
+
+    public int getAvailableContainers(Long shipId) throws ShipNotFoundException {
+        return getCapacity(shipId).availableContainers.get();
+    }
+
+    /**
+     * Reserves the given number of containers if the ship has more than that available.
+     *
+     * @return {@code true} if the containers were reserved, {@code false} if the ship has not enough capacity left
+     */
+    public boolean tryReserve(Long shipId, int containerCount) throws ShipNotFoundException {
+        AtomicInteger availableContainers = getCapacity(shipId).availableContainers;
+        int available;
+        do {
+            available = availableContainers.get();
+            if (containerCount >= available) {
+                return false;
+            }
+        } while (!availableContainers.compareAndSet(available, available - containerCount));
+
+        dirtyShipIds.add(shipId);
+        return true;
+    }
+
+    /**
+     * Returns containers reserved by {@link #tryReserve(Long, int)}, e.g. when the transaction that reserved them rolled back.
+     */
+    public void release(Long shipId, int containerCount) throws ShipNotFoundException {
+        getCapacity(shipId).availableContainers.addAndGet(containerCount);
+        dirtyShipIds.add(shipId);
+    }
+
+    /**
+     * Replaces the counter, e.g. by a change of the ship, and marks it dirty, so {@link #flush()} writes it even if a
+     * flush of an older value went to the database after the change.
+     */
+    public void setAvailableContainers(Long shipId, int availableContainers) throws ShipNotFoundException {
+        getCapacity(shipId).availableContainers.set(availableContainers);
+        dirtyShipIds.add(shipId);
+    }
+
+    public void setDamaged(Long shipId, boolean damaged) throws ShipNotFoundException {
+        getCapacity(shipId).damaged = damaged;
+    }
+
+    /**
+     * Writes the counters of all ships with reservations since the last flush back to the database. Runs in its own
+     * transaction by the {@link TransactionTemplate}, as it is also called from {@link #close()}, where no proxy is involved.
+     */
+    @Scheduled(fixedDelayString = "${shipkafka.ship-capacity-ledger.flush-interval-ms:1000}")
+    public void flush() {
+        if (dirtyShipIds.isEmpty()) {
+            return;
+        }
+        List<Long> shipIds = new ArrayList<>(dirtyShipIds);
+        dirtyShipIds.removeAll(shipIds);
+
+        try {
+            int flushed = transactionTemplate.execute(status -> update(shipIds));
+            LOG.info("Flushed capacity of {} ships", flushed);
+        } catch (RuntimeException e) {
+            dirtyShipIds.addAll(shipIds);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the counters of the given ships within the current transaction, so reservations commit together with the
+     * decisions that made them. The ships stay dirty for the next {@link #flush()}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void flush(Collection<Long> shipIds) {
+        update(shipIds);
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private int update(Collection<Long> shipIds) {
+        int updated = 0;
+        for (Long shipId : shipIds) {
+            ShipCapacity capacity = capacities.get(shipId);
+            if (capacity != null) {
+                updated += shipRepository.updateAvailableContainers(shipId, capacity.availableContainers.get());
+            }
+        }
+        return updated;
+    }
+
+    private ShipCapacity getCapacity(Long shipId) throws ShipNotFoundException {
+        ShipCapacity capacity = capacities.get(shipId);
+        if (capacity == null) {
+            Ship ship = shipRepository.findById(shipId).orElseThrow(() -> new ShipNotFoundException(shipId));
+            capacity = capacities.computeIfAbsent(shipId, id -> new ShipCapacity(ship));
+        }
+        return capacity;
+    }
+
+    private static class ShipCapacity {
+
+        private final AtomicInteger availableContainers;
+
+        private volatile boolean damaged;
+
+        private ShipCapacity(Ship ship) {
+            this.availableContainers = new AtomicInteger(ship.getAvailableContainers());
+            this.damaged = ship.isDamaged();
+        }
+    }
+}
@@ -1,67 +1,515 @@
 package com.devonfw.shipkafka.shipcomponent.logic;
 
 import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
-import com.devonfw.shipkafka.common.domain.entities.Booking;
-import com.devonfw.shipkafka.common.exceptions.BookingAlreadyConfirmedException;
-import com.devonfw.shipkafka.shipcomponent.exceptions.ShipDamagedException;
-import com.devonfw.shipkafka.shipcomponent.exceptions.ShipNotFoundException;
+import com.devonfw.shipkafka.common.events.BookingDecidedEvent;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.common.events.ShipChangedEvent;
+import com.devonfw.shipkafka.common.events.ShipDamagedEvent;
+import com.devonfw.shipkafka.common.messaging.IdempotentConsumer;
+import com.devonfw.shipkafka.common.messaging.KafkaSendPipeline;
+import com.devonfw.shipkafka.shipcomponent.domain.entities.ParkedBooking;
 import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ParkedBookingRepository;
 import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import com.devonfw.shipkafka.shipcomponent.dtos.ShipUpdateDTO;
+import com.devonfw.shipkafka.shipcomponent.exceptions.ShipNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 @Service
 public class ShipComponentLogic {
 
+    /**
+     * Consumer of the {@link IdempotentConsumer}, which must not decide a booking request twice.
+     */
+    public static final String CONSUMER = "ship";
+
+    private final ShipCapacityLedger capacityLedger;
+
+    private final ShipPartitionOwner shipPartitionOwner;
+
+    private final IdempotentConsumer idempotentConsumer;
+
+    private final ParkedBookingRepository parkedBookingRepository;
+
     private final ShipRepository shipRepository;
 
-    private final KafkaTemplate<Long, Object> template;
+    private final KafkaSendPipeline sendPipeline;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int parkingChunkSize;
+
+    private final long parkingTimeoutMillis;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<BookingStatus, Counter> decisionCounters = new EnumMap<>(BookingStatus.class);
 
     private static final Logger LOG = LoggerFactory.getLogger(ShipComponentLogic.class);
 
     @Autowired
-    public ShipComponentLogic(ShipRepository shipRepository, KafkaTemplate<Long, Object> template){
+    public ShipComponentLogic(ShipCapacityLedger capacityLedger, ShipPartitionOwner shipPartitionOwner, IdempotentConsumer idempotentConsumer,
+                              ParkedBookingRepository parkedBookingRepository, ShipRepository shipRepository, KafkaSendPipeline sendPipeline,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                              @Value("${shipkafka.bookings.parking.chunk-size:500}") int parkingChunkSize,
+                              @Value("${shipkafka.bookings.parking.timeout-ms:900000}") long parkingTimeoutMillis){
+        this.capacityLedger = capacityLedger;
+        this.shipPartitionOwner = shipPartitionOwner;
+        this.idempotentConsumer = idempotentConsumer;
+        this.parkedBookingRepository = parkedBookingRepository;
         this.shipRepository = shipRepository;
-        this.template = template;
+        this.sendPipeline = sendPipeline;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.parkingChunkSize = parkingChunkSize;
+        this.parkingTimeoutMillis = parkingTimeoutMillis;
+        this.meterRegistry = meterRegistry;
+
+        for (BookingStatus status : List.of(BookingStatus.CONFIRMED, BookingStatus.CANCELED)) {
+            decisionCounters.put(status, Counter.builder("shipkafka.bookings.decisions")
+                    .description("Booking requests decided by the ship component")
+                    .tag("status", status.name())
+                    .register(meterRegistry));
+        }
     }
 
-    @Transactional(rollbackFor = {BookingAlreadyConfirmedException.class})
-    public void confirmBooking(Booking booking) throws BookingAlreadyConfirmedException, ShipNotFoundException, ShipDamagedException {
-        Ship ship = shipRepository.findById(booking.getShipId()).orElseThrow(() -> new ShipNotFoundException(booking.getShipId()));
-        LOG.info("Found: {}", ship);
+    /**
+     * Looked up on every use, like the counters of {@link #countParking(String, int)}, so the meter is registered again
+     * after it was removed, e.g. by the {@link com.devonfw.shipkafka.common.startup.WarmUpRunner}.
+     */
+    private Timer confirmTimer(String mode) {
+        return Timer.builder("shipkafka.bookings.confirm")
+                .description("Time to decide booking requests, per record or per poll")
+                .tag("mode", mode)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 
-        if (booking.getBookingStatus() == BookingStatus.CONFIRMED) {
-            throw new BookingAlreadyConfirmedException(booking.getId());
-        } else if (booking.getBookingStatus().equals(BookingStatus.REQUESTED)) {
-            if (ship.isDamaged()) {
-                LOG.info("Ship {} is damaged. Retrying...", ship.getId());
-                throw new ShipDamagedException(ship.getId());
+    /**
+     * Takes the permits to send {@code count} decisions before the transaction deciding them starts, so it does not wait
+     * for the {@link KafkaSendPipeline} while holding a database connection.
+     */
+    public KafkaSendPipeline.Reservation reserveDecisions(int count) {
+        return sendPipeline.reserve("ship-bookings", count);
+    }
+
+    /**
+     * Marks the request as processed before deciding it, so a concurrent duplicate fails before it reserves capacity.
+     * Requests for a damaged ship are parked instead, see {@link #releaseParkedBookings(Long)}. The decision is
+     * acknowledged before the transaction commits, so a failed send rolls it back, see {@link KafkaSendPipeline}. If the
+     * transaction rolls back, the reservation is returned to the {@link ShipCapacityLedger}, otherwise it is written
+     * to the database with the transaction.
+     *
+     * @return the decision, which has been sent to "ship-bookings", or null if the request was parked
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public BookingDecidedEvent confirmBooking(BookingRequestedEvent booking) throws ShipNotFoundException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            idempotentConsumer.markProcessed(CONSUMER, booking.eventId());
+            List<BookingDecidedEvent> reservations = releaseOnRollback();
+            BookingDecidedEvent decision = decideBooking(booking, reservations);
+            if (decision == null) {
+                return null;
             }
-            if(booking.getContainerCount() < ship.getAvailableContainers()){
-                ship.setAvailableContainers(ship.getAvailableContainers() - booking.getContainerCount());
-                booking.updateBookingStatus(BookingStatus.CONFIRMED);
-                shipRepository.save(ship);
+            flushReservations(reservations);
+
+            sendPipeline.send("ship-bookings", decision.getBookingId(), decision);
+            LOG.info("Sent: {}", decision);
+            return decision;
+        } finally {
+            sample.stop(confirmTimer("record"));
+        }
+    }
+
+    /**
+     * Confirms a whole poll of bookings in one transaction. Ships unknown to the {@link ShipCapacityLedger} are loaded
+     * with a single query, and the bookings of existing ships are marked as processed before any of them is decided, like
+     * in {@link #confirmBooking(BookingRequestedEvent)}. The capacity decisions are then applied in memory, grouped by
+     * ship in the order of the given list, and the capacity of the reserving ships is written with the transaction. If
+     * the transaction rolls back, the reservations are returned to the ledger.
+     *
+     * @return the bookings of ships that do not exist, which are not marked as processed, mapped to the exception the
+     * per-record path would have thrown
+     */
+    @Transactional
+    public Map<BookingRequestedEvent, Exception> confirmBookings(List<BookingRequestedEvent> bookings) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Set<Long> unknownShipIds = capacityLedger.load(bookings.stream().map(BookingRequestedEvent::getShipId).collect(Collectors.toSet()));
+
+        Map<BookingRequestedEvent, Exception> failed = new IdentityHashMap<>();
+        Map<Long, List<BookingRequestedEvent>> bookingsByShip = new LinkedHashMap<>();
+        for (BookingRequestedEvent booking : bookings) {
+            if (unknownShipIds.contains(booking.getShipId())) {
+                failed.put(booking, new ShipNotFoundException(booking.getShipId()));
             } else {
-                booking.updateBookingStatus(BookingStatus.CANCELED);
+                bookingsByShip.computeIfAbsent(booking.getShipId(), shipId -> new ArrayList<>()).add(booking);
+            }
+        }
+        if (!bookingsByShip.isEmpty()) {
+            idempotentConsumer.markProcessed(CONSUMER, bookingsByShip.values().stream()
+                    .flatMap(List::stream)
+                    .map(BookingRequestedEvent::eventId)
+                    .collect(Collectors.toList()));
+        }
+
+        List<BookingDecidedEvent> reservations = releaseOnRollback();
+        for (List<BookingRequestedEvent> shipBookings : bookingsByShip.values()) {
+            for (BookingRequestedEvent booking : shipBookings) {
+                try {
+                    BookingDecidedEvent decision = decideBooking(booking, reservations);
+                    if (decision != null) {
+                        sendPipeline.send("ship-bookings", decision.getBookingId(), decision);
+                    }
+                } catch (ShipNotFoundException e) {
+                    // the ship was deleted after it was loaded, the poll is redelivered and the booking then fails above
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
+        flushReservations(reservations);
+
+        LOG.info("Decided or parked {} bookings, {} bookings failed", bookings.size() - failed.size(), failed.size());
+        sample.stop(confirmTimer("batch"));
+        return failed;
+    }
+
+    /**
+     * Exactly-once variant of {@link #confirmBookings(List)}, called within the Kafka transaction of a transactional
+     * listener, whose offsets and the decisions sent by {@code operations} commit after this method's transaction.
+     * <p>
+     * The decisions are stored as results of the processed requests, and the capacity of the reserving ships is written
+     * through, all within this transaction. If the Kafka transaction aborts after this one committed, the redelivered
+     * requests are found processed and their stored decisions are sent again instead of being decided twice. If this
+     * transaction rolls back, the reservations are returned to the {@link ShipCapacityLedger}.
+     *
+     * @return the bookings that could not be decided, mapped to the exception the per-record path would have thrown
+     */
+    @Transactional
+    public Map<BookingRequestedEvent, Exception> confirmBookingsTransactional(List<BookingRequestedEvent> bookings,
+                                                                              KafkaOperations<Object, Object> operations) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<String, String> previousResults = idempotentConsumer.findResults(CONSUMER,
+                bookings.stream().map(BookingRequestedEvent::eventId).collect(Collectors.toList()));
+        capacityLedger.load(bookings.stream().map(BookingRequestedEvent::getShipId).collect(Collectors.toSet()));
+
+        Map<BookingRequestedEvent, Exception> failed = new IdentityHashMap<>();
+        Map<String, String> results = new LinkedHashMap<>();
+        List<BookingDecidedEvent> reservations = releaseOnRollback();
+        int resent = 0;
+        for (BookingRequestedEvent booking : bookings) {
+            String eventId = booking.eventId();
+            if (previousResults.containsKey(eventId)) {
+                String previousResult = previousResults.get(eventId);
+                if (previousResult != null) {
+                    BookingDecidedEvent decision = booking.decide(BookingStatus.valueOf(previousResult));
+                    operations.send("ship-bookings", decision.getBookingId(), decision);
+                    resent++;
+                }
+                continue;
+            }
+            if (results.containsKey(eventId)) {
+                continue;
+            }
+            try {
+                BookingDecidedEvent decision = decideBooking(booking, reservations);
+                results.put(eventId, decision == null ? null : decision.getBookingStatus().name());
+                if (decision != null) {
+                    operations.send("ship-bookings", decision.getBookingId(), decision);
+                }
+            } catch (ShipNotFoundException e) {
+                failed.put(booking, e);
+            }
+        }
+
+        if (!results.isEmpty()) {
+            idempotentConsumer.markProcessed(CONSUMER, results);
+        }
+        flushReservations(reservations);
+
+        LOG.info("Decided or parked {} bookings, resent {} decisions, {} bookings failed", results.size(), resent, failed.size());
+        sample.stop(confirmTimer("transactional"));
+        return failed;
+    }
+
+    /**
+     * Registers the release of the reservations added to the returned list if the current transaction does not commit.
+     */
+    private List<BookingDecidedEvent> releaseOnRollback() {
+        List<BookingDecidedEvent> reservations = new ArrayList<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    reservations.forEach(ShipComponentLogic.this::releaseReservation);
+                }
+            }
+        });
+        return reservations;
+    }
+
+    /**
+     * Writes the capacity of the reserving ships within the current transaction, which marks their requests as
+     * processed. Otherwise a reservation would be lost if the node stopped before the next write-behind
+     * {@link ShipCapacityLedger#flush()}, while its request is not redelivered.
+     */
+    private void flushReservations(List<BookingDecidedEvent> reservations) {
+        if (!reservations.isEmpty()) {
+            capacityLedger.flush(reservations.stream().map(BookingDecidedEvent::getShipId).collect(Collectors.toSet()));
+        }
+    }
+
+    private void releaseReservation(BookingDecidedEvent reservation) {
+        try {
+            capacityLedger.release(reservation.getShipId(), reservation.getContainerCount());
+        } catch (ShipNotFoundException e) {
+            LOG.warn("Could not release {} containers of ship {}", reservation.getContainerCount(), reservation.getShipId());
+        }
+    }
+
+    /**
+     * @param reservations receives the decision if it reserved capacity
+     * @return the decision, or null if the ship is damaged and the booking was parked
+     */
+    private BookingDecidedEvent decideBooking(BookingRequestedEvent booking, List<BookingDecidedEvent> reservations) throws ShipNotFoundException {
+        Long shipId = booking.getShipId();
+        if (capacityLedger.isDamaged(shipId)) {
+            LOG.info("Ship {} is damaged. Parking {}", shipId, booking);
+            parkedBookingRepository.save(new ParkedBooking(booking));
+            countParking("parked", 1);
+            return null;
+        }
+        BookingStatus status = capacityLedger.tryReserve(shipId, booking.getContainerCount()) ? BookingStatus.CONFIRMED : BookingStatus.CANCELED;
+        decisionCounters.get(status).increment();
+        BookingDecidedEvent decision = booking.decide(status);
+        if (status == BookingStatus.CONFIRMED) {
+            reservations.add(decision);
+        }
+        return decision;
+    }
+
+    /**
+     * Writes the change with targeted updates, so the available containers written by the {@link ShipCapacityLedger}
+     * of the owning node are only replaced if the change sets them, and sends it to "ship-changes", from where the owner
+     * applies it to its ledger, see {@link #applyShipChange(ShipChangedEvent)}. "ship-damaged" is only sent if this
+     * change damaged the ship.
+     *
+     * @return the changed ship, which is not managed by the persistence context
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public Ship updateShip(ShipUpdateDTO shipUpdateDTO) throws ShipNotFoundException {
+        Long shipId = shipUpdateDTO.getId();
+        Ship current = shipRepository.findById(shipId).orElseThrow(() -> new ShipNotFoundException(shipId));
+
+        boolean damaged = current.isDamaged();
+        if (shipUpdateDTO.getDamaged() != null && shipRepository.updateDamaged(shipId, shipUpdateDTO.getDamaged()) > 0) {
+            damaged = shipUpdateDTO.getDamaged();
+            if (damaged) {
+                sendMessage("ship-damaged", new ShipDamagedEvent(shipId));
+            }
+        }
+        int availableContainers = current.getAvailableContainers();
+        if (shipUpdateDTO.getAvailableContainers() != null) {
+            availableContainers = shipUpdateDTO.getAvailableContainers();
+            shipRepository.updateAvailableContainers(shipId, availableContainers);
+        }
+        sendMessage("ship-changes", new ShipChangedEvent(shipId, shipUpdateDTO.getAvailableContainers(), damaged));
+
+        Ship ship = new Ship(current.getName(), availableContainers, damaged);
+        ship.setId(shipId);
+        return ship;
+    }
+
+    /**
+     * Applies a change of the ship, sent by {@link #updateShip(ShipUpdateDTO)} on any node, to the
+     * {@link ShipCapacityLedger} if this node owns the ship, and releases the bookings parked while it was damaged. The
+     * change was written to the database before it was sent, so a node taking the ship over later loads it from there
+     * and releases the parked bookings by {@link #sweepParkedBookings()}.
+     */
+    public void applyShipChange(ShipChangedEvent change) throws ShipNotFoundException {
+        Long shipId = change.getShipId();
+        if (!shipPartitionOwner.owns(shipId)) {
+            return;
+        }
+        if (change.getAvailableContainers() != null) {
+            capacityLedger.setAvailableContainers(shipId, change.getAvailableContainers());
+        }
+        capacityLedger.setDamaged(shipId, change.isDamaged());
+        if (!change.isDamaged()) {
+            releaseParkedBookings(shipId);
+        }
+    }
+
+    /**
+     * Decides the bookings parked for the ship, oldest first, as long as it is not damaged. Must only be called on the
+     * node owning the ship, whose {@link ShipCapacityLedger} takes the reservations. The bookings are processed in
+     * chunks of {@code shipkafka.bookings.parking.chunk-size}, each claimed, decided and sent in its own transaction. If
+     * the transaction rolls back, the reservations are returned to the ledger.
+     * <p>
+     * The booking component cancels the open bookings of a ship when it is damaged, which may include parked ones. These
+     * are dropped without a decision, as a confirmation would reserve capacity for a booking that stays canceled.
+     *
+     * @return the number of released bookings, without the dropped ones
+     */
+    public int releaseParkedBookings(Long shipId) {
+        int released = 0;
+        AtomicInteger dropped = new AtomicInteger();
+        int chunk;
+        do {
+            try (KafkaSendPipeline.Reservation reservation = reserveDecisions(parkingChunkSize)) {
+                chunk = transactionTemplate.execute(status -> {
+                    if (isDamaged(shipId)) {
+                        return 0;
+                    }
+                    List<ParkedBooking> parked = claim(parkedBookingRepository.lockByShipId(shipId, PageRequest.of(0, parkingChunkSize)));
+                    Set<Long> canceled = parked.isEmpty() ? Set.of() : parkedBookingRepository.findBookingIdsWithStatus(
+                            parked.stream().map(ParkedBooking::getBookingId).collect(Collectors.toList()), BookingStatus.CANCELED);
+                    dropped.addAndGet(canceled.size());
+                    List<BookingDecidedEvent> reservations = releaseOnRollback();
+                    for (ParkedBooking parkedBooking : parked) {
+                        if (canceled.contains(parkedBooking.getBookingId())) {
+                            continue;
+                        }
+                        BookingRequestedEvent booking = parkedBooking.toEvent();
+                        BookingDecidedEvent decision = booking.decide(tryReserve(booking) ? BookingStatus.CONFIRMED : BookingStatus.CANCELED);
+                        if (decision.getBookingStatus() == BookingStatus.CONFIRMED) {
+                            reservations.add(decision);
+                        }
+                        decisionCounters.get(decision.getBookingStatus()).increment();
+                        sendPipeline.send("ship-bookings", decision.getBookingId(), decision);
+                    }
+                    flushReservations(reservations);
+                    return parked.size();
+                });
             }
+            released += chunk;
+        } while (chunk == parkingChunkSize);
+        released -= dropped.get();
+
+        countParking("released", released);
+        if (dropped.get() > 0) {
+            countParking("dropped", dropped.get());
+        }
+        LOG.info("Released {} parked bookings of ship {}, dropped {} canceled ones", released, shipId, dropped.get());
+        return released;
+    }
+
+    /**
+     * Releases the parked bookings of owned ships that are no longer damaged, which covers bookings parked concurrently
+     * with the repair or with a change of the owner, and cancels the bookings parked longer than
+     * {@code shipkafka.bookings.parking.timeout-ms}, which reserve nothing and may be canceled on any node.
+     */
+    @Scheduled(fixedDelayString = "${shipkafka.bookings.parking.sweep-interval-ms:10000}")
+    public void sweepParkedBookings() {
+        for (Long shipId : parkedBookingRepository.findParkedShipIds()) {
+            if (shipPartitionOwner.owns(shipId) && !isDamaged(shipId)) {
+                releaseParkedBookings(shipId);
+            }
+        }
+
+        Date parkedBefore = new Date(System.currentTimeMillis() - parkingTimeoutMillis);
+        int canceled = 0;
+        int chunk;
+        do {
+            try (KafkaSendPipeline.Reservation reservation = reserveDecisions(parkingChunkSize)) {
+                chunk = transactionTemplate.execute(status -> {
+                    List<ParkedBooking> expired = claim(parkedBookingRepository.lockByParkedOnBefore(parkedBefore, PageRequest.of(0, parkingChunkSize)));
+                    for (ParkedBooking parkedBooking : expired) {
+                        BookingRequestedEvent booking = parkedBooking.toEvent();
+                        decisionCounters.get(BookingStatus.CANCELED).increment();
+                        sendPipeline.send("ship-bookings", booking.getBookingId(), booking.decide(BookingStatus.CANCELED));
+                    }
+                    return expired.size();
+                });
+            }
+            canceled += chunk;
+        } while (chunk == parkingChunkSize);
+
+        if (canceled > 0) {
+            countParking("canceled", canceled);
+            LOG.info("Canceled {} bookings parked before {}", canceled, parkedBefore);
         }
+    }
+
+    /**
+     * Removes the locked bookings from the parking before they are decided. If a concurrent transaction removed some of
+     * them first, e.g. on a database without row locks, this transaction rolls back instead of deciding them twice.
+     */
+    private List<ParkedBooking> claim(List<ParkedBooking> parked) {
+        if (parked.isEmpty()) {
+            return parked;
+        }
+        int claimed = parkedBookingRepository.deleteByIds(parked.stream().map(ParkedBooking::getId).collect(Collectors.toList()));
+        if (claimed != parked.size()) {
+            throw new IllegalStateException((parked.size() - claimed) + " parked bookings were claimed concurrently");
+        }
+        return parked;
+    }
+
+    /**
+     * Parked bookings of ships that no longer exist are treated like damaged ones and canceled on timeout.
+     */
+    private boolean isDamaged(Long shipId) {
+        try {
+            return capacityLedger.isDamaged(shipId);
+        } catch (ShipNotFoundException e) {
+            return true;
+        }
+    }
+
+    private boolean tryReserve(BookingRequestedEvent booking) {
+        try {
+            return capacityLedger.tryReserve(booking.getShipId(), booking.getContainerCount());
+        } catch (ShipNotFoundException e) {
+            return false;
+        }
+    }
 
-        template.send("ship-bookings", booking.getId(), booking);
-        LOG.info("Sent: {}", booking);
+    private void countParking(String result, int count) {
+        Counter.builder("shipkafka.bookings.parking")
+                .description("Booking requests for damaged ships parked, released on repair, dropped when canceled meanwhile or canceled on timeout")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment(count);
     }
 
     public <T> void sendMessage(String topic, T message) {
-        template.send(topic, message);
+        sendPipeline.send(topic, message);
         LOG.info("Sent: {}", message);
     }
 
-    public void cancelBookingAndSend(Booking booking) {
-        booking.updateBookingStatus(BookingStatus.CANCELED);
-        template.send("ship-bookings", booking.getId(), booking);
-        LOG.info("Sent: {}", booking);
+    @Transactional
+    public void cancelBookingAndSend(BookingRequestedEvent booking) {
+        idempotentConsumer.markProcessed(CONSUMER, booking.eventId());
+        BookingDecidedEvent decision = booking.decide(BookingStatus.CANCELED);
+        decisionCounters.get(BookingStatus.CANCELED).increment();
+        sendPipeline.send("ship-bookings", decision.getBookingId(), decision);
+        LOG.info("Sent: {}", decision);
     }
 }
@@ -0,0 +1,101 @@
+package com.devonfw.shipkafka.shipcomponent.logic;
+
+import com.devonfw.shipkafka.common.messaging.ShipIdPartitioner;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Makes the consumer of a "bookings" partition the single owner of the ships routed to that partition by the
+ * {@link ShipIdPartitioner}. Their capacity is reloaded into the {@link ShipCapacityLedger} when the partition is
+ * assigned, and flushed and evicted when it is revoked, so the next owner - possibly on another node - starts from the
+ * database state, even if it owned the ships before. The number of partitions is taken from the consumer's metadata,
+ * like the {@link ShipIdPartitioner} does on the producer side. Spring Boot registers this listener on all listener
+ * containers, partitions of other topics are ignored.
+ * <p>
+ * Only the owner's ledger is current, see {@link #owns(Long)}. Other nodes read the ship from the database.
+ */
+@Component
+public class ShipPartitionOwner implements ConsumerAwareRebalanceListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShipPartitionOwner.class);
+
+    private final ShipCapacityLedger capacityLedger;
+
+    private final ShipRepository shipRepository;
+
+    private final Set<Integer> ownedPartitions = ConcurrentHashMap.newKeySet();
+
+    private volatile int partitionCount;
+
+    @Autowired
+    public ShipPartitionOwner(ShipCapacityLedger capacityLedger, ShipRepository shipRepository) {
+        this.capacityLedger = capacityLedger;
+        this.shipRepository = shipRepository;
+    }
+
+    /**
+     * Whether the ship is routed to a "bookings" partition assigned to this node, so its {@link ShipCapacityLedger}
+     * holds the current capacity of the ship.
+     */
+    public boolean owns(Long shipId) {
+        int partitions = partitionCount;
+        return partitions > 0 && ownedPartitions.contains(ShipIdPartitioner.partition(shipId, partitions));
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Set<Integer> revoked = getBookingsPartitions(partitions);
+        if (revoked.isEmpty()) {
+            return;
+        }
+        ownedPartitions.removeAll(revoked);
+        List<Long> shipIds = getShipIds(consumer, revoked);
+        if (!shipIds.isEmpty()) {
+            capacityLedger.flush();
+            capacityLedger.evict(shipIds);
+            LOG.info("Released {} ships of partitions {}", shipIds.size(), partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Set<Integer> assigned = getBookingsPartitions(partitions);
+        if (assigned.isEmpty()) {
+            return;
+        }
+        List<Long> shipIds = getShipIds(consumer, assigned);
+        // owned before the reload, so a change read by the "ship-changes" listener meanwhile is applied, not dropped
+        ownedPartitions.addAll(assigned);
+        if (!shipIds.isEmpty()) {
+            capacityLedger.reload(shipIds);
+            LOG.info("Took over {} ships of partitions {}", shipIds.size(), partitions);
+        }
+    }
+
+    private static Set<Integer> getBookingsPartitions(Collection<TopicPartition> topicPartitions) {
+        return topicPartitions.stream()
+                .filter(topicPartition -> topicPartition.topic().equals("bookings"))
+                .map(TopicPartition::partition)
+                .collect(Collectors.toSet());
+    }
+
+    private List<Long> getShipIds(Consumer<?, ?> consumer, Set<Integer> bookingsPartitions) {
+        int partitions = consumer.partitionsFor("bookings").size();
+        partitionCount = partitions;
+        return shipRepository.findAllIds().stream()
+                .filter(shipId -> bookingsPartitions.contains(ShipIdPartitioner.partition(shipId, partitions)))
+                .collect(Collectors.toList());
+    }
+}
@@ -6,6 +6,8 @@ import com.devonfw.shipkafka.bookingcomponent.domain.repositories.BookingReposit
 import com.devonfw.shipkafka.bookingcomponent.domain.repositories.CustomerRepository;
 import com.devonfw.shipkafka.bookingcomponent.dtos.BookingCreateDTO;
 import com.devonfw.shipkafka.bookingcomponent.dtos.IdDTO;
+import com.devonfw.shipkafka.bookingcomponent.logic.BookingComponentBusinessLogic;
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
 import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
 import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
 import io.restassured.RestAssured;
@@ -23,7 +25,15 @@ import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 
@@ -47,6 +57,9 @@ class BookingRestControllerTest {
     @Autowired
     private ShipRepository shipRepository;
 
+    @Autowired
+    private BookingComponentBusinessLogic bookingComponentBusinessLogic;
+
     private Customer customer;
 
     private Ship ship;
@@ -118,4 +131,149 @@ class BookingRestControllerTest {
                 statusCode(HttpStatus.OK.value());
         //@formatter:on
     }
-}
\ No newline at end of file
+
+    @Test
+    void getBookingsPageAndStreamSuccess() {
+        Long first = addBooking();
+        Long second = addBooking();
+        Long third = addBooking();
+
+        //@formatter:off
+        given().
+                queryParam("size", 2).
+        when().
+                get("/bookings").
+        then().
+                statusCode(HttpStatus.OK.value()).
+                body("id", contains(first.intValue(), second.intValue()));
+
+        given().
+                queryParam("after", second).
+                queryParam("size", 2).
+        when().
+                get("/bookings").
+        then().
+                statusCode(HttpStatus.OK.value()).
+                body("id", contains(third.intValue()));
+
+        String lines = given().
+        when().
+                get("/bookings/stream").
+        then().
+                statusCode(HttpStatus.OK.value()).
+                contentType("application/x-ndjson").
+        extract().
+                asString();
+        //@formatter:on
+
+        assertThat(List.of(lines.split("\n"))).hasSize(3).allMatch(line -> line.startsWith("{"));
+    }
+
+    @Test
+    void addBookingAsyncAccepted() {
+        //@formatter:off
+        String location = given().
+                contentType(ContentType.JSON).
+                header("Prefer", "respond-async").
+                body(new BookingCreateDTO(ship.getId(), 5)).
+        when().
+                post("/customers/{id}/bookings", customer.getId()).
+        then().
+                statusCode(HttpStatus.ACCEPTED.value()).
+                header("Location", endsWith("/status")).
+        extract().
+                header("Location");
+
+        given().
+                queryParam("after", "CONFIRMED").
+        when().
+                get(location).
+        then().
+                statusCode(HttpStatus.OK.value()).
+                body("bookingStatus", equalTo("REQUESTED"));
+        //@formatter:on
+    }
+
+    @Test
+    void addBookingAsyncAmongOtherPreferences() {
+        //@formatter:off
+        given().
+                contentType(ContentType.JSON).
+                header("Prefer", "wait=10, Respond-Async").
+                body(new BookingCreateDTO(ship.getId(), 5)).
+        when().
+                post("/customers/{id}/bookings", customer.getId()).
+        then().
+                statusCode(HttpStatus.ACCEPTED.value()).
+                header("Preference-Applied", "respond-async");
+
+        given().
+                contentType(ContentType.JSON).
+                header("Prefer", "return=minimal").
+                body(new BookingCreateDTO(ship.getId(), 5)).
+        when().
+                post("/customers/{id}/bookings", customer.getId()).
+        then().
+                statusCode(HttpStatus.CREATED.value());
+        //@formatter:on
+    }
+
+    @Test
+    void awaitBookingStatusPushedOnDecision() throws Exception {
+        Long bookingId = addBooking();
+
+        //@formatter:off
+        CompletableFuture<String> status = CompletableFuture.supplyAsync(() -> given().
+                queryParam("timeout", 20_000).
+        when().
+                get("/bookings/{id}/status", bookingId).
+        then().
+                statusCode(HttpStatus.OK.value()).
+        extract().
+                path("bookingStatus"));
+        //@formatter:on
+
+        bookingComponentBusinessLogic.processBooking(bookingId, BookingStatus.CONFIRMED, "test-" + System.nanoTime());
+
+        assertThat(status.get(10, TimeUnit.SECONDS)).isEqualTo("CONFIRMED");
+    }
+
+    @Test
+    void streamBookingStatusSuccess() throws Exception {
+        Long bookingId = addBooking();
+        bookingComponentBusinessLogic.processBooking(bookingId, BookingStatus.CANCELED, "test-" + System.nanoTime());
+
+        //@formatter:off
+        String events = given().
+        when().
+                get("/bookings/{id}/events", bookingId).
+        then().
+                statusCode(HttpStatus.OK.value()).
+                contentType("text/event-stream").
+        extract().
+                asString();
+
+        given().
+        when().
+                get("/bookings/{id}/events", Integer.MAX_VALUE).
+        then().
+                statusCode(HttpStatus.NOT_FOUND.value());
+        //@formatter:on
+
+        assertThat(events).startsWith("event:booking").contains("\"bookingStatus\":\"CANCELED\"");
+    }
+
+    private Long addBooking() {
+        //@formatter:off
+        return given().
+                contentType(ContentType.JSON).
+                body(new BookingCreateDTO(ship.getId(), 1)).
+        when().
+                post("/customers/{id}/bookings", customer.getId()).
+        then().
+                statusCode(HttpStatus.CREATED.value()).
+        extract().
+                body().as(IdDTO.class).getId();
+        //@formatter:on
+    }
+}
@@ -0,0 +1,248 @@
+package com.devonfw.shipkafka.bookingcomponent.api;
+
+import com.devonfw.shipkafka.Application;
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.Customer;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.BookingRepository;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.CustomerRepository;
+import com.devonfw.shipkafka.bookingcomponent.dtos.BookingCreateDTO;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Counts the JDBC statements per endpoint with the Hibernate statistics, so a customer's booking history does not
+ * creep back into paths that do not need it.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "shipkafka.outbox.poll-interval-ms=3600000"})
+@ActiveProfiles(profiles = "testing")
+class CustomerQueryCountTest {
+
+    private static final int HISTORY_SIZE = 50;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private List<Customer> customers;
+
+    @BeforeEach
+    void setUp() {
+        this.customerRepository.deleteAll();
+        this.bookingRepository.deleteAll();
+
+        customers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Customer customer = customerRepository.save(new Customer("Jane", "Doe " + i));
+            customer.addBooking(new Booking(1L, 1));
+            customer.addBooking(new Booking(2L, 2));
+            customers.add(customerRepository.save(customer));
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        RestAssured.port = port;
+        RestAssured.basePath = "";
+    }
+
+    @Test
+    void addBookingIndependentOfHistory() {
+        Customer newCustomer = customerRepository.save(new Customer("Max", "Muster"));
+        long withoutHistory = countAddBookingStatements(newCustomer);
+
+        Customer longTimeCustomer = customerRepository.save(new Customer("Erika", "Muster"));
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            longTimeCustomer.addBooking(new Booking(1L, 1));
+        }
+        customerRepository.save(longTimeCustomer);
+        long withHistory = countAddBookingStatements(longTimeCustomer);
+
+        // customer check, booking and outbox message
+        assertThat(withoutHistory).isLessThanOrEqualTo(3);
+        assertThat(withHistory).isEqualTo(withoutHistory);
+    }
+
+    @Test
+    void addBookingsInBatches() {
+        Customer customer = customerRepository.save(new Customer("Max", "Muster"));
+        List<BookingCreateDTO> bookings = new ArrayList<>();
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            bookings.add(new BookingCreateDTO(1L, 1));
+        }
+
+        //@formatter:off
+        long statements = countStatements(() ->
+            given().
+                    contentType(ContentType.JSON).
+                    body(bookings).
+            when().
+                    post("/customers/{id}/bookings/bulk", customer.getId()).
+            then().
+                    statusCode(HttpStatus.CREATED.value()).
+                    body("id", hasSize(HISTORY_SIZE)));
+        //@formatter:on
+
+        // customer check, at most two sequence calls and one batched insert each for the bookings and outbox messages
+        assertThat(statements).isLessThanOrEqualTo(7);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(2 * HISTORY_SIZE);
+    }
+
+    @Test
+    void getCustomersWithOneQuery() {
+        //@formatter:off
+        long statements = countStatements(() ->
+            given().
+            when().
+                    get("/customers").
+            then().
+                    statusCode(HttpStatus.OK.value()).
+                    body("", hasSize(3)).
+                    body("[0].bookings", hasSize(2)));
+        //@formatter:on
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void getCustomerPageWithTwoQueries() {
+        //@formatter:off
+        long statements = countStatements(() ->
+            given().
+                    param("size", 2).
+            when().
+                    get("/customers").
+            then().
+                    statusCode(HttpStatus.OK.value()).
+                    body("", hasSize(2)).
+                    body("[1].bookings", hasSize(2)));
+        //@formatter:on
+
+        // the ids of the page and the customers with their bookings
+        assertThat(statements).isEqualTo(2);
+    }
+
+    @Test
+    void streamCustomersWithOneQuery() {
+        //@formatter:off
+        long statements = countStatements(() -> {
+            String body =
+            given().
+            when().
+                    get("/customers/stream").
+            then().
+                    statusCode(HttpStatus.OK.value()).
+                    extract().asString();
+            assertThat(body.lines()).hasSize(3).allMatch(line -> line.contains("\"containerCount\":2"));
+        });
+        //@formatter:on
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void getCustomerWithOneQuery() {
+        //@formatter:off
+        long statements = countStatements(() ->
+            given().
+            when().
+                    get("/customers/{id}", customers.get(0).getId()).
+            then().
+                    statusCode(HttpStatus.OK.value()).
+                    body("bookings", hasSize(2)));
+        //@formatter:on
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void getBookingsOfCustomerWithoutLoadingCustomer() {
+        //@formatter:off
+        long statements = countStatements(() ->
+            given().
+            when().
+                    get("/customers/{id}/bookings", customers.get(0).getId()).
+            then().
+                    statusCode(HttpStatus.OK.value()).
+                    body("", hasSize(2)));
+        //@formatter:on
+
+        assertThat(statements).isEqualTo(2);
+    }
+
+    @Test
+    void getCustomerSummariesWithOneQuery() {
+        //@formatter:off
+        long statements = countStatements(() ->
+            given().
+            when().
+                    get("/customers/summaries").
+            then().
+                    statusCode(HttpStatus.OK.value()).
+                    body("bookingCount", hasSize(3)).
+                    body("[0].bookingCount", is(2)));
+        //@formatter:on
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    private void addBooking(Customer customer) {
+        //@formatter:off
+        given().
+                contentType(ContentType.JSON).
+                body(new BookingCreateDTO(1L, 1)).
+        when().
+                post("/customers/{id}/bookings", customer.getId()).
+        then().
+                statusCode(HttpStatus.CREATED.value());
+        //@formatter:on
+    }
+
+    /**
+     * Minimum of three bookings, so the sequence calls for the next block of booking and outbox message ids, which hit
+     * at most one booking each, are not counted.
+     */
+    private long countAddBookingStatements(Customer customer) {
+        long statements = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            statements = Math.min(statements, countStatements(() -> addBooking(customer)));
+        }
+        return statements;
+    }
+
+    private long countStatements(Runnable request) {
+        statistics.clear();
+        request.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -266,6 +266,33 @@ class CustomerRestControllerTest {
         //@formatter:on
     }
 
+    @Test
+    void addBookingFailBecauseOfCustomerDeleted() {
+        //@formatter:off
+        given().
+                contentType(ContentType.JSON).
+                body(new BookingCreateDTO(ship.getId(), 3)).
+        when().
+                post("/customers/{id}/bookings", customer.getId()).
+        then().
+                statusCode(HttpStatus.CREATED.value());
+
+        given().
+        when().
+                delete("/customers/{id}", customer.getId()).
+        then().
+                statusCode(HttpStatus.OK.value());
+
+        given().
+                contentType(ContentType.JSON).
+                body(new BookingCreateDTO(ship.getId(), 3)).
+        when().
+                post("/customers/{id}/bookings", customer.getId()).
+        then().
+                statusCode(HttpStatus.NOT_FOUND.value());
+        //@formatter:on
+    }
+
     @Test
     void addBookingToCustomerFailBecauseOfCustomerNotFound() {
         //@formatter:off
@@ -278,4 +305,44 @@ class CustomerRestControllerTest {
                 statusCode(HttpStatus.NOT_FOUND.value());
         //@formatter:on
     }
-}
\ No newline at end of file
+
+    @Test
+    void addBookingsReportsEachBooking() {
+        //@formatter:off
+        given().
+                contentType(ContentType.JSON).
+                body(Arrays.asList(new BookingCreateDTO(ship.getId(), 2), new BookingCreateDTO(null, 3), new BookingCreateDTO(ship.getId(), 4))).
+        when().
+                post("/customers/{id}/bookings/bulk", customer.getId()).
+        then().
+                statusCode(HttpStatus.CREATED.value()).
+                body("", hasSize(3)).
+                body("[0].id", is(greaterThan(0))).
+                body("[1].id", is(nullValue())).
+                body("[1].error", containsString("shipId")).
+                body("[2].id", is(greaterThan(0)));
+        //@formatter:on
+
+        //@formatter:off
+        given().
+        when().
+                get("/customers/{id}/bookings", customer.getId()).
+        then().
+                statusCode(HttpStatus.OK.value()).
+                body("containerCount", contains(2, 4));
+        //@formatter:on
+    }
+
+    @Test
+    void addBookingsFailBecauseOfCustomerNotFound() {
+        //@formatter:off
+        given().
+                contentType(ContentType.JSON).
+                body(Arrays.asList(new BookingCreateDTO(ship.getId(), 2))).
+        when().
+                post("/customers/{id}/bookings/bulk", Integer.MAX_VALUE).
+        then().
+                statusCode(HttpStatus.NOT_FOUND.value());
+        //@formatter:on
+    }
+}
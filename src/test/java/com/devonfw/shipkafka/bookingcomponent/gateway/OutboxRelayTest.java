@@ -0,0 +1,162 @@
+package com.devonfw.shipkafka.bookingcomponent.gateway;
+
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.OutboxMessage;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.OutboxMessageRepository;
+import com.devonfw.shipkafka.common.messaging.ShipIdPartitioner;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.clients.producer.internals.DefaultPartitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.ProducerListener;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class OutboxRelayTest {
+
+    private static final String TOPIC = "ship-bookings";
+
+    private static final int PARTITIONS = 3;
+
+    private static final long FAILING_KEY = 2L;
+
+    private final OutboxMessageRepository outboxMessageRepository = mock(OutboxMessageRepository.class);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<ProducerRecord<Long, byte[]>> records = Collections.synchronizedList(new ArrayList<>());
+
+    private ProducerFactory<Long, byte[]> relayProducerFactory;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ProducerFactory<Long, byte[]> producerFactory = mock(ProducerFactory.class);
+        relayProducerFactory = mock(ProducerFactory.class);
+        given(producerFactory.copyWithConfigurationOverride(any())).willReturn(relayProducerFactory);
+        // the template closes its producer after every operation, so every operation gets a new one
+        given(relayProducerFactory.createProducer()).willAnswer(invocation -> new FailingProducer());
+        given(outboxMessageRepository.findOldestId()).willReturn(1L);
+
+        outboxRelay = new OutboxRelay(outboxMessageRepository, mock(PlatformTransactionManager.class), producerFactory, mock(ProducerListener.class), meterRegistry,
+                500, 0, 16384);
+    }
+
+    @Test
+    void messagesBeforeFirstFailureDeleted() {
+        given(outboxMessageRepository.lockOldest(any())).willReturn(messages(1L, 2L, 3L));
+
+        outboxRelay.relay();
+
+        // 3 stays behind the failed 2, so it is not sent before it
+        verify(outboxMessageRepository).deleteAllByIdInBatch(List.of(1L));
+        assertThat(meterRegistry.counter("shipkafka.outbox.relayed").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("shipkafka.outbox.failed").count()).isEqualTo(2);
+    }
+
+    @Test
+    void newerMessagesLeftWhileOlderOnesAreLocked() {
+        // 1 is locked by the relay of another node, so the lock skipped it
+        given(outboxMessageRepository.lockOldest(any())).willReturn(messages(3L, 4L));
+
+        outboxRelay.relay();
+
+        assertThat(records).isEmpty();
+        verify(outboxMessageRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void messagesPartitionedByShipId() {
+        given(outboxMessageRepository.lockOldest(any())).willReturn(messages(1L, 3L, 4L, 5L));
+
+        outboxRelay.relay();
+
+        assertThat(records).hasSize(4).allSatisfy(record ->
+                assertThat(record.partition()).isEqualTo(ShipIdPartitioner.partition(shipId(record.key()), PARTITIONS)));
+    }
+
+    @Test
+    void lagOfOldestMessageReported() {
+        given(outboxMessageRepository.findOldestCreatedOn()).willReturn(new Date(System.currentTimeMillis() - 60_000), null);
+        given(outboxMessageRepository.lockOldest(any())).willReturn(messages(1L, 3L), List.of());
+
+        outboxRelay.relay();
+        assertThat(lag()).isGreaterThanOrEqualTo(60_000);
+
+        outboxRelay.relay();
+        assertThat(lag()).isZero();
+    }
+
+    @Test
+    void producerClosed() {
+        outboxRelay.close();
+
+        verify(relayProducerFactory).reset();
+    }
+
+    private double lag() {
+        return meterRegistry.get("shipkafka.outbox.lag").gauge().value();
+    }
+
+    private static List<OutboxMessage> messages(Long... ids) {
+        return Arrays.stream(ids).map(id -> {
+            OutboxMessage message = new OutboxMessage(TOPIC, id, shipId(id), "BookingDecidedEvent", new byte[]{1, 2, 3});
+            ReflectionTestUtils.setField(message, "id", id);
+            return message;
+        }).collect(Collectors.toList());
+    }
+
+    private static Long shipId(Long messageKey) {
+        return messageKey * 7;
+    }
+
+    /**
+     * Completes every send at once and fails the record with {@link #FAILING_KEY}.
+     */
+    private class FailingProducer extends MockProducer<Long, byte[]> {
+
+        private FailingProducer() {
+            super(new Cluster("test", List.of(new Node(0, "localhost", 9092)), IntStream.range(0, PARTITIONS)
+                            .mapToObj(partition -> new PartitionInfo(TOPIC, partition, null, null, null))
+                            .collect(Collectors.toList()), Set.of(), Set.of()),
+                    true, new DefaultPartitioner(), new LongSerializer(), new ByteArraySerializer());
+        }
+
+        @Override
+        public synchronized Future<RecordMetadata> send(ProducerRecord<Long, byte[]> record, Callback callback) {
+            records.add(record);
+            if (record.key() == FAILING_KEY) {
+                KafkaException exception = new KafkaException("broker down");
+                callback.onCompletion(null, exception);
+                return CompletableFuture.failedFuture(exception);
+            }
+            return super.send(record, callback);
+        }
+    }
+}
@@ -2,7 +2,11 @@ package com.devonfw.shipkafka.bookingcomponent.logic;
 
 import com.devonfw.shipkafka.Application;
 import com.devonfw.shipkafka.bookingcomponent.domain.entities.Customer;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.BookingRepository;
 import com.devonfw.shipkafka.bookingcomponent.domain.repositories.CustomerRepository;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.OutboxMessageRepository;
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,8 +15,12 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
@@ -28,6 +36,12 @@ class BookingComponentLogicTest {
     @MockBean
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
     @Test
     void getCustomersSuccess() {
         given(this.customerRepository.findAll()).willReturn(
@@ -37,4 +51,58 @@ class BookingComponentLogicTest {
         assertThat(actual).size().isEqualTo(1);
         assertThat(actual.get(0).getFirstName()).isEqualTo("Jane");
     }
-}
\ No newline at end of file
+
+    @Test
+    void cancelBookingsSuccess() {
+        this.bookingRepository.deleteAll();
+        this.outboxMessageRepository.deleteAll();
+
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 1_200; i++) {
+            Booking booking = new Booking(42L, 1);
+            if (i % 3 == 1) {
+                booking.updateBookingStatus(BookingStatus.CONFIRMED);
+            } else if (i % 3 == 2) {
+                booking.updateBookingStatus(BookingStatus.CANCELED);
+            }
+            bookings.add(booking);
+        }
+        bookings.add(new Booking(43L, 1));
+        bookingRepository.saveAll(bookings);
+
+        int canceled = bookingComponentBusinessLogic.cancelBookings(42L);
+
+        assertThat(canceled).isEqualTo(800);
+        assertThat(bookingRepository.findBookingsByShipId(42L))
+                .allMatch(booking -> booking.getBookingStatus() == BookingStatus.CANCELED);
+        assertThat(bookingRepository.findBookingsByShipId(43L))
+                .allMatch(booking -> booking.getBookingStatus() == BookingStatus.REQUESTED);
+        assertThat(bookingRepository.findBookingsByShipId(42L))
+                .filteredOn(booking -> booking.getVersion() == 1L)
+                .hasSize(800);
+        assertThat(outboxMessageRepository.count()).isEqualTo(800);
+    }
+
+    @Test
+    void concurrentCancellationsPublishEachBookingOnce() throws Exception {
+        this.bookingRepository.deleteAll();
+        this.outboxMessageRepository.deleteAll();
+
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            bookings.add(new Booking(44L, 1));
+        }
+        bookingRepository.saveAll(bookings);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(() -> bookingComponentBusinessLogic.cancelBookings(44L));
+            Future<Integer> second = executor.submit(() -> bookingComponentBusinessLogic.cancelBookings(44L));
+
+            assertThat(first.get() + second.get()).isEqualTo(300);
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(outboxMessageRepository.count()).isEqualTo(300);
+    }
+}
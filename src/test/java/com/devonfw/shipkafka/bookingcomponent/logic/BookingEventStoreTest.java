@@ -0,0 +1,95 @@
+package com.devonfw.shipkafka.bookingcomponent.logic;
+
+import com.devonfw.shipkafka.Application;
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.BookingEvent;
+import com.devonfw.shipkafka.bookingcomponent.domain.entities.Customer;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.BookingSnapshotRepository;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.CustomerRepository;
+import com.devonfw.shipkafka.bookingcomponent.dtos.BookingCreateDTO;
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "shipkafka.booking-events.snapshot-settle-ms=0")
+@ActiveProfiles(profiles = "testing")
+class BookingEventStoreTest {
+
+    @Autowired
+    private BookingComponentBusinessLogic bookingComponentBusinessLogic;
+
+    @Autowired
+    private BookingEventStore bookingEventStore;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private BookingSnapshotRepository bookingSnapshotRepository;
+
+    @Test
+    void rebuildFromSnapshotAndEventsSince() throws Exception {
+        Customer customer = customerRepository.save(new Customer("Jane", "Doe"));
+        Booking confirmed = bookingComponentBusinessLogic.addBooking(customer.getId(), new BookingCreateDTO(7L, 3));
+        Booking canceled = bookingComponentBusinessLogic.addBooking(customer.getId(), new BookingCreateDTO(7L, 5));
+        bookingComponentBusinessLogic.processBooking(confirmed.getId(), BookingStatus.CONFIRMED, "event-store-1");
+        bookingComponentBusinessLogic.processBooking(canceled.getId(), BookingStatus.CONFIRMED, "event-store-2");
+
+        Thread.sleep(5);
+        bookingEventStore.snapshot();
+        assertThat(bookingSnapshotRepository.findLatestCoveredUntil()).isPresent();
+        Date coveredUntil = bookingSnapshotRepository.findLatestCoveredUntil().orElseThrow();
+
+        // another snapshot within the same interval, e.g. by another node, is skipped
+        Thread.sleep(5);
+        bookingEventStore.snapshot();
+        assertThat(bookingSnapshotRepository.findLatestCoveredUntil()).contains(coveredUntil);
+
+        bookingComponentBusinessLogic.processBooking(canceled.getId(), BookingStatus.CANCELED, "event-store-3");
+
+        Map<Long, Booking> bookings = bookingEventStore.rebuild();
+        assertThat(bookings.get(confirmed.getId()).getBookingStatus()).isEqualTo(BookingStatus.CONFIRMED);
+        assertThat(bookings.get(confirmed.getId()).getContainerCount()).isEqualTo(3);
+        assertThat(bookings.get(confirmed.getId()).getCustomerId()).isEqualTo(customer.getId());
+        assertThat(bookings.get(confirmed.getId()).getVersion()).isEqualTo(1L);
+        assertThat(bookings.get(canceled.getId()).getBookingStatus()).isEqualTo(BookingStatus.CANCELED);
+        assertThat(bookings.get(canceled.getId()).getVersion()).isEqualTo(2L);
+
+        assertThat(bookingEventStore.getHistory(canceled.getId()))
+                .extracting(BookingEvent::getBookingStatus)
+                .containsExactly(BookingStatus.REQUESTED, BookingStatus.CONFIRMED, BookingStatus.CANCELED);
+    }
+
+    @Test
+    void replayIgnoresTheOrderOfEvents() {
+        Booking booking = new Booking(7L, 3);
+        booking.setId(1L);
+        BookingEvent requested = new BookingEvent(booking);
+        booking.updateBookingStatus(BookingStatus.CONFIRMED);
+        BookingEvent confirmed = new BookingEvent(booking);
+        booking.updateBookingStatus(BookingStatus.CANCELED);
+        BookingEvent canceled = new BookingEvent(booking);
+
+        BookingReplay replay = new BookingReplay();
+        List.of(canceled, requested, confirmed).forEach(replay::apply);
+        BookingReplay decoded = new BookingReplay();
+        replay.encode(10).forEach(decoded::decode);
+
+        Booking rebuilt = decoded.toBookings().get(1L);
+        assertThat(rebuilt.getBookingStatus()).isEqualTo(BookingStatus.CANCELED);
+        assertThat(rebuilt.getShipId()).isEqualTo(7L);
+        assertThat(rebuilt.getVersion()).isEqualTo(2L);
+    }
+}
@@ -0,0 +1,130 @@
+package com.devonfw.shipkafka.bookingcomponent.view;
+
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import com.devonfw.shipkafka.common.events.BookingDecidedEvent;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.common.messaging.codec.EventSerializer;
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingViewTopologyTest {
+
+    private TopologyTestDriver testDriver;
+
+    private TestInputTopic<Long, BookingRequestedEvent> bookings;
+
+    private TestInputTopic<Long, BookingDecidedEvent> shipBookings;
+
+    private KeyValueStore<Long, Booking> bookingStore;
+
+    private KeyValueStore<CustomerBookingKey, Booking> customerBookingsStore;
+
+    @BeforeEach
+    void setUp() {
+        StreamsBuilder builder = new StreamsBuilder();
+        BookingViewTopology.build(builder, true);
+
+        Properties properties = new Properties();
+        properties.put(StreamsConfig.APPLICATION_ID_CONFIG, "booking-view-test");
+        properties.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        testDriver = new TopologyTestDriver(builder.build(), properties);
+
+        bookings = testDriver.createInputTopic("bookings", new LongSerializer(), new JsonSerializer<>());
+        shipBookings = testDriver.createInputTopic("ship-bookings", new LongSerializer(), new JsonSerializer<>());
+        bookingStore = testDriver.getKeyValueStore(BookingViewTopology.BOOKINGS_STORE);
+        customerBookingsStore = testDriver.getKeyValueStore(BookingViewTopology.CUSTOMER_BOOKINGS_STORE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testDriver.close();
+    }
+
+    @Test
+    void confirmedBookingSuccess() {
+        BookingRequestedEvent booking = booking(1L, 7L);
+        bookings.pipeInput(booking.getBookingId(), booking);
+        assertThat(bookingStore.get(1L).getBookingStatus()).isEqualTo(BookingStatus.REQUESTED);
+
+        shipBookings.pipeInput(booking.getBookingId(), booking.decide(BookingStatus.CONFIRMED));
+
+        assertThat(bookingStore.get(1L).getBookingStatus()).isEqualTo(BookingStatus.CONFIRMED);
+        assertThat(customerBookings(7L))
+                .singleElement()
+                .extracting(Booking::getBookingStatus)
+                .isEqualTo(BookingStatus.CONFIRMED);
+    }
+
+    @Test
+    void compactDecisionSuccess() {
+        TestInputTopic<Long, BookingDecidedEvent> compactShipBookings = testDriver.createInputTopic("ship-bookings", new LongSerializer(),
+                new EventSerializer<BookingDecidedEvent>().compactTopics(List.of("ship-bookings")));
+        BookingRequestedEvent booking = booking(6L, 7L);
+        bookings.pipeInput(booking.getBookingId(), booking);
+
+        compactShipBookings.pipeInput(booking.getBookingId(), booking.decide(BookingStatus.CONFIRMED));
+
+        assertThat(bookingStore.get(6L).getBookingStatus()).isEqualTo(BookingStatus.CONFIRMED);
+        assertThat(bookingStore.get(6L).getCustomerId()).isEqualTo(7L);
+    }
+
+    @Test
+    void decisionBeforeRequestKeepsDecision() {
+        BookingRequestedEvent requested = booking(2L, 7L);
+
+        shipBookings.pipeInput(requested.getBookingId(), requested.decide(BookingStatus.CANCELED));
+        bookings.pipeInput(requested.getBookingId(), requested);
+
+        assertThat(bookingStore.get(2L).getBookingStatus()).isEqualTo(BookingStatus.CANCELED);
+        assertThat(customerBookings(7L)).extracting(Booking::getContainerCount).containsExactly(2);
+    }
+
+    @Test
+    void bookingsOfCustomerSuccess() {
+        bookings.pipeInput(3L, booking(3L, 8L));
+        bookings.pipeInput(4L, booking(4L, 8L));
+        bookings.pipeInput(5L, booking(5L, 9L));
+
+        assertThat(customerBookings(8L)).extracting(Booking::getId).containsExactlyInAnyOrder(3L, 4L);
+        assertThat(customerBookings(9L)).extracting(Booking::getId).containsExactly(5L);
+    }
+
+    @Test
+    void decisionReplacesBookingOfCustomer() {
+        BookingRequestedEvent booking = booking(10L, 11L);
+        bookings.pipeInput(booking.getBookingId(), booking);
+        shipBookings.pipeInput(booking.getBookingId(), booking.decide(BookingStatus.CONFIRMED));
+
+        assertThat(customerBookingsStore.get(new CustomerBookingKey(11L, 10L)).getBookingStatus()).isEqualTo(BookingStatus.CONFIRMED);
+        assertThat(customerBookings(11L)).hasSize(1);
+    }
+
+    private List<Booking> customerBookings(Long customerId) {
+        List<Booking> customerBookings = new ArrayList<>();
+        try (KeyValueIterator<CustomerBookingKey, Booking> iterator =
+                     customerBookingsStore.range(CustomerBookingKey.first(customerId), CustomerBookingKey.last(customerId))) {
+            iterator.forEachRemaining(keyValue -> customerBookings.add(keyValue.value));
+        }
+        return customerBookings;
+    }
+
+    private BookingRequestedEvent booking(Long bookingId, Long customerId) {
+        return new BookingRequestedEvent(bookingId, customerId, 1L, 2);
+    }
+}
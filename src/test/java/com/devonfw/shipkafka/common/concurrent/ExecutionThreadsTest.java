@@ -0,0 +1,16 @@
+package com.devonfw.shipkafka.common.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExecutionThreadsTest {
+
+    @Test
+    void virtualModeFallsBackWithoutVirtualThreads() {
+        ExecutionThreads executionThreads = new ExecutionThreads(ExecutionMode.VIRTUAL);
+
+        assertThat(executionThreads.getMode())
+                .isEqualTo(ExecutionThreads.isVirtualSupported() ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM);
+    }
+}
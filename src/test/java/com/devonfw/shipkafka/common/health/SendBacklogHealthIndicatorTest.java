@@ -0,0 +1,43 @@
+package com.devonfw.shipkafka.common.health;
+
+import com.devonfw.shipkafka.bookingcomponent.gateway.OutboxRelay;
+import com.devonfw.shipkafka.common.messaging.KafkaSendPipeline;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class SendBacklogHealthIndicatorTest {
+
+    private final KafkaSendPipeline sendPipeline = mock(KafkaSendPipeline.class);
+
+    private final OutboxRelay outboxRelay = mock(OutboxRelay.class);
+
+    private final SendBacklogHealthIndicator healthIndicator = new SendBacklogHealthIndicator(sendPipeline, outboxRelay, 0.8, 30_000, 0.5);
+
+    @Test
+    void outOfServiceUntilCaughtUp() {
+        given(sendPipeline.getMaxInFlight()).willReturn(100);
+        assertThat(statusWithInFlight(50)).isEqualTo(Status.UP);
+        assertThat(statusWithInFlight(81)).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(statusWithInFlight(60)).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(statusWithInFlight(39)).isEqualTo(Status.UP);
+        assertThat(statusWithInFlight(60)).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void outOfServiceWhileOutboxLags() {
+        given(sendPipeline.getMaxInFlight()).willReturn(100);
+        given(outboxRelay.getLagMillis()).willReturn(60_000L);
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        given(outboxRelay.getLagMillis()).willReturn(0L);
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    private Status statusWithInFlight(int inFlight) {
+        given(sendPipeline.getInFlight()).willReturn(inFlight);
+        return healthIndicator.health().getStatus();
+    }
+}
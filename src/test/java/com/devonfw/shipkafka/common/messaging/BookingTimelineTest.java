@@ -0,0 +1,123 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import com.devonfw.shipkafka.Application;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.BookingRepository;
+import com.devonfw.shipkafka.bookingcomponent.gateway.BookingComponentMessagingGateway;
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import com.devonfw.shipkafka.common.events.BookingDecidedEvent;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles(profiles = "testing")
+class BookingTimelineTest {
+
+    @Autowired
+    private BookingComponentMessagingGateway bookingListener;
+
+    @Autowired
+    private BookingTimelineInterceptor recordInterceptor;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Tracer tracer;
+
+    @MockBean
+    private KafkaSendPipeline sendPipeline;
+
+    private final BookingTimelineProducerInterceptor producerInterceptor = new BookingTimelineProducerInterceptor();
+
+    @Test
+    void latencyRecordedPerStage() throws Exception {
+        Booking booking = bookingRepository.save(new Booking(1L, 10));
+        BookingRequestedEvent request = new BookingRequestedEvent(booking.getId(), 7L, 1L, 10);
+        long now = System.currentTimeMillis();
+        Headers requestHeaders = new RecordHeaders().add(BookingTimeline.REQUESTED_AT, BookingTimeline.toHeader(now - 300));
+        long total = latencyCount("total");
+
+        ProducerRecord<Object, Object> decisionRecord = new ProducerRecord<>("ship-bookings", booking.getId(), request.decide(BookingStatus.CONFIRMED));
+        consume(record("bookings", now - 200, request, requestHeaders), () -> producerInterceptor.onSend(decisionRecord));
+        BookingDecidedEvent decision = (BookingDecidedEvent) decisionRecord.value();
+        consume(record("ship-bookings", now - 100, decision, decisionRecord.headers()), () -> bookingListener.listenBooking(decision));
+
+        assertThat(BookingTimeline.getTime(decisionRecord.headers(), BookingTimeline.PUBLISHED_AT)).isEqualTo(now - 200);
+        assertThat(latencyCount("total")).isEqualTo(total + 1);
+        Timer outbox = meterRegistry.get("shipkafka.bookings.latency").tags("stage", "outbox", "status", "CONFIRMED").timer();
+        assertThat(outbox.max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(100);
+        assertThat(BookingTimelineInterceptor.currentTimeline()).isEmpty();
+    }
+
+    @Test
+    void timelineWrittenToFile(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("latency.ndjson");
+        BookingLatencyRecorder recorder = new BookingLatencyRecorder(new SimpleMeterRegistry(), tracer, file.toString(), new long[]{1000});
+
+        recorder.record(42L, BookingStatus.CANCELED, new BookingTimeline(1000, 1100, 1300), 1600);
+        recorder.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).containsExactly(
+                "{\"bookingId\":42,\"status\":\"CANCELED\",\"requestedAt\":1000,\"publishedAt\":1100,\"decidedAt\":1300,\"processedAt\":1600,\"traceId\":null}");
+    }
+
+    @Test
+    void incompleteTimelineIgnored() {
+        ConsumerRecord<Object, Object> cancellation = record("ship-bookings", 100, null,
+                new RecordHeaders().add(BookingTimeline.REQUESTED_AT, BookingTimeline.toHeader(50)));
+
+        assertThat(BookingTimeline.of(cancellation)).isEmpty();
+    }
+
+    private long latencyCount(String stage) {
+        Timer timer = meterRegistry.find("shipkafka.bookings.latency").tags("stage", stage, "status", "CONFIRMED").timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private static ConsumerRecord<Object, Object> record(String topic, long timestamp, Object value, Headers headers) {
+        return new ConsumerRecord<>(topic, 0, 0, timestamp, TimestampType.CREATE_TIME, -1, -1, null, value, headers, Optional.empty());
+    }
+
+    private void consume(ConsumerRecord<Object, Object> record, Listener listener) throws Exception {
+        recordInterceptor.intercept(record);
+        try {
+            listener.onMessage();
+        } finally {
+            recordInterceptor.afterRecord(record, null);
+        }
+    }
+
+    private interface Listener {
+        void onMessage() throws Exception;
+    }
+}
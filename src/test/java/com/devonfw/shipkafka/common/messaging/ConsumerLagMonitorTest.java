@@ -0,0 +1,85 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class ConsumerLagMonitorTest {
+
+    private static final TopicPartition ASSIGNED = new TopicPartition("bookings", 0);
+
+    private static final TopicPartition OTHER = new TopicPartition("bookings", 1);
+
+    private static final long INTERVAL_MILLIS = 20;
+
+    private final KafkaListenerEndpointRegistry listenerRegistry = mock(KafkaListenerEndpointRegistry.class);
+
+    private final MessageListenerContainer container = mock(MessageListenerContainer.class);
+
+    private final AdminClient adminClient = mock(AdminClient.class);
+
+    private final ConsumerLagMonitor consumerLagMonitor = new ConsumerLagMonitor(listenerRegistry, mock(KafkaAdmin.class),
+            new SimpleMeterRegistry(), INTERVAL_MILLIS, 1_000);
+
+    @BeforeEach
+    void setUp() {
+        given(container.getListenerId()).willReturn("bookings");
+        given(container.getGroupId()).willReturn("ship");
+        given(container.getContainerProperties()).willReturn(new ContainerProperties("bookings"));
+        given(container.isRunning()).willReturn(true);
+        given(container.getAssignedPartitions()).willReturn(List.of(ASSIGNED));
+        given(listenerRegistry.getListenerContainers()).willReturn(List.of(container));
+
+        ListConsumerGroupOffsetsResult committed = mock(ListConsumerGroupOffsetsResult.class);
+        given(committed.partitionsToOffsetAndMetadata()).willReturn(KafkaFuture.completedFuture(
+                Map.of(ASSIGNED, new OffsetAndMetadata(10), OTHER, new OffsetAndMetadata(10))));
+        given(adminClient.listConsumerGroupOffsets("ship")).willReturn(committed);
+        ListOffsetsResult endOffsets = mock(ListOffsetsResult.class);
+        given(endOffsets.all()).willReturn(KafkaFuture.completedFuture(Map.of(
+                ASSIGNED, new ListOffsetsResult.ListOffsetsResultInfo(15, 0, Optional.empty()),
+                OTHER, new ListOffsetsResult.ListOffsetsResultInfo(20_010, 0, Optional.empty()))));
+        given(adminClient.listOffsets(any())).willReturn(endOffsets);
+        ReflectionTestUtils.setField(consumerLagMonitor, "adminClient", adminClient);
+    }
+
+    @Test
+    void lagOfAssignedPartitionsOnly() {
+        assertThat(consumerLagMonitor.getAssignedLag(container)).isEmpty();
+
+        consumerLagMonitor.update();
+
+        assertThat(consumerLagMonitor.getAssignedLag(container)).isEqualTo(OptionalLong.of(5));
+    }
+
+    @Test
+    void staleLagUnknown() throws InterruptedException {
+        consumerLagMonitor.update();
+        assertThat(consumerLagMonitor.getAssignedLag(container)).isPresent();
+
+        // no sample since, as while the broker cannot be reached
+        Thread.sleep(4 * INTERVAL_MILLIS);
+
+        assertThat(consumerLagMonitor.getAssignedLag(container)).isEmpty();
+    }
+}
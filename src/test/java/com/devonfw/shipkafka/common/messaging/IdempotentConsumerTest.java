@@ -0,0 +1,142 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import com.devonfw.shipkafka.Application;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.BookingRepository;
+import com.devonfw.shipkafka.bookingcomponent.gateway.BookingComponentMessagingGateway;
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import com.devonfw.shipkafka.common.events.BookingDecidedEvent;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.shipcomponent.api.ShipRestController;
+import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import com.devonfw.shipkafka.shipcomponent.exceptions.ShipNotFoundException;
+import com.devonfw.shipkafka.shipcomponent.logic.ShipCapacityLedger;
+import com.devonfw.shipkafka.shipcomponent.logic.ShipComponentLogic;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles(profiles = "testing")
+class IdempotentConsumerTest {
+
+    @Autowired
+    private ShipRestController shipListener;
+
+    @Autowired
+    private BookingComponentMessagingGateway bookingListener;
+
+    @Autowired
+    private IdempotentConsumer idempotentConsumer;
+
+    @Autowired
+    private ShipCapacityLedger capacityLedger;
+
+    @Autowired
+    private ShipComponentLogic shipComponentLogic;
+
+    @Autowired
+    private ShipRepository shipRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private KafkaSendPipeline sendPipeline;
+
+    private Ship ship;
+
+    @BeforeEach
+    void setUp() {
+        ship = shipRepository.save(new Ship("Mein Schiff 42", 100));
+    }
+
+    @Test
+    void duplicateRequestDecidedOnce() throws Exception {
+        BookingRequestedEvent booking = new BookingRequestedEvent(System.nanoTime(), 7L, ship.getId(), 10);
+        double duplicates = duplicates(ShipComponentLogic.CONSUMER);
+
+        shipListener.onBookingEvent(booking);
+        shipListener.onBookingEvent(booking);
+        shipListener.onBookingEvent(new BookingRequestedEvent(booking.getBookingId(), 7L, ship.getId(), 10));
+
+        assertThat(capacityLedger.getAvailableContainers(ship.getId())).isEqualTo(90);
+        verify(sendPipeline, times(1)).send(eq("ship-bookings"), eq(booking.getBookingId()), any(BookingDecidedEvent.class));
+        assertThat(duplicates(ShipComponentLogic.CONSUMER)).isEqualTo(duplicates + 2);
+    }
+
+    @Test
+    void failedRequestProcessedAgain() {
+        BookingRequestedEvent booking = new BookingRequestedEvent(System.nanoTime(), 7L, Long.MAX_VALUE, 10);
+
+        assertThatThrownBy(() -> shipListener.onBookingEvent(booking)).isInstanceOf(ShipNotFoundException.class);
+        assertThat(idempotentConsumer.isProcessed(ShipComponentLogic.CONSUMER, booking.eventId())).isFalse();
+    }
+
+    @Test
+    void parkedRequestDecidedOnce() throws Exception {
+        BookingRequestedEvent booking = new BookingRequestedEvent(System.nanoTime(), 7L, ship.getId(), 10);
+        capacityLedger.setDamaged(ship.getId(), true);
+
+        shipListener.onBookingEvent(booking);
+        shipListener.onBookingEvent(booking);
+        assertThat(idempotentConsumer.isProcessed(ShipComponentLogic.CONSUMER, booking.eventId())).isTrue();
+
+        capacityLedger.setDamaged(ship.getId(), false);
+        shipComponentLogic.releaseParkedBookings(ship.getId());
+
+        verify(sendPipeline, times(1)).send(eq("ship-bookings"), eq(booking.getBookingId()), any(BookingDecidedEvent.class));
+        assertThat(capacityLedger.getAvailableContainers(ship.getId())).isEqualTo(90);
+    }
+
+    @Test
+    void duplicateDecisionAppliedOnce() throws Exception {
+        Booking booking = bookingRepository.save(new Booking(ship.getId(), 10));
+        BookingDecidedEvent decision = new BookingDecidedEvent(booking.getId(), 7L, ship.getId(), 10, BookingStatus.CONFIRMED);
+
+        bookingListener.listenBooking(decision);
+        bookingListener.listenBooking(decision);
+
+        Booking actual = bookingRepository.findById(booking.getId()).orElseThrow();
+        assertThat(actual.getBookingStatus()).isEqualTo(BookingStatus.CONFIRMED);
+        assertThat(actual.getVersion()).isEqualTo(booking.getVersion() + 1);
+    }
+
+    @Test
+    void cacheBoundedBySizeAndTime() {
+        Cache<String, Boolean> cache = IdempotentConsumer.processedEventCache(2, 60_000);
+        cache.put("a", Boolean.TRUE);
+        cache.put("b", Boolean.TRUE);
+        cache.put("c", Boolean.TRUE);
+        cache.cleanUp();
+
+        assertThat(cache.estimatedSize()).isEqualTo(2);
+
+        Cache<String, Boolean> expired = IdempotentConsumer.processedEventCache(2, 0);
+        expired.put("a", Boolean.TRUE);
+        assertThat(expired.getIfPresent("a")).isNull();
+    }
+
+    private double duplicates(String consumer) {
+        return meterRegistry.counter("shipkafka.idempotency.events", "consumer", consumer, "result", "duplicate").count();
+    }
+}
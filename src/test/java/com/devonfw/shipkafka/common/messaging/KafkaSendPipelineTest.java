@@ -0,0 +1,139 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.ProducerListener;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class KafkaSendPipelineTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<Object, Object> template = mock(KafkaTemplate.class);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @SuppressWarnings("unchecked")
+    private final KafkaSendPipeline sendPipeline = new KafkaSendPipeline(template, mock(ProducerFactory.class),
+            mock(ProducerListener.class), new MockEnvironment(), meterRegistry, 1, 10);
+
+    @Test
+    void sendBlockedWhileRecordInFlight() {
+        SettableListenableFuture<SendResult<Object, Object>> first = new SettableListenableFuture<>();
+        given(template.send(eq("test"), any(), any())).willReturn(first, new SettableListenableFuture<>());
+
+        sendPipeline.send("test", 1L, "first");
+        assertThat(sendPipeline.getInFlight()).isEqualTo(1);
+        assertThatThrownBy(() -> sendPipeline.send("test", 2L, "second")).isInstanceOf(KafkaException.class);
+        assertThat(errors("rejected")).isEqualTo(1);
+
+        first.set(null);
+        assertThat(sendPipeline.getInFlight()).isZero();
+        sendPipeline.send("test", 2L, "second");
+        assertThat(sendPipeline.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void failedSendCounted() {
+        SettableListenableFuture<SendResult<Object, Object>> future = new SettableListenableFuture<>();
+        given(template.send(eq("test"), any(), any())).willReturn(future);
+
+        sendPipeline.send("test", "message");
+        future.setException(new KafkaException("broker down"));
+
+        assertThat(errors("failed")).isEqualTo(1);
+        assertThat(sendPipeline.getInFlight()).isZero();
+    }
+
+    @Test
+    void sendTimedUntilAcknowledged() {
+        SettableListenableFuture<SendResult<Object, Object>> acknowledged = new SettableListenableFuture<>();
+        SettableListenableFuture<SendResult<Object, Object>> failed = new SettableListenableFuture<>();
+        given(template.send(eq("test"), any(), any())).willReturn(acknowledged, failed);
+
+        sendPipeline.send("test", 1L, "first");
+        assertThat(sendTimer("success").count()).isZero();
+        acknowledged.set(null);
+        sendPipeline.send("test", 2L, "second");
+        failed.setException(new KafkaException("broker down"));
+
+        assertThat(sendTimer("success").count()).isEqualTo(1);
+        assertThat(sendTimer("failure").count()).isEqualTo(1);
+    }
+
+    @Test
+    void reservedPermitsUsedBySends() {
+        given(template.send(eq("test"), any(), any())).willReturn(new SettableListenableFuture<>());
+
+        try (KafkaSendPipeline.Reservation reservation = sendPipeline.reserve("test", 5)) {
+            assertThat(sendPipeline.getInFlight()).isEqualTo(1);
+            sendPipeline.send("test", 1L, "first");
+            assertThat(sendPipeline.getInFlight()).isEqualTo(1);
+        }
+        assertThat(sendPipeline.getInFlight()).isEqualTo(1);
+
+        assertThatThrownBy(() -> sendPipeline.reserve("test", 1)).isInstanceOf(KafkaException.class);
+    }
+
+    @Test
+    void unusedReservationReturned() {
+        sendPipeline.reserve("test", 1).close();
+
+        assertThat(sendPipeline.getInFlight()).isZero();
+    }
+
+    @Test
+    void failedSendFailsCommit() {
+        SettableListenableFuture<SendResult<Object, Object>> future = new SettableListenableFuture<>();
+        given(template.send(eq("test"), any(), any())).willReturn(future);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            sendPipeline.send("test", 1L, "message");
+            future.setException(new KafkaException("broker down"));
+
+            assertThatThrownBy(() -> TransactionSynchronizationUtils.triggerBeforeCommit(false)).isInstanceOf(KafkaException.class);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private Timer sendTimer(String result) {
+        return meterRegistry.timer("shipkafka.kafka.send", "topic", "test", "result", result);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void profileProducersClosed() {
+        ProducerFactory<Object, Object> producerFactory = mock(ProducerFactory.class);
+        ProducerFactory<Object, Object> profileProducerFactory = mock(ProducerFactory.class);
+        given(producerFactory.copyWithConfigurationOverride(any())).willReturn(profileProducerFactory);
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("shipkafka.kafka.producer.topic-profiles.first", "HIGH_THROUGHPUT")
+                .withProperty("shipkafka.kafka.producer.topic-profiles.second", "HIGH_THROUGHPUT");
+
+        new KafkaSendPipeline(template, producerFactory, mock(ProducerListener.class), environment, meterRegistry, 1, 10).close();
+
+        verify(profileProducerFactory).reset();
+    }
+
+    private double errors(String reason) {
+        return meterRegistry.counter("shipkafka.kafka.send.errors", "topic", "test", "reason", reason).count();
+    }
+}
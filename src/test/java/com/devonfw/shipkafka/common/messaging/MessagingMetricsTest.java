@@ -0,0 +1,74 @@
+package com.devonfw.shipkafka.common.messaging;
+
+import com.devonfw.shipkafka.Application;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import com.devonfw.shipkafka.shipcomponent.logic.ShipComponentLogic;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.Producer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles(profiles = "testing")
+class MessagingMetricsTest {
+
+    @Autowired
+    private ShipComponentLogic shipComponentLogic;
+
+    @Autowired
+    private ShipRepository shipRepository;
+
+    @Autowired
+    private ProducerFactory<Long, Object> producerFactory;
+
+    @Autowired
+    private ConsumerLagMonitor consumerLagMonitor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private KafkaSendPipeline sendPipeline;
+
+    @Test
+    void confirmBookingTimedAndCounted() throws Exception {
+        Ship ship = shipRepository.save(new Ship("Mein Schiff 43", 15));
+        long confirmed = meterRegistry.timer("shipkafka.bookings.confirm", "mode", "record").count();
+        double canceled = meterRegistry.counter("shipkafka.bookings.decisions", "status", "CANCELED").count();
+
+        shipComponentLogic.confirmBooking(new BookingRequestedEvent(System.nanoTime(), 7L, ship.getId(), 10));
+        shipComponentLogic.confirmBooking(new BookingRequestedEvent(System.nanoTime(), 7L, ship.getId(), 10));
+
+        assertThat(meterRegistry.timer("shipkafka.bookings.confirm", "mode", "record").count()).isEqualTo(confirmed + 2);
+        assertThat(meterRegistry.counter("shipkafka.bookings.decisions", "status", "CANCELED").count()).isEqualTo(canceled + 1);
+    }
+
+    @Test
+    void kafkaClientMetricsRegistered() {
+        try (Producer<Long, Object> producer = producerFactory.createProducer()) {
+            assertThat(meterRegistry.getMeters()).anyMatch(meter -> meter.getId().getName().startsWith("kafka.producer."));
+        }
+    }
+
+    @Test
+    void consumerLagGaugedPerListener() {
+        consumerLagMonitor.update();
+
+        for (String listenerId : List.of("bookings", "ship-bookings", "ship-damaged")) {
+            assertThat(meterRegistry.find("shipkafka.kafka.consumer.lag").tag("listener", listenerId).gauge()).isNotNull();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.devonfw.shipkafka.common.messaging.codec;
+
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.events.BookingDecidedEvent;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.common.events.ShipDamagedEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactCodecTest {
+
+    @Test
+    void bookingEventsRoundTripSuccess() {
+        BookingRequestedEvent requested = new BookingRequestedEvent(4711L, 7L, 42L, 3);
+        BookingDecidedEvent decided = requested.decide(BookingStatus.CONFIRMED);
+
+        assertThat(CompactCodec.decode(CompactCodec.encode(requested))).isEqualTo(requested);
+        assertThat(CompactCodec.decode(CompactCodec.encode(decided))).isEqualTo(decided);
+    }
+
+    @Test
+    void bookingEventsWithNullsRoundTripSuccess() {
+        BookingRequestedEvent requested = new BookingRequestedEvent(null, null, null, -1);
+        BookingDecidedEvent decided = requested.decide(null);
+
+        assertThat(CompactCodec.decode(CompactCodec.encode(requested))).isEqualTo(requested);
+        assertThat(CompactCodec.decode(CompactCodec.encode(decided))).isEqualTo(decided);
+    }
+
+    @Test
+    void shipDamagedEventRoundTripSuccess() {
+        assertThat(CompactCodec.decode(CompactCodec.encode(new ShipDamagedEvent(42L)))).isEqualTo(new ShipDamagedEvent(42L));
+        assertThat(CompactCodec.decode(CompactCodec.encode(new ShipDamagedEvent(null)))).isEqualTo(new ShipDamagedEvent(null));
+    }
+
+    @Test
+    void decodeFailBecauseOfUnknownVersion() {
+        byte[] data = CompactCodec.encode(new ShipDamagedEvent(42L));
+        data[1] = CompactCodec.VERSION + 1;
+
+        assertThatThrownBy(() -> CompactCodec.decode(data)).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void serializeCompactOnlyForConfiguredTopics() {
+        EventSerializer<Object> serializer = new EventSerializer<>();
+        serializer.configure(Map.of(EventSerializer.COMPACT_TOPICS, "bookings, ship-damaged"), false);
+        BookingRequestedEvent booking = new BookingRequestedEvent(4711L, 7L, 42L, 3);
+
+        assertThat(CompactCodec.isCompact(serializer.serialize("bookings", new RecordHeaders(), booking))).isTrue();
+        assertThat(CompactCodec.isCompact(serializer.serialize("bookings-retry-5000", new RecordHeaders(), booking))).isTrue();
+        assertThat(CompactCodec.isCompact(serializer.serialize("ship-bookings", new RecordHeaders(), booking))).isFalse();
+        assertThat(CompactCodec.isCompact(serializer.serialize("ship-damaged", new RecordHeaders(), new ShipDamagedEvent(42L)))).isTrue();
+        assertThat(CompactCodec.isCompact(serializer.serialize("bookings", new RecordHeaders(), "no event"))).isFalse();
+    }
+
+    @Test
+    void deserializeCompactAndJsonSuccess() {
+        BookingDecidedEvent booking = new BookingDecidedEvent(4711L, 7L, 42L, 3, BookingStatus.CONFIRMED);
+        EventDeserializer<Object> deserializer = new EventDeserializer<>();
+        deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+
+        RecordHeaders headers = new RecordHeaders();
+        byte[] json = new JsonSerializer<>().serialize("ship-bookings", headers, booking);
+        byte[] compact = CompactCodec.encode(booking);
+
+        assertThat(deserializer.deserialize("ship-bookings", headers, json)).isEqualTo(booking);
+        assertThat(deserializer.deserialize("ship-bookings", new RecordHeaders(), compact)).isEqualTo(booking);
+        assertThat(compact.length).isLessThan(json.length / 4);
+    }
+}
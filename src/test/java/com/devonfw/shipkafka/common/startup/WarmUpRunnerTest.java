@@ -0,0 +1,56 @@
+package com.devonfw.shipkafka.common.startup;
+
+import com.devonfw.shipkafka.Application;
+import com.devonfw.shipkafka.common.messaging.IdempotentConsumer;
+import com.devonfw.shipkafka.common.messaging.KafkaSendPipeline;
+import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ParkedBookingRepository;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import com.devonfw.shipkafka.shipcomponent.logic.ShipComponentLogic;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {"shipkafka.warm-up.enabled=true", "shipkafka.warm-up.iterations=20"})
+@ActiveProfiles(profiles = "testing")
+class WarmUpRunnerTest {
+
+    @Autowired
+    private ShipRepository shipRepository;
+
+    @Autowired
+    private ParkedBookingRepository parkedBookingRepository;
+
+    @Autowired
+    private IdempotentConsumer idempotentConsumer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private KafkaSendPipeline sendPipeline;
+
+    @Test
+    void warmUpLeavesNoTrace() {
+        assertThat(shipRepository.findAll()).extracting(Ship::getName).doesNotContain("Warm-up");
+        assertThat(parkedBookingRepository.findParkedShipIds()).isEmpty();
+        assertThat(idempotentConsumer.isProcessed(ShipComponentLogic.CONSUMER, "requested--1")).isFalse();
+        verifyNoInteractions(sendPipeline);
+    }
+
+    @Test
+    void warmUpMetersRemoved() {
+        assertThat(meterRegistry.find("shipkafka.bookings.confirm").tag("mode", "record").timer()).isNull();
+        assertThat(meterRegistry.find("shipkafka.bookings.parking").tag("result", "parked").counter()).isNull();
+    }
+}
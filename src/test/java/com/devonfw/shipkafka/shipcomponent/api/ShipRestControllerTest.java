@@ -0,0 +1,172 @@
+package com.devonfw.shipkafka.shipcomponent.api;
+
+import com.devonfw.shipkafka.Application;
+import com.devonfw.shipkafka.common.config.CacheConfiguration;
+import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import com.devonfw.shipkafka.shipcomponent.dtos.ShipUpdateDTO;
+import com.devonfw.shipkafka.shipcomponent.logic.ShipCapacityLedger;
+import com.devonfw.shipkafka.shipcomponent.logic.ShipPartitionOwner;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJsonTesters;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "shipkafka.ship-capacity-ledger.flush-interval-ms=3600000")
+@AutoConfigureJsonTesters
+@ActiveProfiles(profiles = "testing")
+class ShipRestControllerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ShipRepository shipRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ShipCapacityLedger capacityLedger;
+
+    @MockBean
+    private ShipPartitionOwner shipPartitionOwner;
+
+    private Ship ship;
+
+    private Cache shipCache;
+
+    @BeforeEach
+    void setUp() {
+        ship = shipRepository.save(new Ship("Mein Schiff 42", 10));
+        shipCache = cacheManager.getCache(CacheConfiguration.SHIPS);
+
+        RestAssured.port = port;
+        RestAssured.basePath = "";
+        given(shipPartitionOwner.owns(any())).willReturn(true);
+    }
+
+    @Test
+    void getShipFromCache() {
+        double hits = cacheGets("hit");
+        double misses = cacheGets("miss");
+
+        for (int i = 0; i < 3; i++) {
+            //@formatter:off
+            RestAssured.given().
+            when().
+                    get("/ships/{id}", ship.getId()).
+            then().
+                    statusCode(HttpStatus.OK.value()).
+                    body("name", equalTo("Mein Schiff 42")).
+                    body("availableContainers", equalTo(10));
+            //@formatter:on
+        }
+
+        assertThat(cacheGets("miss") - misses).isEqualTo(1);
+        assertThat(cacheGets("hit") - hits).isEqualTo(2);
+    }
+
+    @Test
+    void updateShipEvictsCache() {
+        //@formatter:off
+        RestAssured.given().
+        when().
+                get("/ships/{id}", ship.getId()).
+        then().
+                statusCode(HttpStatus.OK.value());
+        //@formatter:on
+        assertThat(shipCache.get(ship.getId())).isNotNull();
+
+        //@formatter:off
+        RestAssured.given().
+                contentType(ContentType.JSON).
+                body(new ShipUpdateDTO(ship.getId(), 20, null)).
+        when().
+                put("/ships").
+        then().
+                statusCode(HttpStatus.OK.value());
+        //@formatter:on
+        assertThat(shipCache.get(ship.getId())).isNull();
+
+        // the owner applies the change to its ledger when it receives it from "ship-changes"
+        given(shipPartitionOwner.owns(ship.getId())).willReturn(false);
+        //@formatter:off
+        RestAssured.given().
+        when().
+                get("/ships/{id}", ship.getId()).
+        then().
+                statusCode(HttpStatus.OK.value()).
+                body("availableContainers", equalTo(20));
+        //@formatter:on
+    }
+
+    @Test
+    void updateShipKeepsFlushedReservations() throws Exception {
+        assertThat(capacityLedger.tryReserve(ship.getId(), 4)).isTrue();
+        capacityLedger.flush();
+
+        //@formatter:off
+        RestAssured.given().
+                contentType(ContentType.JSON).
+                body(new ShipUpdateDTO(ship.getId(), null, true)).
+        when().
+                put("/ships").
+        then().
+                statusCode(HttpStatus.OK.value()).
+                body("availableContainers", equalTo(6)).
+                body("damaged", equalTo(true));
+        //@formatter:on
+
+        Ship updated = shipRepository.findById(ship.getId()).orElseThrow();
+        assertThat(updated.getAvailableContainers()).isEqualTo(6);
+        assertThat(updated.isDamaged()).isTrue();
+    }
+
+    @Test
+    void getShipFromDatabaseWithoutOwnership() throws Exception {
+        given(shipPartitionOwner.owns(ship.getId())).willReturn(false);
+        capacityLedger.setAvailableContainers(ship.getId(), 3);
+        double hits = cacheGets("hit");
+        double misses = cacheGets("miss");
+
+        //@formatter:off
+        RestAssured.given().
+        when().
+                get("/ships/{id}", ship.getId()).
+        then().
+                statusCode(HttpStatus.OK.value()).
+                body("name", equalTo("Mein Schiff 42")).
+                body("availableContainers", equalTo(10));
+        //@formatter:on
+
+        assertThat(cacheGets("miss")).isEqualTo(misses);
+        assertThat(cacheGets("hit")).isEqualTo(hits);
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", CacheConfiguration.SHIPS).tag("result", result).functionCounter().count();
+    }
+}
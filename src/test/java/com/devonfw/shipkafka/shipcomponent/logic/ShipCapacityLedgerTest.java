@@ -0,0 +1,112 @@
+package com.devonfw.shipkafka.shipcomponent.logic;
+
+import com.devonfw.shipkafka.Application;
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.events.BookingDecidedEvent;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import com.devonfw.shipkafka.common.messaging.KafkaSendPipeline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles(profiles = "testing")
+class ShipCapacityLedgerTest {
+
+    private static final int THREADS = 8;
+
+    private static final int BOOKINGS_PER_THREAD = 500;
+
+    private static final int CAPACITY = 1_000;
+
+    @Autowired
+    private ShipComponentLogic shipComponentLogic;
+
+    @Autowired
+    private ShipCapacityLedger capacityLedger;
+
+    @Autowired
+    private ShipRepository shipRepository;
+
+    @MockBean
+    private KafkaSendPipeline sendPipeline;
+
+    private Ship ship;
+
+    @BeforeEach
+    void setUp() {
+        this.shipRepository.deleteAll();
+
+        ship = this.shipRepository.save(new Ship("Mein Schiff 42", CAPACITY));
+    }
+
+    @Test
+    void concurrentBookingsNeverOversellShip() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<BookingDecidedEvent>>> futures = new ArrayList<>();
+        long firstId = System.nanoTime();
+        for (int i = 0; i < THREADS; i++) {
+            long thread = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<BookingDecidedEvent> decisions = new ArrayList<>();
+                for (int j = 0; j < BOOKINGS_PER_THREAD; j++) {
+                    BookingRequestedEvent booking = new BookingRequestedEvent(firstId + thread * BOOKINGS_PER_THREAD + j, 7L, ship.getId(), 1);
+                    decisions.add(shipComponentLogic.confirmBooking(booking));
+                }
+                return decisions;
+            }));
+        }
+        start.countDown();
+
+        int confirmed = 0;
+        int canceled = 0;
+        for (Future<List<BookingDecidedEvent>> future : futures) {
+            for (BookingDecidedEvent booking : future.get(1, TimeUnit.MINUTES)) {
+                if (booking.getBookingStatus() == BookingStatus.CONFIRMED) {
+                    confirmed++;
+                } else if (booking.getBookingStatus() == BookingStatus.CANCELED) {
+                    canceled++;
+                }
+            }
+        }
+        executor.shutdown();
+
+        // a booking is only confirmed while the ship has more containers left than requested
+        assertThat(confirmed).isEqualTo(CAPACITY - 1);
+        assertThat(canceled).isEqualTo(THREADS * BOOKINGS_PER_THREAD - confirmed);
+        assertThat(capacityLedger.getAvailableContainers(ship.getId())).isEqualTo(1);
+
+        capacityLedger.flush();
+        assertThat(shipRepository.findById(ship.getId()).orElseThrow().getAvailableContainers()).isEqualTo(1);
+    }
+
+    @Test
+    void flushOnlyWritesAvailableContainers() throws Exception {
+        assertThat(capacityLedger.tryReserve(ship.getId(), 10)).isTrue();
+        Ship updated = shipRepository.findById(ship.getId()).orElseThrow();
+        updated.setDamaged(true);
+        shipRepository.save(updated);
+
+        capacityLedger.flush();
+
+        Ship flushed = shipRepository.findById(ship.getId()).orElseThrow();
+        assertThat(flushed.getAvailableContainers()).isEqualTo(CAPACITY - 10);
+        assertThat(flushed.isDamaged()).isTrue();
+    }
+}
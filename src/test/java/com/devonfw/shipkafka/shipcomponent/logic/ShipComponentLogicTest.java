@@ -0,0 +1,306 @@
+package com.devonfw.shipkafka.shipcomponent.logic;
+
+import com.devonfw.shipkafka.Application;
+import com.devonfw.shipkafka.bookingcomponent.domain.repositories.BookingRepository;
+import com.devonfw.shipkafka.bookingcomponent.logic.BookingComponentBusinessLogic;
+import com.devonfw.shipkafka.common.domain.datatypes.BookingStatus;
+import com.devonfw.shipkafka.common.domain.entities.Booking;
+import com.devonfw.shipkafka.common.events.BookingRequestedEvent;
+import com.devonfw.shipkafka.common.events.ShipChangedEvent;
+import com.devonfw.shipkafka.shipcomponent.domain.entities.Ship;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ParkedBookingRepository;
+import com.devonfw.shipkafka.shipcomponent.domain.repositories.ShipRepository;
+import com.devonfw.shipkafka.shipcomponent.exceptions.ShipNotFoundException;
+import com.devonfw.shipkafka.common.messaging.KafkaSendPipeline;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {"shipkafka.bookings.parking.sweep-interval-ms=3600000", "shipkafka.ship-capacity-ledger.flush-interval-ms=3600000"})
+@ActiveProfiles(profiles = "testing")
+class ShipComponentLogicTest {
+
+    private static final int BOOKING_COUNT = 5_000;
+
+    private static final int BATCH_SIZE = 500;
+
+    private final Log log = LogFactory.getLog(getClass());
+
+    @Autowired
+    private ShipComponentLogic shipComponentLogic;
+
+    @Autowired
+    private ShipCapacityLedger capacityLedger;
+
+    @Autowired
+    private ShipRepository shipRepository;
+
+    @Autowired
+    private ParkedBookingRepository parkedBookingRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingComponentBusinessLogic bookingComponentBusinessLogic;
+
+    @MockBean
+    private KafkaSendPipeline sendPipeline;
+
+    @MockBean
+    private ShipPartitionOwner shipPartitionOwner;
+
+    private List<Ship> ships;
+
+    @BeforeEach
+    void setUp() {
+        this.shipRepository.deleteAll();
+
+        ships = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ships.add(shipRepository.save(new Ship("Mein Schiff " + i, BOOKING_COUNT)));
+        }
+    }
+
+    @Test
+    void confirmBookingsSuccess() {
+        Ship damagedShip = shipRepository.save(new Ship("Mein Wrack", 10, true));
+        long firstId = System.nanoTime();
+        BookingRequestedEvent confirmed = new BookingRequestedEvent(firstId, 7L, ships.get(0).getId(), 3);
+        BookingRequestedEvent tooLarge = new BookingRequestedEvent(firstId + 1, 7L, ships.get(1).getId(), BOOKING_COUNT);
+        BookingRequestedEvent damaged = new BookingRequestedEvent(firstId + 2, 7L, damagedShip.getId(), 1);
+        BookingRequestedEvent unknownShip = new BookingRequestedEvent(firstId + 3, 7L, Long.MAX_VALUE, 1);
+
+        Map<BookingRequestedEvent, Exception> failed = shipComponentLogic.confirmBookings(List.of(confirmed, tooLarge, damaged, unknownShip));
+
+        verify(sendPipeline).send("ship-bookings", confirmed.getBookingId(), confirmed.decide(BookingStatus.CONFIRMED));
+        verify(sendPipeline).send("ship-bookings", tooLarge.getBookingId(), tooLarge.decide(BookingStatus.CANCELED));
+        verify(sendPipeline, never()).send(eq("ship-bookings"), eq(damaged.getBookingId()), any());
+        assertThat(failed).hasSize(1);
+        assertThat(failed.get(unknownShip)).isInstanceOf(ShipNotFoundException.class);
+        assertThat(parkedBookingRepository.countByShipId(damagedShip.getId())).isEqualTo(1);
+        capacityLedger.flush();
+        assertThat(shipRepository.findById(ships.get(0).getId()).orElseThrow().getAvailableContainers()).isEqualTo(BOOKING_COUNT - 3);
+    }
+
+    @Test
+    void reservationsWrittenWithDecision() throws Exception {
+        long firstId = System.nanoTime();
+        shipComponentLogic.confirmBooking(new BookingRequestedEvent(firstId, 7L, ships.get(0).getId(), 3));
+        shipComponentLogic.confirmBookings(List.of(new BookingRequestedEvent(firstId + 1, 7L, ships.get(1).getId(), 2)));
+
+        assertThat(shipRepository.findById(ships.get(0).getId()).orElseThrow().getAvailableContainers()).isEqualTo(BOOKING_COUNT - 3);
+        assertThat(shipRepository.findById(ships.get(1).getId()).orElseThrow().getAvailableContainers()).isEqualTo(BOOKING_COUNT - 2);
+    }
+
+    @Test
+    void parkedBookingsReleasedOnRepair() throws Exception {
+        Ship ship = shipRepository.save(new Ship("Mein Wrack", 10, true));
+        long firstId = System.nanoTime();
+        BookingRequestedEvent confirmed = new BookingRequestedEvent(firstId, 7L, ship.getId(), 6);
+        BookingRequestedEvent tooLarge = new BookingRequestedEvent(firstId + 1, 7L, ship.getId(), 6);
+
+        assertThat(shipComponentLogic.confirmBooking(confirmed)).isNull();
+        assertThat(shipComponentLogic.confirmBooking(tooLarge)).isNull();
+        assertThat(shipComponentLogic.releaseParkedBookings(ship.getId())).isZero();
+
+        capacityLedger.setDamaged(ship.getId(), false);
+        assertThat(shipComponentLogic.releaseParkedBookings(ship.getId())).isEqualTo(2);
+
+        verify(sendPipeline).send("ship-bookings", confirmed.getBookingId(), confirmed.decide(BookingStatus.CONFIRMED));
+        verify(sendPipeline).send("ship-bookings", tooLarge.getBookingId(), tooLarge.decide(BookingStatus.CANCELED));
+        assertThat(parkedBookingRepository.countByShipId(ship.getId())).isZero();
+        assertThat(capacityLedger.getAvailableContainers(ship.getId())).isEqualTo(4);
+    }
+
+    @Test
+    void canceledParkedBookingDroppedOnRepair() throws Exception {
+        Ship ship = shipRepository.save(new Ship("Mein Wrack", 10, true));
+        Booking booking = bookingRepository.save(new Booking(ship.getId(), 6));
+        BookingRequestedEvent request = new BookingRequestedEvent(booking.getId(), 7L, ship.getId(), 6);
+
+        assertThat(shipComponentLogic.confirmBooking(request)).isNull();
+        assertThat(bookingComponentBusinessLogic.cancelBookings(ship.getId())).isEqualTo(1);
+        capacityLedger.setDamaged(ship.getId(), false);
+
+        assertThat(shipComponentLogic.releaseParkedBookings(ship.getId())).isZero();
+        verify(sendPipeline, never()).send(eq("ship-bookings"), eq(booking.getId()), any());
+        assertThat(parkedBookingRepository.countByShipId(ship.getId())).isZero();
+        assertThat(capacityLedger.getAvailableContainers(ship.getId())).isEqualTo(10);
+    }
+
+    @Test
+    void shipChangeAppliedByOwner() throws Exception {
+        Ship ship = shipRepository.save(new Ship("Mein Wrack", 10, true));
+        BookingRequestedEvent booking = new BookingRequestedEvent(System.nanoTime(), 7L, ship.getId(), 6);
+        shipComponentLogic.confirmBooking(booking);
+        ShipChangedEvent repaired = new ShipChangedEvent(ship.getId(), 20, false);
+
+        shipComponentLogic.applyShipChange(repaired);
+        assertThat(capacityLedger.isDamaged(ship.getId())).isTrue();
+        assertThat(parkedBookingRepository.countByShipId(ship.getId())).isEqualTo(1);
+
+        given(shipPartitionOwner.owns(ship.getId())).willReturn(true);
+        shipComponentLogic.applyShipChange(repaired);
+        verify(sendPipeline).send("ship-bookings", booking.getBookingId(), booking.decide(BookingStatus.CONFIRMED));
+        assertThat(parkedBookingRepository.countByShipId(ship.getId())).isZero();
+        assertThat(capacityLedger.getAvailableContainers(ship.getId())).isEqualTo(14);
+    }
+
+    @Test
+    void releaseRollbackReleasesReservations() throws Exception {
+        Ship ship = shipRepository.save(new Ship("Mein Wrack", 10, true));
+        BookingRequestedEvent booking = new BookingRequestedEvent(System.nanoTime(), 7L, ship.getId(), 6);
+        shipComponentLogic.confirmBooking(booking);
+        capacityLedger.setDamaged(ship.getId(), false);
+        given(sendPipeline.send(eq("ship-bookings"), eq(booking.getBookingId()), any())).willThrow(new KafkaException("rejected"));
+
+        assertThatThrownBy(() -> shipComponentLogic.releaseParkedBookings(ship.getId())).isInstanceOf(KafkaException.class);
+        assertThat(capacityLedger.getAvailableContainers(ship.getId())).isEqualTo(10);
+        assertThat(parkedBookingRepository.countByShipId(ship.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void parkedBookingsCanceledOnTimeout() throws Exception {
+        Ship ship = shipRepository.save(new Ship("Mein Wrack", 10, true));
+        BookingRequestedEvent booking = new BookingRequestedEvent(System.nanoTime(), 7L, ship.getId(), 1);
+        shipComponentLogic.confirmBooking(booking);
+
+        shipComponentLogic.sweepParkedBookings();
+        assertThat(parkedBookingRepository.countByShipId(ship.getId())).isEqualTo(1);
+
+        long timeout = (long) ReflectionTestUtils.getField(shipComponentLogic, "parkingTimeoutMillis");
+        ReflectionTestUtils.setField(shipComponentLogic, "parkingTimeoutMillis", -1_000L);
+        try {
+            shipComponentLogic.sweepParkedBookings();
+        } finally {
+            ReflectionTestUtils.setField(shipComponentLogic, "parkingTimeoutMillis", timeout);
+        }
+
+        verify(sendPipeline).send("ship-bookings", booking.getBookingId(), booking.decide(BookingStatus.CANCELED));
+        assertThat(parkedBookingRepository.countByShipId(ship.getId())).isZero();
+    }
+
+    @Test
+    void transactionalRedeliveryResendsStoredDecisions() throws Exception {
+        Ship damagedShip = shipRepository.save(new Ship("Mein Wrack", 10, true));
+        long firstId = System.nanoTime();
+        BookingRequestedEvent confirmed = new BookingRequestedEvent(firstId, 7L, ships.get(0).getId(), 3);
+        BookingRequestedEvent damaged = new BookingRequestedEvent(firstId + 1, 7L, damagedShip.getId(), 1);
+        @SuppressWarnings("unchecked")
+        KafkaOperations<Object, Object> operations = mock(KafkaOperations.class);
+
+        assertThat(shipComponentLogic.confirmBookingsTransactional(List.of(confirmed, damaged), operations)).isEmpty();
+        assertThat(shipRepository.findById(ships.get(0).getId()).orElseThrow().getAvailableContainers()).isEqualTo(BOOKING_COUNT - 3);
+
+        assertThat(shipComponentLogic.confirmBookingsTransactional(List.of(confirmed, damaged), operations)).isEmpty();
+        verify(operations, times(2)).send("ship-bookings", confirmed.getBookingId(), confirmed.decide(BookingStatus.CONFIRMED));
+        verify(operations, never()).send(eq("ship-bookings"), eq(damaged.getBookingId()), any());
+        assertThat(capacityLedger.getAvailableContainers(ships.get(0).getId())).isEqualTo(BOOKING_COUNT - 3);
+        assertThat(parkedBookingRepository.countByShipId(damagedShip.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void transactionalRollbackReleasesReservations() throws Exception {
+        long firstId = System.nanoTime();
+        BookingRequestedEvent confirmed = new BookingRequestedEvent(firstId, 7L, ships.get(0).getId(), 3);
+        BookingRequestedEvent failing = new BookingRequestedEvent(firstId + 1, 7L, ships.get(0).getId(), 2);
+        @SuppressWarnings("unchecked")
+        KafkaOperations<Object, Object> operations = mock(KafkaOperations.class);
+        given(operations.send(eq("ship-bookings"), eq(failing.getBookingId()), any())).willThrow(new KafkaException("fenced"));
+
+        assertThatThrownBy(() -> shipComponentLogic.confirmBookingsTransactional(List.of(confirmed, failing), operations))
+                .isInstanceOf(KafkaException.class);
+        assertThat(capacityLedger.getAvailableContainers(ships.get(0).getId())).isEqualTo(BOOKING_COUNT);
+
+        given(operations.send(eq("ship-bookings"), eq(failing.getBookingId()), any())).willReturn(null);
+        assertThat(shipComponentLogic.confirmBookingsTransactional(List.of(confirmed, failing), operations)).isEmpty();
+        assertThat(capacityLedger.getAvailableContainers(ships.get(0).getId())).isEqualTo(BOOKING_COUNT - 5);
+    }
+
+    @Test
+    void batchRollbackReleasesReservations() throws Exception {
+        long firstId = System.nanoTime();
+        BookingRequestedEvent confirmed = new BookingRequestedEvent(firstId, 7L, ships.get(0).getId(), 3);
+        BookingRequestedEvent failing = new BookingRequestedEvent(firstId + 1, 7L, ships.get(0).getId(), 2);
+        given(sendPipeline.send(eq("ship-bookings"), eq(failing.getBookingId()), any())).willThrow(new KafkaException("rejected"));
+
+        assertThatThrownBy(() -> shipComponentLogic.confirmBookings(List.of(confirmed, failing))).isInstanceOf(KafkaException.class);
+        assertThatThrownBy(() -> shipComponentLogic.confirmBooking(failing)).isInstanceOf(KafkaException.class);
+        assertThat(capacityLedger.getAvailableContainers(ships.get(0).getId())).isEqualTo(BOOKING_COUNT);
+
+        given(sendPipeline.send(eq("ship-bookings"), eq(failing.getBookingId()), any())).willReturn(null);
+        assertThat(shipComponentLogic.confirmBookings(List.of(confirmed, failing))).isEmpty();
+        assertThat(capacityLedger.getAvailableContainers(ships.get(0).getId())).isEqualTo(BOOKING_COUNT - 5);
+    }
+
+    @Test
+    void confirmBookingsMatchesPerRecordPath() throws Exception {
+        List<BookingRequestedEvent> perRecordBookings = createBookings();
+        long start = System.nanoTime();
+        for (BookingRequestedEvent booking : perRecordBookings) {
+            shipComponentLogic.confirmBooking(booking);
+        }
+        long perRecordNanos = System.nanoTime() - start;
+        List<Integer> perRecordCapacities = availableContainers();
+
+        setUp();
+        List<BookingRequestedEvent> batchBookings = createBookings();
+        start = System.nanoTime();
+        for (int i = 0; i < batchBookings.size(); i += BATCH_SIZE) {
+            assertThat(shipComponentLogic.confirmBookings(batchBookings.subList(i, i + BATCH_SIZE))).isEmpty();
+        }
+        long batchNanos = System.nanoTime() - start;
+
+        log.info(String.format("Per-record path: %.0f records/s, batch path: %.0f records/s",
+                BOOKING_COUNT * 1e9 / perRecordNanos, BOOKING_COUNT * 1e9 / batchNanos));
+        assertThat(availableContainers()).isEqualTo(perRecordCapacities);
+    }
+
+    /**
+     * Requests are only decided once, so every call creates bookings with new ids.
+     */
+    private List<BookingRequestedEvent> createBookings() {
+        List<BookingRequestedEvent> bookings = new ArrayList<>();
+        long firstId = System.nanoTime();
+        for (int i = 0; i < BOOKING_COUNT; i++) {
+            bookings.add(new BookingRequestedEvent(firstId + i, 7L, ships.get(i % ships.size()).getId(), 1 + i % 3));
+        }
+        return bookings;
+    }
+
+    private List<Integer> availableContainers() {
+        capacityLedger.flush();
+        List<Integer> availableContainers = new ArrayList<>();
+        for (Ship ship : ships) {
+            availableContainers.add(shipRepository.findById(ship.getId()).orElseThrow().getAvailableContainers());
+        }
+        return availableContainers;
+    }
+}